@@ -0,0 +1,175 @@
+package ckollmeier.de.Benchmarks;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks für die Durchschnittsnoten, die Schwellwertabfragen und {@code printDetails}.
+ * Die Abfragen des Service messen ohne Zusatz die Berechnung: vor jedem Aufruf ändert {@link ChangedGrade} eine Note,
+ * sodass der Query-Cache verworfen wird. Die Varianten mit dem Zusatz {@code Cached} messen Treffer im Query-Cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AggregationBenchmark {
+    /**
+     * Schwellwert für die Abfrage der guten Studenten.
+     */
+    private static final BigDecimal THRESHOLD = new BigDecimal("2.5");
+    /**
+     * Untere Grenze für die Bereichsabfrage.
+     */
+    private static final BigDecimal RANGE_FROM = new BigDecimal("1.0");
+    /**
+     * Obere Grenze für die Bereichsabfrage.
+     */
+    private static final BigDecimal RANGE_TO = new BigDecimal("2.3");
+
+    /**
+     * Die ursprüngliche Standardausgabe.
+     */
+    private PrintStream originalOut;
+    /**
+     * Laufender Index, um reihum verschiedene Entitäten anzusprechen.
+     */
+    private int cursor;
+
+    /**
+     * Leitet die Standardausgabe für {@code printDetails} ins Leere um.
+     */
+    @Setup(Level.Trial)
+    public void redirectOut() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), true));
+    }
+
+    /**
+     * Stellt die Standardausgabe wieder her.
+     */
+    @TearDown(Level.Trial)
+    public void restoreOut() {
+        System.setOut(originalOut);
+    }
+
+    /**
+     * Ändert vor jedem Aufruf eine Note, damit der Query-Cache des Service nicht trifft.
+     * Die Änderung läuft außerhalb der Messung.
+     */
+    @State(Scope.Thread)
+    public static class ChangedGrade {
+        /**
+         * Der Kurs, in dem die Note geändert wird.
+         */
+        private Course course;
+        /**
+         * Der Student, dessen Note geändert wird.
+         */
+        private String studentId;
+        /**
+         * Wechselt zwischen zwei Noten, damit sich die Durchschnitte bei jedem Aufruf ändern.
+         */
+        private boolean toggle;
+
+        /**
+         * Wählt die erste Einschreibung des Datenbestands.
+         *
+         * @param data Der Datenbestand.
+         */
+        @Setup(Level.Trial)
+        public void select(final UniversityDataset data) {
+            course = data.courseList.stream().filter(candidate -> candidate.getStudentCount() > 0).findFirst()
+                    .orElseThrow();
+            studentId = course.getStudentsGrades().keySet().iterator().next();
+        }
+
+        /**
+         * Ändert die Note und verwirft damit die zwischengespeicherten Ergebnisse.
+         */
+        @Setup(Level.Invocation)
+        public void change() {
+            toggle = !toggle;
+            course.setGrade(studentId, toggle ? "1.0" : "5.0");
+        }
+    }
+
+    private int next(final int size) {
+        cursor = cursor + 1 < size ? cursor + 1 : 0;
+        return cursor;
+    }
+
+    @Benchmark
+    public Optional<BigDecimal> courseAverageGrade(final UniversityDataset data) {
+        return data.courseList.get(next(data.courses)).getAverageGrade();
+    }
+
+    @Benchmark
+    public Optional<BigDecimal> courseAverageGradeAfterChange(final UniversityDataset data) {
+        Course course = data.courseList.get(next(data.courses));
+        course.getStudentsGrades().keySet().stream().findFirst()
+                .ifPresent(studentId -> course.setGrade(studentId, UniversityDataset.GRADES[cursor % UniversityDataset.GRADES.length]));
+        return course.getAverageGrade();
+    }
+
+    @Benchmark
+    public Optional<BigDecimal> studentAverageGrade(final UniversityDataset data) {
+        Student student = data.studentList.get(next(data.students));
+        return student.getAverageGrade();
+    }
+
+    @Benchmark
+    public Optional<BigDecimal> calculateAverageGrade(final UniversityDataset data, final ChangedGrade changed) {
+        return data.service.calculateAverageGrade();
+    }
+
+    @Benchmark
+    public Optional<BigDecimal> calculateAverageGradeCached(final UniversityDataset data) {
+        return data.service.calculateAverageGrade();
+    }
+
+    @Benchmark
+    public List<Student> studentsBetterOrEquals(final UniversityDataset data, final ChangedGrade changed) {
+        return data.service.getStudentsWithAverageGradeBetterOrEquals(THRESHOLD);
+    }
+
+    @Benchmark
+    public List<Student> studentsBetterOrEqualsCached(final UniversityDataset data) {
+        return data.service.getStudentsWithAverageGradeBetterOrEquals(THRESHOLD);
+    }
+
+    @Benchmark
+    public List<Student> studentsBetween(final UniversityDataset data, final ChangedGrade changed) {
+        return data.service.getStudentsWithAverageGradeBetween(RANGE_FROM, RANGE_TO);
+    }
+
+    @Benchmark
+    public List<Student> bestStudents(final UniversityDataset data, final ChangedGrade changed) {
+        return data.service.getBestStudents(10);
+    }
+
+    @Benchmark
+    public void printDetails(final UniversityDataset data) {
+        data.service.printDetails();
+    }
+}
@@ -0,0 +1,140 @@
+package ckollmeier.de.Benchmarks;
+
+import ckollmeier.de.AsyncUniversityService;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Persistence.UniversityStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lasttest für {@link AsyncUniversityService}: Jeder Aufruf startet {@value #CALLS} gleichzeitige, gemischte Aufrufe
+ * und wartet auf alle. Abgelehnte Aufrufe zählen mit, damit die Gegendruck-Grenze {@code maxInFlight} sichtbar wird.
+ * Mit {@code durable=true} liegt der Datenbestand in einem {@link UniversityStore} in einem temporären Verzeichnis,
+ * und jeder ändernde Aufruf wartet auf sein {@link UniversityStore#commit()}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AsyncServiceBenchmark {
+    /**
+     * Anzahl der gleichzeitigen Aufrufe pro Benchmark-Aufruf.
+     */
+    static final int CALLS = 10_000;
+    /**
+     * Anzahl der IDs, die für neue Studenten reihum vergeben werden, damit das Repository nicht unbegrenzt wächst.
+     */
+    private static final int NEW_STUDENT_IDS = 100_000;
+
+    /**
+     * Maximale Anzahl gleichzeitig laufender Aufrufe.
+     */
+    @Param({"10000", "1024"})
+    public int maxInFlight;
+    /**
+     * Ob jeder ändernde Aufruf in einem {@link UniversityStore} gespeichert wird.
+     */
+    @Param({"false", "true"})
+    public boolean durable;
+
+    /**
+     * Die asynchrone Fassade über dem Service des Datenbestands.
+     */
+    private AsyncUniversityService async;
+    /**
+     * Das Verzeichnis des Speichers oder {@code null} ohne Speicher.
+     */
+    private Path directory;
+    /**
+     * Der Speicher des Datenbestands oder {@code null} ohne Speicher.
+     */
+    private UniversityStore store;
+    /**
+     * Laufender Index für neue Studenten und Kurse.
+     */
+    private int cursor;
+
+    /**
+     * Erzeugt die asynchrone Fassade, bei {@code durable} über einem Speicher mit dem Datenbestand als Snapshot.
+     *
+     * @param data Der Datenbestand.
+     * @throws IOException wenn der Speicher nicht angelegt werden kann.
+     */
+    @Setup(Level.Trial)
+    public void start(final UniversityDataset data) throws IOException {
+        if (durable) {
+            directory = Files.createTempDirectory("async-benchmark");
+            store = UniversityStore.open(directory, data.teacherRepository, data.courseRepository,
+                    data.studentRepository);
+            store.compact();
+        }
+        async = new AsyncUniversityService(data.service, store, maxInFlight, Duration.ofSeconds(10));
+    }
+
+    /**
+     * Wartet auf alle laufenden Aufrufe, beendet die Fassade und löscht den Speicher.
+     *
+     * @throws IOException wenn der Speicher nicht geschlossen oder gelöscht werden kann.
+     */
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        async.close();
+        if (store != null) {
+            store.close();
+            try (var files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public long mixedCalls(final UniversityDataset data) {
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            cursor++;
+            calls[i] = switch (i % 10) {
+                case 0 -> async.calculateAverageGrade();
+                case 1, 2, 3, 4 -> {
+                    String id = "async" + cursor % NEW_STUDENT_IDS;
+                    yield async.createStudent(Student.builder().id(id).name("Student " + id).build());
+                }
+                default -> async.addStudentsToCourse(
+                        data.courseList.get(cursor % data.courses).getId(),
+                        List.of(data.studentIds.get(cursor % data.students)));
+            };
+        }
+        long failed = 0;
+        for (CompletableFuture<?> call : calls) {
+            if (call.handle((result, error) -> error != null).join()) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,127 @@
+package ckollmeier.de.Benchmarks;
+
+import ckollmeier.de.EnrollmentResult;
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.GradeCsvReader;
+import ckollmeier.de.GradeImportResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks für das Einschreiben von Studenten und das Setzen von Noten.
+ * Eingeschrieben wird jeweils die Hälfte aller Studenten in einen neuen, leeren Kurs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnrollmentBenchmark {
+    /**
+     * Der leere Kurs, in den eingeschrieben wird.
+     */
+    private Course course;
+    /**
+     * IDs der einzuschreibenden Studenten.
+     */
+    private List<String> batch;
+    /**
+     * Noten für alle Studenten des Stapels im CSV-Format.
+     */
+    private String gradesCsv;
+    /**
+     * Laufender Index für die Einzelbenotung.
+     */
+    private int cursor;
+
+    /**
+     * Bereitet den Stapel und die Noten vor.
+     *
+     * @param data Der Datenbestand.
+     */
+    @Setup(Level.Trial)
+    public void prepare(final UniversityDataset data) {
+        batch = data.studentIds.subList(0, data.students / 2);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            csv.append("benchmark-course,").append(batch.get(i)).append(',')
+                    .append(UniversityDataset.GRADES[i % UniversityDataset.GRADES.length]).append('\n');
+        }
+        gradesCsv = csv.toString();
+    }
+
+    /**
+     * Legt vor jedem Aufruf einen neuen, leeren Kurs an.
+     *
+     * @param data Der Datenbestand.
+     */
+    @Setup(Level.Invocation)
+    public void createCourse(final UniversityDataset data) {
+        course = Course.builder()
+                .id("benchmark-course")
+                .name("Benchmark")
+                .teacher(data.teacherList.get(0))
+                .build();
+        data.service.createCourse(course);
+    }
+
+    /**
+     * Trägt alle Studenten wieder aus, damit der Datenbestand unverändert bleibt.
+     *
+     * @param data Der Datenbestand.
+     */
+    @TearDown(Level.Invocation)
+    public void removeCourse(final UniversityDataset data) {
+        for (Student student : course.getStudents()) {
+            course.removeStudent(student);
+        }
+        data.courseRepository.deleteById(course.getId());
+    }
+
+    @Benchmark
+    public void addStudentsToCourse(final UniversityDataset data) {
+        data.service.addStudentsToCourse(course.getId(), batch);
+    }
+
+    @Benchmark
+    public EnrollmentResult enrollStudents(final UniversityDataset data) {
+        return data.service.enrollStudents(course.getId(), batch);
+    }
+
+    @Benchmark
+    public void addCourseOneByOne(final UniversityDataset data) {
+        for (String studentId : batch) {
+            data.studentRepository.findById(studentId).ifPresent(student -> student.addCourse(course));
+        }
+    }
+
+    @Benchmark
+    public void setGradeOneByOne(final UniversityDataset data) {
+        data.service.addStudentsToCourse(course.getId(), batch);
+        for (String studentId : batch) {
+            course.setGrade(studentId, UniversityDataset.GRADES[cursor++ % UniversityDataset.GRADES.length]);
+        }
+    }
+
+    @Benchmark
+    public GradeImportResult importGrades(final UniversityDataset data) {
+        data.service.addStudentsToCourse(course.getId(), batch);
+        return data.service.importGrades(new GradeCsvReader(new StringReader(gradesCsv)));
+    }
+}
@@ -0,0 +1,85 @@
+package ckollmeier.de.Benchmarks;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks für save, findById und findAll der drei Repositories.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RepositoryBenchmark {
+    /**
+     * Laufender Index, um reihum verschiedene Entitäten anzusprechen.
+     */
+    private int cursor;
+
+    private int next(final int size) {
+        cursor = cursor + 1 < size ? cursor + 1 : 0;
+        return cursor;
+    }
+
+    @Benchmark
+    public Optional<Student> studentFindById(final UniversityDataset data) {
+        return data.studentRepository.findById(data.studentIds.get(next(data.students)));
+    }
+
+    @Benchmark
+    public Collection<Student> studentFindAll(final UniversityDataset data) {
+        return data.studentRepository.findAll();
+    }
+
+    @Benchmark
+    public void studentSave(final UniversityDataset data) {
+        data.studentRepository.save(data.studentList.get(next(data.students)));
+    }
+
+    @Benchmark
+    public Optional<Course> courseFindById(final UniversityDataset data) {
+        return data.courseRepository.findById(data.courseList.get(next(data.courses)).getId());
+    }
+
+    @Benchmark
+    public List<Course> courseFindAll(final UniversityDataset data) {
+        return data.courseRepository.findAll();
+    }
+
+    @Benchmark
+    public void courseSave(final UniversityDataset data) {
+        data.courseRepository.save(data.courseList.get(next(data.courses)));
+    }
+
+    @Benchmark
+    public Optional<Teacher> teacherFindById(final UniversityDataset data) {
+        return data.teacherRepository.findById(data.teacherList.get(next(data.teachers)).id());
+    }
+
+    @Benchmark
+    public List<Teacher> teacherFindAll(final UniversityDataset data) {
+        return data.teacherRepository.findAll();
+    }
+
+    @Benchmark
+    public void teacherSave(final UniversityDataset data) {
+        data.teacherRepository.save(data.teacherList.get(next(data.teachers)));
+    }
+}
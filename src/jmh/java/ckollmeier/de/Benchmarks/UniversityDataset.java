@@ -0,0 +1,139 @@
+package ckollmeier.de.Benchmarks;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+import ckollmeier.de.UniversityService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generierter Datenbestand für die Benchmarks.
+ * Jeder Student belegt im Mittel {@code density * courses} Kurse und hat in jedem belegten Kurs eine Note.
+ * Der Zufallsgenerator ist fest initialisiert, damit alle Läufe denselben Datenbestand verwenden.
+ */
+@State(Scope.Benchmark)
+public class UniversityDataset {
+    /**
+     * Noten, aus denen zufällig gewählt wird.
+     */
+    static final String[] GRADES = {"1.0", "1.3", "1.7", "2.0", "2.3", "2.7", "3.0", "3.3", "3.7", "4.0", "5.0"};
+
+    /**
+     * Anzahl der Studenten.
+     */
+    @Param({"1000", "10000"})
+    public int students;
+    /**
+     * Anzahl der Kurse.
+     */
+    @Param({"100", "1000"})
+    public int courses;
+    /**
+     * Anteil der Kurse, die ein Student im Mittel belegt.
+     */
+    @Param({"0.02"})
+    public double density;
+
+    /**
+     * Anzahl der Lehrer; jeder Lehrer unterrichtet im Mittel zehn Kurse.
+     */
+    public int teachers;
+    /**
+     * Teacher repository of the dataset.
+     */
+    public TeacherRepository teacherRepository;
+    /**
+     * Course repository of the dataset.
+     */
+    public CourseRepository courseRepository;
+    /**
+     * Student repository of the dataset.
+     */
+    public StudentRepository studentRepository;
+    /**
+     * Service on top of the repositories.
+     */
+    public UniversityService service;
+    /**
+     * All teachers, in creation order.
+     */
+    public List<Teacher> teacherList;
+    /**
+     * All courses, in creation order.
+     */
+    public List<Course> courseList;
+    /**
+     * All students, in creation order.
+     */
+    public List<Student> studentList;
+    /**
+     * IDs of all students, in creation order.
+     */
+    public List<String> studentIds;
+
+    /**
+     * Erzeugt den Datenbestand.
+     */
+    @Setup(Level.Trial)
+    public void generate() {
+        Random random = new Random(42);
+        teachers = Math.max(1, courses / 10);
+        teacherRepository = new TeacherRepository();
+        courseRepository = new CourseRepository();
+        studentRepository = new StudentRepository();
+        service = new UniversityService(teacherRepository, courseRepository, studentRepository);
+
+        teacherList = new ArrayList<>(teachers);
+        for (int t = 0; t < teachers; t++) {
+            Teacher teacher = new Teacher("teacher-" + t, "Teacher " + t, "Address " + (t % 100));
+            service.createTeacher(teacher);
+            teacherList.add(teacher);
+        }
+
+        studentList = new ArrayList<>(students);
+        studentIds = new ArrayList<>(students);
+        for (int s = 0; s < students; s++) {
+            Student student = Student.builder()
+                    .id("student-" + s)
+                    .name("Student " + s)
+                    .address("Address " + (s % 100))
+                    .build();
+            service.createStudent(student);
+            studentList.add(student);
+            studentIds.add(student.getId());
+        }
+
+        courseList = new ArrayList<>(courses);
+        for (int c = 0; c < courses; c++) {
+            Course course = Course.builder()
+                    .id("course-" + c)
+                    .name("Course " + c)
+                    .teacher(teacherList.get(random.nextInt(teachers)))
+                    .build();
+            service.createCourse(course);
+            courseList.add(course);
+
+            List<String> enrolled = new ArrayList<>();
+            for (String studentId : studentIds) {
+                if (random.nextDouble() < density) {
+                    enrolled.add(studentId);
+                }
+            }
+            service.addStudentsToCourse(course.getId(), enrolled);
+            for (String studentId : enrolled) {
+                course.setGrade(studentId, GRADES[random.nextInt(GRADES.length)]);
+            }
+        }
+    }
+}
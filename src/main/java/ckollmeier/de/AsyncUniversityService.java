@@ -0,0 +1,229 @@
+package ckollmeier.de;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Metrics.Counter;
+import ckollmeier.de.Metrics.MeterRegistry;
+import ckollmeier.de.Persistence.UniversityStore;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous facade over a {@link UniversityService}.
+ * Every call runs on its own virtual thread, so blocking calls such as a durable {@link UniversityStore#commit()}
+ * do not tie up platform threads. Many concurrent commits are then written together by the group commit of the store.
+ *
+ * <p>The number of calls in flight is bounded. When the bound is reached, the calling thread waits for a free slot
+ * for at most the admission timeout; after that the call fails with a {@link RejectedExecutionException} without
+ * being run. This pushes back on the callers instead of queuing work without limit.</p>
+ */
+public final class AsyncUniversityService implements AutoCloseable {
+    /**
+     * The service the calls are delegated to.
+     */
+    private final UniversityService service;
+    /**
+     * The store that is committed after each modifying call, or {@code null} if changes are not persisted.
+     */
+    private final UniversityStore store;
+    /**
+     * The maximum number of calls in flight.
+     */
+    private final int maxInFlight;
+    /**
+     * How long a caller waits for a free slot before the call is rejected.
+     */
+    private final Duration admissionTimeout;
+    /**
+     * One permit per call that may still be admitted.
+     */
+    private final Semaphore permits;
+    /**
+     * Runs every call on a new virtual thread.
+     */
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    /**
+     * Counts the calls that were rejected because too many calls were in flight.
+     */
+    private volatile Counter rejectedCalls = MeterRegistry.DISABLED.counter("async.rejected");
+
+    /**
+     * Creates a facade whose modifying calls complete without waiting for persistence.
+     *
+     * @param service          The service the calls are delegated to.
+     * @param maxInFlight      The maximum number of calls in flight; must be positive.
+     * @param admissionTimeout How long a caller waits for a free slot before the call is rejected.
+     */
+    public AsyncUniversityService(final UniversityService service, final int maxInFlight,
+                                  final Duration admissionTimeout) {
+        this(service, null, maxInFlight, admissionTimeout);
+    }
+
+    /**
+     * Creates a facade whose modifying calls complete only after their changes have been committed to a store.
+     *
+     * @param service          The service the calls are delegated to.
+     * @param store            The store holding the repositories of the service, or {@code null}.
+     * @param maxInFlight      The maximum number of calls in flight; must be positive.
+     * @param admissionTimeout How long a caller waits for a free slot before the call is rejected.
+     */
+    public AsyncUniversityService(final UniversityService service, final UniversityStore store, final int maxInFlight,
+                                  final Duration admissionTimeout) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.service = service;
+        this.store = store;
+        this.maxInFlight = maxInFlight;
+        this.admissionTimeout = admissionTimeout;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Creates and saves a student, see {@link UniversityService#createStudent(Student)}.
+     *
+     * @param student The student to be created.
+     * @return A future which completes once the student is saved and, with a store, committed.
+     */
+    public CompletableFuture<Void> createStudent(final Student student) {
+        return submitUpdate(() -> service.createStudent(student));
+    }
+
+    /**
+     * Creates and saves a teacher, see {@link UniversityService#createTeacher(Teacher)}.
+     *
+     * @param teacher The teacher to be created.
+     * @return A future which completes once the teacher is saved and, with a store, committed.
+     */
+    public CompletableFuture<Void> createTeacher(final Teacher teacher) {
+        return submitUpdate(() -> service.createTeacher(teacher));
+    }
+
+    /**
+     * Creates and saves a course, see {@link UniversityService#createCourse(Course)}.
+     *
+     * @param course The course to be created.
+     * @return A future which completes once the course is saved and, with a store, committed.
+     */
+    public CompletableFuture<Void> createCourse(final Course course) {
+        return submitUpdate(() -> service.createCourse(course));
+    }
+
+    /**
+     * Adds students to a course, see {@link UniversityService#addStudentsToCourse(String, List)}.
+     *
+     * @param courseId   The ID of the course.
+     * @param studentIds The IDs of the students.
+     * @return A future which completes once the students are enrolled and, with a store, committed,
+     * or completes exceptionally with an {@link IllegalArgumentException} if the course or a student is not found.
+     */
+    public CompletableFuture<Void> addStudentsToCourse(final String courseId, final List<String> studentIds) {
+        return submitUpdate(() -> service.addStudentsToCourse(courseId, studentIds));
+    }
+
+    /**
+     * Enrolls a batch of students, see {@link UniversityService#enrollStudents(String, List)}.
+     *
+     * @param courseId   The ID of the course.
+     * @param studentIds The IDs of the students.
+     * @return A future with the result of the enrollment, completed once it is committed if there is a store.
+     */
+    public CompletableFuture<EnrollmentResult> enrollStudents(final String courseId, final List<String> studentIds) {
+        return submit(() -> {
+            EnrollmentResult result = service.enrollStudents(courseId, studentIds);
+            commit();
+            return result;
+        });
+    }
+
+    /**
+     * Calculates the average grade of all courses, see {@link UniversityService#calculateAverageGrade()}.
+     *
+     * @return A future with the average grade.
+     */
+    public CompletableFuture<Optional<BigDecimal>> calculateAverageGrade() {
+        return submit(service::calculateAverageGrade);
+    }
+
+    /**
+     * Returns the number of calls that are currently admitted and not yet completed.
+     *
+     * @return The number of calls in flight.
+     */
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * Measures the calls in flight and the rejected calls in the given registry.
+     *
+     * @param registry The registry for the metrics.
+     */
+    public void setMeterRegistry(final MeterRegistry registry) {
+        rejectedCalls = registry.counter("async.rejected");
+        registry.gauge("async.inFlight", this::getInFlight);
+    }
+
+    /**
+     * Stops admitting calls and waits until all calls in flight have completed.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private CompletableFuture<Void> submitUpdate(final Runnable update) {
+        return submit(() -> {
+            update.run();
+            commit();
+            return null;
+        });
+    }
+
+    private void commit() throws IOException {
+        if (store != null) {
+            store.commit();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(final Callable<T> call) {
+        try {
+            if (!permits.tryAcquire(admissionTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                rejectedCalls.increment();
+                return CompletableFuture.failedFuture(
+                        new RejectedExecutionException("More than " + maxInFlight + " calls in flight"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(call.call());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+}
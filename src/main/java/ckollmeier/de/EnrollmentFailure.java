@@ -0,0 +1,38 @@
+package ckollmeier.de;
+
+import lombok.Builder;
+
+/**
+ * Eine Zeile einer Masseneinschreibung, die nicht übernommen werden konnte.
+ * @param row Der Index der Zeile in der übergebenen Liste.
+ * @param studentId Die ID des Studenten aus dieser Zeile.
+ * @param reason Der Grund, warum die Zeile nicht übernommen wurde.
+ */
+@Builder
+public record EnrollmentFailure(
+        int row,
+        String studentId,
+        Reason reason
+) {
+    /**
+     * Gründe, aus denen eine Zeile einer Masseneinschreibung abgelehnt wird.
+     */
+    public enum Reason {
+        /**
+         * Die Zeile enthält keine Studenten-ID.
+         */
+        MISSING_ID,
+        /**
+         * Es existiert kein Student mit dieser ID.
+         */
+        STUDENT_NOT_FOUND,
+        /**
+         * Die ID kommt in der Liste mehrfach vor.
+         */
+        DUPLICATE,
+        /**
+         * Der Student ist bereits in den Kurs eingeschrieben.
+         */
+        ALREADY_ENROLLED
+    }
+}
@@ -0,0 +1,29 @@
+package ckollmeier.de;
+
+import lombok.Builder;
+import lombok.With;
+
+import java.util.List;
+
+/**
+ * Ergebnis einer Masseneinschreibung von Studenten in einen Kurs.
+ * @param courseId Die ID des Kurses.
+ * @param enrolled Die Anzahl der neu eingeschriebenen Studenten.
+ * @param failures Die Zeilen, die nicht eingeschrieben werden konnten.
+ */
+@Builder
+@With
+public record EnrollmentResult(
+        String courseId,
+        int enrolled,
+        List<EnrollmentFailure> failures
+) {
+    /**
+     * Prüft, ob alle Zeilen erfolgreich verarbeitet wurden.
+     *
+     * @return {@code true}, wenn keine Zeile fehlgeschlagen ist.
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+}
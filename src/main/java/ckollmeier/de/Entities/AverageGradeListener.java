@@ -0,0 +1,18 @@
+package ckollmeier.de.Entities;
+
+import java.math.BigDecimal;
+
+/**
+ * Listener which is notified whenever the average grade of a student changes.
+ */
+@FunctionalInterface
+public interface AverageGradeListener {
+    /**
+     * Called after the average grade of a student changed.
+     *
+     * @param student    The student whose average grade changed.
+     * @param oldAverage The previous average grade, or {@code null} if the student had no grades.
+     * @param newAverage The new average grade, or {@code null} if the student has no grades anymore.
+     */
+    void averageGradeChanged(Student student, BigDecimal oldAverage, BigDecimal newAverage);
+}
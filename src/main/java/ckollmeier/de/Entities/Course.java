@@ -2,20 +2,26 @@ package ckollmeier.de.Entities;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.ToString;
 import lombok.Value;
 import lombok.With;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Diese Klasse repräsentiert einen Kurs mit seinen Basisinformationen.
@@ -37,26 +43,163 @@ public class Course {
      */
     private @NotNull Teacher teacher;
     /**
-     * Eine Map, die Studenten anhand ihrer ID speichert.
+     * Die Einschreibungen mit ihren Noten, spaltenweise gespeichert.
      */
-    private @EqualsAndHashCode.Exclude @NotNull Map<String, StudentsGradesInCourses> studentsGrades = new HashMap<>();
+    private @Getter(AccessLevel.NONE) @EqualsAndHashCode.Exclude @ToString.Exclude EnrollmentColumns enrollments = new EnrollmentColumns();
+    /**
+     * Nicht veränderbare Sicht auf die Einschreibungen nach der ID des Studenten.
+     * Die {@link StudentsGradesInCourses}-Objekte werden erst beim Zugriff erzeugt.
+     */
+    private @EqualsAndHashCode.Exclude @NotNull Map<String, StudentsGradesInCourses> studentsGrades = enrollments.asMap(this);
+    /**
+     * Laufende Summe und Anzahl der Noten in diesem Kurs.
+     */
+    private @Getter(AccessLevel.NONE) @EqualsAndHashCode.Exclude @ToString.Exclude GradeAggregate gradeAggregate = new GradeAggregate();
+    /**
+     * Sperre für Änderungen an den Einschreibungen und Noten.
+     * Werden Kurs und Student gemeinsam gesperrt, wird immer zuerst der Kurs und dann der Student gesperrt.
+     */
+    private @Getter(AccessLevel.NONE) @EqualsAndHashCode.Exclude @ToString.Exclude ReentrantLock lock = new ReentrantLock();
+    /**
+     * Listener, die über Änderungen an Einschreibungen und Noten benachrichtigt werden.
+     */
+    private @Getter(AccessLevel.NONE) @EqualsAndHashCode.Exclude @ToString.Exclude Set<CourseChangeListener> changeListeners = new CopyOnWriteArraySet<>();
+    /**
+     * Zwischengespeicherte, unveränderliche Menge der eingeschriebenen Studenten oder {@code null},
+     * wenn sie seit der letzten Einschreibung oder Abmeldung noch nicht neu aufgebaut wurde.
+     */
+    private @Getter(AccessLevel.NONE) @EqualsAndHashCode.Exclude @ToString.Exclude AtomicReference<Set<Student>> studentsView = new AtomicReference<>();
+
+    /**
+     * Erzeugt einen archivierten Kurs, dessen Einschreibungen erst beim ersten Zugriff aus der Quelle geladen werden.
+     * Anzahl der Studenten und Durchschnittsnote kommen aus der Zusammenfassung der Quelle, ohne zu laden.
+     *
+     * <p>Archivierte Kurse sind unveränderlich: Einschreiben, Abmelden und Benoten werfen eine
+     * {@link UnsupportedOperationException}. Ihre Einschreibungen werden nicht mit den Studenten verknüpft, fließen
+     * also nicht in deren Kurse und Durchschnittsnoten ein.</p>
+     *
+     * @param id      Die ID des Kurses.
+     * @param name    Der Name des Kurses.
+     * @param teacher Der Dozent des Kurses.
+     * @param source  Die Quelle der Einschreibungen.
+     * @return Der archivierte Kurs.
+     */
+    public static Course archived(final String id, final String name, final Teacher teacher,
+                                  final EnrollmentSource source) {
+        Course course = Course.builder().id(id).name(name).teacher(teacher).build();
+        course.enrollments.archive(course, source);
+        course.gradeAggregate.addAll(source.gradeSum(), source.gradeCounts());
+        return course;
+    }
+
+    /**
+     * Prüft, ob der Kurs archiviert ist, siehe {@link #archived(String, String, Teacher, EnrollmentSource)}.
+     *
+     * @return {@code true} für einen archivierten Kurs.
+     */
+    public boolean isArchived() {
+        return enrollments.isArchived();
+    }
+
+    /**
+     * Prüft, ob die Einschreibungen im Speicher liegen. Für nicht archivierte Kurse immer {@code true}.
+     *
+     * @return {@code true}, wenn die Einschreibungen geladen sind.
+     */
+    public boolean isEnrollmentsLoaded() {
+        return enrollments.isResident();
+    }
+
+    /**
+     * Gibt die geladenen Einschreibungen eines archivierten Kurses frei, wenn sie seit dem letzten Aufruf nicht
+     * gelesen wurden; beim nächsten Zugriff werden sie neu geladen. Wurden sie gelesen, werden sie erst beim nächsten
+     * Aufruf freigegeben, sofern sie bis dahin unbenutzt bleiben.
+     *
+     * @return Die geschätzte Anzahl freigegebener Bytes, oder {@code 0}, wenn nichts freigegeben wurde.
+     */
+    public long releaseEnrollments() {
+        return enrollments.releaseIfUnused();
+    }
+
+    private void checkWritable() {
+        if (enrollments.isArchived()) {
+            throw new UnsupportedOperationException("Archived courses are read-only.");
+        }
+    }
 
     /**
      * Fügt einen Studenten zum Kurs hinzu.
+     * Beide Seiten der Einschreibung werden unter den Sperren von Kurs und Student atomar aktualisiert.
      *
      * @param student Der hinzuzufügende Student. Der Student muss eine gültige ID besitzen.
      */
     public void addStudent(final Student student) {
-        if (student != null && student.getId() != null) {
-            if (this.studentsGrades.containsKey(student.getId())) {
+        checkWritable();
+        if (student == null || student.getId() == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (enrollments.find(student.getId()) != EnrollmentColumns.NOT_FOUND) {
                 return;
             }
-            this.studentsGrades.put(student.getId(), StudentsGradesInCourses
-                    .builder()
-                    .student(student)
-                    .course(this)
-                    .build());
-            student.addCourse(this);
+            student.getLock().lock();
+            try {
+                enrollments.add(student);
+                student.linkCourse(this);
+                studentsView.set(null);
+                changeListeners.forEach(listener -> listener.studentAdded(this, student));
+            } finally {
+                student.getLock().unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fügt mehrere Studenten in einem Schritt zum Kurs hinzu.
+     * Die Sperre des Kurses wird nur einmal genommen und alle neuen Einschreibungen werden gesammelt übernommen.
+     * Studenten ohne ID werden ignoriert; bereits eingeschriebene Studenten werden übersprungen und zurückgegeben.
+     * Da die Prüfung unter der Sperre des Kurses erfolgt, enthält das Ergebnis auch Studenten, die gleichzeitig von
+     * einem anderen Thread eingeschrieben wurden.
+     *
+     * @param students Die hinzuzufügenden Studenten.
+     * @return Die übersprungenen, bereits eingeschriebenen Studenten in der Reihenfolge von {@code students}.
+     */
+    public List<Student> addStudents(final Collection<Student> students) {
+        checkWritable();
+        List<Student> added = new ArrayList<>(students.size());
+        List<Student> skipped = new ArrayList<>();
+        lock.lock();
+        try {
+            enrollments.ensureCapacity(enrollments.size() + students.size());
+            for (Student student : students) {
+                if (student == null || student.getId() == null) {
+                    continue;
+                }
+                if (enrollments.find(student.getId()) != EnrollmentColumns.NOT_FOUND) {
+                    skipped.add(student);
+                    continue;
+                }
+                enrollments.add(student);
+                added.add(student);
+            }
+            if (!added.isEmpty()) {
+                studentsView.set(null);
+            }
+            for (Student student : added) {
+                student.getLock().lock();
+                try {
+                    student.linkCourse(this);
+                    changeListeners.forEach(listener -> listener.studentAdded(this, student));
+                } finally {
+                    student.getLock().unlock();
+                }
+            }
+            return skipped;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -64,15 +207,65 @@ public class Course {
      * Setzt die Note eines Studenten in diesem Kurs.
      *
      * @param studentId Die ID des Studenten.
-     * @param grade     Die Note des Studenten.
+     * @param grade     Die Note des Studenten, mit höchstens zwei Nachkommastellen.
      */
     public void setGrade(final String studentId, final String grade) {
-        StudentsGradesInCourses studentGrade = studentsGrades.getOrDefault(studentId, null);
-        if (studentGrade == null) {
-            throw new IllegalArgumentException("Student not found.");
+        checkWritable();
+        BigDecimal newGrade = new BigDecimal(grade);
+        FixedPointGrade.validate(newGrade);
+        lock.lock();
+        try {
+            if (!applyGrade(studentId, newGrade)) {
+                throw new IllegalArgumentException("Student not found.");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Setzt die Noten mehrerer Studenten in einem Schritt.
+     * Die Sperre des Kurses wird für alle Noten nur einmal genommen.
+     *
+     * @param grades Die Noten, nach der ID des Studenten, mit jeweils höchstens zwei Nachkommastellen.
+     * @return Die IDs der Studenten, die nicht in den Kurs eingeschrieben sind und deshalb übersprungen wurden.
+     * @throws IllegalArgumentException wenn eine Note ungültig ist (siehe {@link FixedPointGrade#validate}); es wird
+     *                                  dann keine Note gesetzt.
+     */
+    public Set<String> setGrades(final Map<String, BigDecimal> grades) {
+        checkWritable();
+        grades.values().forEach(FixedPointGrade::validate);
+        Set<String> notFound = new HashSet<>();
+        lock.lock();
+        try {
+            grades.forEach((studentId, grade) -> {
+                if (!applyGrade(studentId, grade)) {
+                    notFound.add(studentId);
+                }
+            });
+        } finally {
+            lock.unlock();
         }
+        return notFound;
+    }
 
-        studentsGrades.put(studentId, studentGrade.withGrade(new BigDecimal(grade)));
+    private boolean applyGrade(final String studentId, final BigDecimal newGrade) {
+        int row = enrollments.find(studentId);
+        if (row == EnrollmentColumns.NOT_FOUND) {
+            return false;
+        }
+        Student student = enrollments.studentAt(row);
+        BigDecimal oldGrade = enrollments.gradeAt(row);
+        student.getLock().lock();
+        try {
+            enrollments.setGradeAt(row, newGrade);
+            gradeAggregate.replace(oldGrade, newGrade);
+            student.gradeChanged(oldGrade, newGrade);
+            changeListeners.forEach(listener -> listener.gradeChanged(this, student, newGrade));
+        } finally {
+            student.getLock().unlock();
+        }
+        return true;
     }
 
     /**
@@ -84,8 +277,68 @@ public class Course {
         if (student.getId() == null) {
             throw new IllegalArgumentException("Student has no id.");
         }
-        if (this.studentsGrades.remove(student.getId()) != null) {
-            student.removeCourse(this);
+        checkWritable();
+        lock.lock();
+        try {
+            int row = enrollments.find(student.getId());
+            if (row == EnrollmentColumns.NOT_FOUND) {
+                return;
+            }
+            Student enrolled = enrollments.studentAt(row);
+            BigDecimal grade = enrollments.gradeAt(row);
+            enrolled.getLock().lock();
+            try {
+                enrollments.removeAt(row);
+                studentsView.set(null);
+                gradeAggregate.remove(grade);
+                enrolled.gradeChanged(grade, null);
+                enrolled.unlinkCourse(this);
+                changeListeners.forEach(listener -> listener.studentRemoved(this, enrolled));
+            } finally {
+                enrolled.getLock().unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registriert einen Listener für Änderungen an Einschreibungen und Noten.
+     * Atomar mit der Registrierung wird der Listener über alle bestehenden Einschreibungen und Noten benachrichtigt,
+     * als wären sie gerade erst entstanden. Ein archivierter Kurs ändert sich nie; der Listener wird dort nur
+     * registriert, ohne die Einschreibungen zu laden.
+     *
+     * @param listener Der zu registrierende Listener.
+     */
+    public void addChangeListener(final CourseChangeListener listener) {
+        lock.lock();
+        try {
+            if (changeListeners.add(listener) && !enrollments.isArchived()) {
+                for (int row = 0; row < enrollments.size(); row++) {
+                    Student student = enrollments.studentAt(row);
+                    BigDecimal grade = enrollments.gradeAt(row);
+                    listener.studentAdded(this, student);
+                    if (grade != null) {
+                        listener.gradeChanged(this, student, grade);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Entfernt einen zuvor registrierten Listener. Der Listener wird dabei nicht mehr benachrichtigt.
+     *
+     * @param listener Der zu entfernende Listener.
+     */
+    public void removeChangeListener(final CourseChangeListener listener) {
+        lock.lock();
+        try {
+            changeListeners.remove(listener);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -96,43 +349,63 @@ public class Course {
      * @return An Optional containing the grade of the student as a BigDecimal, or an empty Optional if the student ID is not found.
      */
     public Optional<BigDecimal> getGradeForStudent(final @NonNull String studentId) {
-        if (!studentsGrades.containsKey(studentId)) {
-            throw new IllegalArgumentException("Student not found.");
-        }
-        return Optional.ofNullable(studentsGrades.get(studentId).getGrade());
+        return Optional.ofNullable(enrollments.grade(studentId));
     }
 
     /**
      * Calculates the average grade of all students in this course.
+     * The average is taken from a running aggregate that is updated by {@link #setGrade} and {@link #removeStudent}.
      *
      * @return An Optional containing the average grade as a BigDecimal, or Optional.empty() if there are no students or grades.
      */
     public Optional<BigDecimal> getAverageGrade() {
-        long count = studentsGrades.values().stream()
-                .map(StudentsGradesInCourses::getGrade)
-                .filter(Objects::nonNull)
-                .count();
-
-        if (count == 0) {
-            return Optional.empty();
-        }
-
-        BigDecimal sum = studentsGrades.values().stream()
-                .map(StudentsGradesInCourses::getGrade)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        return Optional.of(sum.divide(BigDecimal.valueOf(count), RoundingMode.HALF_UP));
+        return gradeAggregate.average();
     }
 
     /**
      * Retrieves all the students enrolled in the course.
+     * The set is an unmodifiable snapshot which is cached until the next enrollment or removal.
      *
      * @return A Set of students currently enrolled in the course.
      */
     public Set<Student> getStudents() {
-        return this.studentsGrades.values().stream()
-                .map(StudentsGradesInCourses::getStudent)
-                .collect(Collectors.toSet());
+        if (enrollments.isArchived()) {
+            // Nicht zwischenspeichern, damit freigegebene Einschreibungen nicht über die Menge im Speicher bleiben.
+            return Set.copyOf(enrollments.students());
+        }
+        Set<Student> students = studentsView.get();
+        if (students != null) {
+            return students;
+        }
+        lock.lock();
+        try {
+            students = studentsView.get();
+            if (students == null) {
+                students = Set.copyOf(enrollments.students());
+                studentsView.set(students);
+            }
+            return students;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of students enrolled in the course without building a set of them.
+     *
+     * @return The number of students currently enrolled in the course.
+     */
+    public int getStudentCount() {
+        return enrollments.size();
+    }
+
+    /**
+     * Visits all enrollments of the course with their grades in hundredths, without creating an object per enrollment.
+     * Enrollments and grades cannot change while the visitor runs.
+     *
+     * @param visitor The visitor; must not modify the course.
+     */
+    public void forEachEnrollment(final EnrollmentVisitor visitor) {
+        enrollments.forEach(visitor);
     }
 }
@@ -0,0 +1,34 @@
+package ckollmeier.de.Entities;
+
+import java.math.BigDecimal;
+
+/**
+ * Listener which is notified about changes to the enrollments and grades of a course.
+ * Notifications are delivered while the course is locked, i.e. in the order the changes were applied.
+ */
+public interface CourseChangeListener {
+    /**
+     * Called after a student was enrolled in the course.
+     *
+     * @param course  The course.
+     * @param student The enrolled student.
+     */
+    void studentAdded(Course course, Student student);
+
+    /**
+     * Called after a student was removed from the course.
+     *
+     * @param course  The course.
+     * @param student The removed student.
+     */
+    void studentRemoved(Course course, Student student);
+
+    /**
+     * Called after the grade of a student in the course was set.
+     *
+     * @param course  The course.
+     * @param student The student.
+     * @param grade   The new grade.
+     */
+    void gradeChanged(Course course, Student student, BigDecimal grade);
+}
@@ -0,0 +1,549 @@
+package ckollmeier.de.Entities;
+
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Spaltenweiser Speicher der Einschreibungen eines Kurses.
+ * Statt eines {@link StudentsGradesInCourses}-Objekts mit eigener {@link BigDecimal}-Note je Einschreibung liegen
+ * Student, Note in Hundertsteln und Skala der Note in parallelen Arrays. Eine Hash-Tabelle mit offener Adressierung
+ * bildet die ID des Studenten auf die Zeile ab. Beim Entfernen rückt die letzte Zeile in die frei gewordene nach,
+ * die Zeilen bleiben also lückenlos und können in einer einfachen Schleife durchlaufen werden.
+ *
+ * <p>Geändert wird nur vom Kurs unter seiner Sperre, über die Methoden mit Zeilennummer. Die Änderungen sind
+ * zusätzlich durch eine {@link StampedLock} geschützt, damit Lesezugriffe ohne die Sperre des Kurses auskommen:
+ * Sie laufen optimistisch und werden nur wiederholt, wenn währenddessen geschrieben wurde.</p>
+ *
+ * <p>Die Spalten eines archivierten Kurses werden erst beim ersten Lesezugriff aus ihrer {@link EnrollmentSource}
+ * geladen und können mit {@link #releaseIfUnused()} wieder freigegeben werden; ihre Anzahl liefert die Quelle
+ * ohne zu laden.</p>
+ */
+final class EnrollmentColumns {
+    /**
+     * Rückgabewert von {@link #find(String)} für Studenten, die nicht eingeschrieben sind.
+     */
+    static final int NOT_FOUND = -1;
+    /**
+     * Kapazität der Spalten nach der ersten Einschreibung.
+     */
+    private static final int INITIAL_CAPACITY = 4;
+    /**
+     * Multiplikator zum Streuen der Hashwerte (Fibonacci-Hashing).
+     */
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+    /**
+     * Geschätzte Größe eines Array-Kopfes in Bytes.
+     */
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    /**
+     * Spalte der eingeschriebenen Studenten.
+     */
+    private Student[] students = new Student[0];
+    /**
+     * Spalte der Noten in Hundertsteln.
+     */
+    private int[] grades = new int[0];
+    /**
+     * Spalte der Skalen der Noten, {@link EnrollmentVisitor#NO_GRADE} ohne Note.
+     */
+    private byte[] scales = new byte[0];
+    /**
+     * Hash-Tabelle der Zeilen nach der ID des Studenten, jeweils um eins erhöht; {@code 0} markiert einen freien Platz.
+     * Sie ist doppelt so groß wie die Spalten, also höchstens zur Hälfte gefüllt.
+     */
+    private int[] index = new int[0];
+    /**
+     * Anzahl der belegten Zeilen.
+     */
+    private int size;
+    /**
+     * Sperre für die Spalten.
+     */
+    private final StampedLock lock = new StampedLock();
+    /**
+     * Die Quelle der Einschreibungen eines archivierten Kurses, sonst {@code null}.
+     */
+    private volatile EnrollmentSource source;
+    /**
+     * Der archivierte Kurs, dem die Spalten gehören.
+     */
+    private Course owner;
+    /**
+     * Gibt an, ob die Spalten geladen sind; außer bei archivierten Kursen immer {@code true}.
+     */
+    private volatile boolean resident = true;
+    /**
+     * Gibt an, ob seit dem letzten Aufruf von {@link #releaseIfUnused()} gelesen wurde.
+     */
+    private volatile boolean referenced;
+
+    /**
+     * Macht die Spalten zu denen eines archivierten Kurses, die bei Bedarf aus der Quelle geladen werden.
+     * Nur für leere Spalten aufzurufen.
+     *
+     * @param course           Der archivierte Kurs.
+     * @param enrollmentSource Die Quelle der Einschreibungen.
+     */
+    void archive(final Course course, final EnrollmentSource enrollmentSource) {
+        long stamp = lock.writeLock();
+        try {
+            owner = course;
+            source = enrollmentSource;
+            resident = false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Prüft, ob die Spalten zu einem archivierten Kurs gehören.
+     *
+     * @return {@code true} für einen archivierten Kurs.
+     */
+    boolean isArchived() {
+        return source != null;
+    }
+
+    /**
+     * Prüft, ob die Einschreibungen im Speicher liegen.
+     *
+     * @return {@code true}, wenn sie geladen sind oder der Kurs nicht archiviert ist.
+     */
+    boolean isResident() {
+        return resident;
+    }
+
+    /**
+     * Gibt die geladenen Einschreibungen eines archivierten Kurses frei, wenn sie seit dem letzten Aufruf nicht
+     * gelesen wurden. Wurden sie gelesen, bekommen sie eine zweite Chance bis zum nächsten Aufruf (Clock-Verfahren).
+     *
+     * @return Die geschätzte Anzahl freigegebener Bytes, oder {@code 0}, wenn nichts freigegeben wurde.
+     */
+    long releaseIfUnused() {
+        if (source == null) {
+            return 0;
+        }
+        if (referenced) {
+            referenced = false;
+            return 0;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (!resident) {
+                return 0;
+            }
+            long bytes = footprint();
+            students = new Student[0];
+            grades = new int[0];
+            scales = new byte[0];
+            index = new int[0];
+            size = 0;
+            resident = false;
+            return bytes;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Liefert die Anzahl der Einschreibungen.
+     *
+     * @return Die Anzahl.
+     */
+    int size() {
+        EnrollmentSource archived = source;
+        if (archived != null) {
+            return archived.size();
+        }
+        long stamp = lock.tryOptimisticRead();
+        int result = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Prüft, ob ein Student eingeschrieben ist.
+     *
+     * @param studentId Die ID des Studenten.
+     * @return {@code true}, wenn der Student eingeschrieben ist.
+     */
+    boolean contains(final String studentId) {
+        return read(() -> find(studentId) != NOT_FOUND);
+    }
+
+    /**
+     * Liefert den eingeschriebenen Studenten mit der gegebenen ID.
+     *
+     * @param studentId Die ID des Studenten.
+     * @return Der Student oder {@code null}, wenn er nicht eingeschrieben ist.
+     */
+    Student student(final String studentId) {
+        return read(() -> {
+            int row = find(studentId);
+            return row == NOT_FOUND ? null : students[row];
+        });
+    }
+
+    /**
+     * Liefert die Note eines eingeschriebenen Studenten.
+     *
+     * @param studentId Die ID des Studenten.
+     * @return Die Note oder {@code null}, wenn der Student noch keine Note hat.
+     * @throws IllegalArgumentException wenn der Student nicht eingeschrieben ist.
+     */
+    BigDecimal grade(final String studentId) {
+        return read(() -> {
+            int row = find(studentId);
+            if (row == NOT_FOUND) {
+                throw new IllegalArgumentException("Student not found.");
+            }
+            return gradeAt(row);
+        });
+    }
+
+    /**
+     * Liefert alle eingeschriebenen Studenten als Momentaufnahme.
+     *
+     * @return Eine neue Liste der Studenten.
+     */
+    List<Student> students() {
+        return read(() -> new ArrayList<>(Arrays.asList(students).subList(0, size)));
+    }
+
+    /**
+     * Übergibt jede Einschreibung an {@code visitor}. Währenddessen sind Änderungen blockiert.
+     *
+     * @param visitor Der Besucher; darf den Kurs nicht verändern.
+     */
+    void forEach(final EnrollmentVisitor visitor) {
+        while (true) {
+            ensureResident();
+            long stamp = lock.readLock();
+            try {
+                if (resident) {
+                    for (int row = 0; row < size; row++) {
+                        visitor.visit(students[row], grades[row], scales[row]);
+                    }
+                    return;
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Liefert eine nicht veränderbare Sicht als Map der Einschreibungen nach der ID des Studenten.
+     * Die {@link StudentsGradesInCourses}-Objekte werden erst beim Zugriff erzeugt; Iterationen laufen über eine
+     * Momentaufnahme.
+     *
+     * @param course Der Kurs, zu dem die Einschreibungen gehören.
+     * @return Die Sicht.
+     */
+    Map<String, StudentsGradesInCourses> asMap(final Course course) {
+        return new MapView(course);
+    }
+
+    /**
+     * Liefert die Zeile eines Studenten. Ohne Sperre nur vom Kurs unter seiner Sperre aufzurufen.
+     *
+     * @param studentId Die ID des Studenten.
+     * @return Die Zeile oder {@link #NOT_FOUND}.
+     */
+    int find(final String studentId) {
+        int[] table = index;
+        Student[] rows = students;
+        if (studentId == null || table.length == 0) {
+            return NOT_FOUND;
+        }
+        int mask = table.length - 1;
+        for (int i = slot(studentId, mask), entry = table[i]; entry != 0; i = (i + 1) & mask, entry = table[i]) {
+            if (studentId.equals(rows[entry - 1].getId())) {
+                return entry - 1;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Liefert den Studenten einer Zeile. Nur vom Kurs unter seiner Sperre aufzurufen.
+     *
+     * @param row Die Zeile.
+     * @return Der Student.
+     */
+    Student studentAt(final int row) {
+        return students[row];
+    }
+
+    /**
+     * Liefert die Note einer Zeile. Ohne Sperre nur vom Kurs unter seiner Sperre aufzurufen.
+     *
+     * @param row Die Zeile.
+     * @return Die Note oder {@code null}.
+     */
+    BigDecimal gradeAt(final int row) {
+        int scale = scales[row];
+        return scale == EnrollmentVisitor.NO_GRADE ? null : FixedPointGrade.toBigDecimal(grades[row], scale);
+    }
+
+    /**
+     * Reserviert Platz für weitere Einschreibungen. Nur vom Kurs unter seiner Sperre aufzurufen.
+     *
+     * @param capacity Die Anzahl der Einschreibungen, die ohne Vergrößerung Platz finden sollen.
+     */
+    void ensureCapacity(final int capacity) {
+        if (capacity > students.length) {
+            long stamp = lock.writeLock();
+            try {
+                grow(capacity);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Schreibt einen Studenten ohne Note ein. Nur vom Kurs unter seiner Sperre aufzurufen,
+     * und nur für Studenten, die noch nicht eingeschrieben sind.
+     *
+     * @param student Der Student; mit ID.
+     */
+    void add(final Student student) {
+        long stamp = lock.writeLock();
+        try {
+            append(student, 0, EnrollmentVisitor.NO_GRADE);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void append(final Student student, final int hundredths, final int scale) {
+        if (size == students.length) {
+            grow(Math.max(INITIAL_CAPACITY, size * 2));
+        }
+        int row = size;
+        students[row] = student;
+        grades[row] = hundredths;
+        scales[row] = (byte) scale;
+        insert(index, student.getId(), row);
+        size = row + 1;
+    }
+
+    /**
+     * Setzt die Note einer Zeile. Nur vom Kurs unter seiner Sperre aufzurufen.
+     *
+     * @param row   Die Zeile.
+     * @param grade Die Note, mit höchstens zwei Nachkommastellen.
+     */
+    void setGradeAt(final int row, final BigDecimal grade) {
+        int hundredths = FixedPointGrade.toHundredths(grade);
+        byte scale = (byte) FixedPointGrade.scaleOf(grade);
+        long stamp = lock.writeLock();
+        try {
+            grades[row] = hundredths;
+            scales[row] = scale;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Entfernt eine Zeile; die letzte Zeile rückt an ihre Stelle. Nur vom Kurs unter seiner Sperre aufzurufen.
+     *
+     * @param row Die Zeile.
+     */
+    void removeAt(final int row) {
+        long stamp = lock.writeLock();
+        try {
+            int mask = index.length - 1;
+            int gap = slotOf(row);
+            // Nachfolgende Einträge nachrücken lassen, damit keine Sondierungskette unterbrochen wird.
+            for (int j = (gap + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+                int home = slot(students[index[j] - 1].getId(), mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    index[gap] = index[j];
+                    gap = j;
+                }
+            }
+            index[gap] = 0;
+            int last = size - 1;
+            if (row != last) {
+                index[slotOf(last)] = row + 1;
+                students[row] = students[last];
+                grades[row] = grades[last];
+                scales[row] = scales[last];
+            }
+            students[last] = null;
+            size = last;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private int slotOf(final int row) {
+        int mask = index.length - 1;
+        int i = slot(students[row].getId(), mask);
+        while (index[i] != row + 1) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void grow(final int capacity) {
+        students = Arrays.copyOf(students, capacity);
+        grades = Arrays.copyOf(grades, capacity);
+        scales = Arrays.copyOf(scales, capacity);
+        int[] table = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+        for (int row = 0; row < size; row++) {
+            insert(table, students[row].getId(), row);
+        }
+        index = table;
+    }
+
+    private static void insert(final int[] table, final String studentId, final int row) {
+        int mask = table.length - 1;
+        int i = slot(studentId, mask);
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = row + 1;
+    }
+
+    private static int slot(final String studentId, final int mask) {
+        int hash = studentId.hashCode() * GOLDEN_RATIO;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private <R> R read(final Supplier<R> reader) {
+        while (true) {
+            ensureResident();
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    boolean loaded = resident;
+                    R result = reader.get();
+                    if (lock.validate(stamp) && loaded) {
+                        return result;
+                    }
+                } catch (RuntimeException e) {
+                    // Während des Lesens wurde geschrieben und ein inkonsistenter Zustand gesehen; mit Sperre wiederholen.
+                    if (lock.validate(stamp) && resident) {
+                        throw e;
+                    }
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                if (resident) {
+                    return reader.get();
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            // Zwischen Laden und Lesen wieder freigegeben; erneut laden.
+        }
+    }
+
+    private void ensureResident() {
+        EnrollmentSource archived = source;
+        if (archived == null) {
+            return;
+        }
+        if (!referenced) {
+            referenced = true;
+        }
+        if (resident) {
+            return;
+        }
+        long bytes;
+        long stamp = lock.writeLock();
+        try {
+            if (resident) {
+                return;
+            }
+            grow(Math.max(INITIAL_CAPACITY, archived.size()));
+            archived.load(this::append);
+            resident = true;
+            bytes = footprint();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        archived.loaded(owner, bytes);
+    }
+
+    private long footprint() {
+        return 4L * ARRAY_HEADER_BYTES + (long) students.length * Integer.BYTES + (long) grades.length * Integer.BYTES
+                + scales.length + (long) index.length * Integer.BYTES;
+    }
+
+    /**
+     * Sicht auf die Einschreibungen als Map, siehe {@link #asMap(Course)}.
+     */
+    private final class MapView extends AbstractMap<String, StudentsGradesInCourses> {
+        /**
+         * Der Kurs, zu dem die Einschreibungen gehören.
+         */
+        private final Course course;
+
+        private MapView(final Course course) {
+            this.course = course;
+        }
+
+        @Override
+        public int size() {
+            return EnrollmentColumns.this.size();
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return key instanceof String studentId && contains(studentId);
+        }
+
+        @Override
+        public StudentsGradesInCourses get(final Object key) {
+            if (!(key instanceof String studentId)) {
+                return null;
+            }
+            return read(() -> {
+                int row = find(studentId);
+                return row == NOT_FOUND ? null : enrollment(row);
+            });
+        }
+
+        @Override
+        public Set<Entry<String, StudentsGradesInCourses>> entrySet() {
+            return Collections.unmodifiableMap(read(() -> {
+                Map<String, StudentsGradesInCourses> snapshot = new HashMap<>((int) (size / 0.75f) + 1);
+                for (int row = 0; row < size; row++) {
+                    snapshot.put(students[row].getId(), enrollment(row));
+                }
+                return snapshot;
+            })).entrySet();
+        }
+
+        private StudentsGradesInCourses enrollment(final int row) {
+            return StudentsGradesInCourses.builder()
+                    .student(students[row])
+                    .course(course)
+                    .grade(gradeAt(row))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ckollmeier.de.Entities;
+
+/**
+ * Source of the enrollments of an archived course, see {@link Course#archived(String, String, Teacher, EnrollmentSource)}.
+ * The counts and the grade sum describe the enrollments without loading them; {@link #load(EnrollmentVisitor)}
+ * delivers the enrollments themselves whenever the course needs them.
+ */
+public interface EnrollmentSource {
+    /**
+     * Returns the number of enrollments.
+     *
+     * @return The number of enrollments.
+     */
+    int size();
+
+    /**
+     * Returns the sum of all grades in hundredths.
+     *
+     * @return The sum of the grades.
+     */
+    long gradeSum();
+
+    /**
+     * Returns the number of grades per scale.
+     *
+     * @return An array of length {@link FixedPointGrade#MAX_SCALE} + 1 with the number of grades of each scale.
+     */
+    int[] gradeCounts();
+
+    /**
+     * Passes every enrollment to the visitor, in the same way as {@link Course#forEachEnrollment(EnrollmentVisitor)}.
+     *
+     * @param visitor The visitor.
+     */
+    void load(EnrollmentVisitor visitor);
+
+    /**
+     * Called after the enrollments of a course have been loaded, outside of any lock of the course.
+     *
+     * @param course The course.
+     * @param bytes  The estimated number of bytes the loaded enrollments occupy.
+     */
+    void loaded(Course course, long bytes);
+}
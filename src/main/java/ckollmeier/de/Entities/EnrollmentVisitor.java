@@ -0,0 +1,22 @@
+package ckollmeier.de.Entities;
+
+/**
+ * Visitor for the enrollments of a course, see {@link Course#forEachEnrollment(EnrollmentVisitor)}.
+ * Grades are passed in their fixed-point representation (see {@link FixedPointGrade}), so visiting does not allocate.
+ */
+@FunctionalInterface
+public interface EnrollmentVisitor {
+    /**
+     * Scale passed for enrollments without a grade.
+     */
+    int NO_GRADE = -1;
+
+    /**
+     * Called for each enrollment.
+     *
+     * @param student    The enrolled student.
+     * @param hundredths The grade in hundredths, or {@code 0} if there is no grade.
+     * @param scale      The scale of the grade, or {@link #NO_GRADE} if there is no grade.
+     */
+    void visit(Student student, int hundredths, int scale);
+}
@@ -0,0 +1,96 @@
+package ckollmeier.de.Entities;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversion between grades as {@link BigDecimal} and their fixed-point representation in hundredths.
+ * Grades have at most two decimal places, so every grade is an exact multiple of 0.01, and their hundredths fit in
+ * an {@code int}.
+ */
+public final class FixedPointGrade {
+    /**
+     * Largest scale a grade may have.
+     */
+    public static final int MAX_SCALE = 2;
+    /**
+     * Powers of ten up to {@link #MAX_SCALE}.
+     */
+    private static final long[] POWERS_OF_TEN = {1, 10, 100};
+    /**
+     * Smallest grade whose hundredths fit in an {@code int}.
+     */
+    private static final BigDecimal MIN_GRADE = BigDecimal.valueOf(Integer.MIN_VALUE, MAX_SCALE);
+    /**
+     * Largest grade whose hundredths fit in an {@code int}.
+     */
+    private static final BigDecimal MAX_GRADE = BigDecimal.valueOf(Integer.MAX_VALUE, MAX_SCALE);
+
+    private FixedPointGrade() {
+    }
+
+    /**
+     * Checks that a grade can be represented in hundredths.
+     *
+     * @param grade The grade to check.
+     * @throws IllegalArgumentException if the grade has more than two decimal places or its hundredths do not fit
+     *                                  in an {@code int}.
+     */
+    public static void validate(final BigDecimal grade) {
+        if (grade.scale() > MAX_SCALE) {
+            throw new IllegalArgumentException("Grade must not have more than " + MAX_SCALE + " decimal places: " + grade);
+        }
+        if (grade.compareTo(MIN_GRADE) < 0 || grade.compareTo(MAX_GRADE) > 0) {
+            throw new IllegalArgumentException("Grade must be between " + MIN_GRADE + " and " + MAX_GRADE + ": " + grade);
+        }
+    }
+
+    /**
+     * Converts a grade to hundredths.
+     *
+     * @param grade The grade to convert.
+     * @return The grade in hundredths.
+     * @throws IllegalArgumentException if the grade is not valid, see {@link #validate(BigDecimal)}.
+     */
+    public static int toHundredths(final BigDecimal grade) {
+        validate(grade);
+        return grade.movePointRight(MAX_SCALE).intValueExact();
+    }
+
+    /**
+     * Returns the scale a grade contributes to a sum of grades, which is never negative.
+     *
+     * @param grade The grade.
+     * @return The scale of the grade, between 0 and {@link #MAX_SCALE}.
+     */
+    public static int scaleOf(final BigDecimal grade) {
+        return Math.max(0, grade.scale());
+    }
+
+    /**
+     * Converts a value in hundredths to a {@link BigDecimal} with the given scale.
+     * The value must be a multiple of {@code 10^(2 - scale)} hundredths.
+     *
+     * @param hundredths The value in hundredths.
+     * @param scale      The scale of the result, between 0 and {@link #MAX_SCALE}.
+     * @return The value as BigDecimal.
+     */
+    public static BigDecimal toBigDecimal(final long hundredths, final int scale) {
+        return BigDecimal.valueOf(hundredths / POWERS_OF_TEN[MAX_SCALE - scale], scale);
+    }
+
+    /**
+     * Divides a value in hundredths by a count and rounds the result to the given scale using half-up rounding.
+     * This yields exactly what {@link BigDecimal#divide(BigDecimal, java.math.RoundingMode)} with
+     * {@link java.math.RoundingMode#HALF_UP} returns for a dividend of that scale.
+     *
+     * @param hundredths The dividend in hundredths, a multiple of {@code 10^(2 - scale)}.
+     * @param scale      The scale of the dividend and of the result.
+     * @param count      The divisor, must be positive.
+     * @return The rounded quotient.
+     */
+    public static BigDecimal divideHalfUp(final long hundredths, final int scale, final long count) {
+        long unscaled = hundredths / POWERS_OF_TEN[MAX_SCALE - scale];
+        long magnitude = (2 * Math.abs(unscaled) + count) / (2 * count);
+        return BigDecimal.valueOf(unscaled < 0 ? -magnitude : magnitude, scale);
+    }
+}
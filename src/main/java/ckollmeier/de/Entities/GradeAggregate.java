@@ -0,0 +1,177 @@
+package ckollmeier.de.Entities;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.stream.Collector;
+
+/**
+ * Incrementally maintained sum and count of grades.
+ * The sum is kept in hundredths as a {@code long} (see {@link FixedPointGrade}), so updates do not allocate.
+ * The average is computed exactly like a full recomputation with BigDecimals would do it: the sum is brought to the
+ * largest scale of the grades currently contained and divided by the count using {@link java.math.RoundingMode#HALF_UP}.
+ * All methods are synchronized, so the aggregate can be read while it is updated.
+ */
+public final class GradeAggregate {
+    /**
+     * Running sum of all grades in hundredths.
+     */
+    private long sum;
+    /**
+     * Number of grades contained in the sum.
+     */
+    private int count;
+    /**
+     * Number of grades per scale, used to determine the scale a recomputed sum would have.
+     */
+    private final int[] scaleCounts = new int[FixedPointGrade.MAX_SCALE + 1];
+    /**
+     * Cached average, {@code null} if it has to be recomputed.
+     */
+    private Optional<BigDecimal> average;
+
+    /**
+     * Adds a grade to the aggregate. {@code null} grades are ignored.
+     *
+     * @param grade The grade to add.
+     * @throws IllegalArgumentException if the grade has more than two decimal places.
+     */
+    public synchronized void add(final BigDecimal grade) {
+        if (grade == null) {
+            return;
+        }
+        add(FixedPointGrade.toHundredths(grade), FixedPointGrade.scaleOf(grade));
+    }
+
+    /**
+     * Adds a grade given in hundredths to the aggregate.
+     *
+     * @param hundredths The grade in hundredths.
+     * @param scale      The scale of the grade, between 0 and {@link FixedPointGrade#MAX_SCALE}.
+     */
+    public synchronized void add(final long hundredths, final int scale) {
+        sum += hundredths;
+        count++;
+        scaleCounts[scale]++;
+        average = null;
+    }
+
+    /**
+     * Adds many grades given by their sum and their number per scale, e.g. from a precomputed summary.
+     *
+     * @param hundredthsSum  The sum of the grades in hundredths.
+     * @param countsPerScale The number of grades per scale, of length {@link FixedPointGrade#MAX_SCALE} + 1.
+     */
+    synchronized void addAll(final long hundredthsSum, final int[] countsPerScale) {
+        sum += hundredthsSum;
+        for (int scale = 0; scale < scaleCounts.length; scale++) {
+            count += countsPerScale[scale];
+            scaleCounts[scale] += countsPerScale[scale];
+        }
+        average = null;
+    }
+
+    /**
+     * Removes a grade that was previously added. {@code null} grades are ignored.
+     *
+     * @param grade The grade to remove.
+     */
+    public synchronized void remove(final BigDecimal grade) {
+        if (grade == null) {
+            return;
+        }
+        sum -= FixedPointGrade.toHundredths(grade);
+        count--;
+        scaleCounts[FixedPointGrade.scaleOf(grade)]--;
+        average = null;
+    }
+
+    /**
+     * Replaces a previously added grade by a new one.
+     *
+     * @param oldGrade The grade to remove, may be {@code null}.
+     * @param newGrade The grade to add, may be {@code null}.
+     */
+    public synchronized void replace(final BigDecimal oldGrade, final BigDecimal newGrade) {
+        remove(oldGrade);
+        add(newGrade);
+    }
+
+    /**
+     * Adds all grades of another aggregate to this one.
+     * Since the sum is an exact integer, merging partial aggregates yields the same result in any order.
+     *
+     * @param other The aggregate to merge into this one. It is not modified.
+     */
+    public void merge(final GradeAggregate other) {
+        long otherSum;
+        int otherCount;
+        int[] otherScaleCounts;
+        synchronized (other) {
+            otherSum = other.sum;
+            otherCount = other.count;
+            otherScaleCounts = other.scaleCounts.clone();
+        }
+        synchronized (this) {
+            sum += otherSum;
+            count += otherCount;
+            for (int scale = 0; scale < scaleCounts.length; scale++) {
+                scaleCounts[scale] += otherScaleCounts[scale];
+            }
+            average = null;
+        }
+    }
+
+    /**
+     * Returns a collector that aggregates grades, suitable for parallel streams.
+     *
+     * @return A collector which accumulates grades into partial aggregates and merges them.
+     */
+    public static Collector<BigDecimal, GradeAggregate, GradeAggregate> collector() {
+        return Collector.of(
+                GradeAggregate::new,
+                GradeAggregate::add,
+                (left, right) -> {
+                    left.merge(right);
+                    return left;
+                },
+                Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Returns the number of grades in the aggregate.
+     *
+     * @return The number of grades.
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Calculates the average of all grades.
+     *
+     * @return An Optional containing the average, or Optional.empty() if the aggregate is empty.
+     */
+    public synchronized Optional<BigDecimal> average() {
+        if (average == null) {
+            average = count == 0
+                    ? Optional.empty()
+                    : Optional.of(FixedPointGrade.divideHalfUp(sum, scale(), count));
+        }
+        return average;
+    }
+
+    /**
+     * Determines the scale a freshly computed BigDecimal sum of the current grades would have.
+     *
+     * @return The largest scale of the contained grades, or 0 if there are none.
+     */
+    private int scale() {
+        for (int scale = scaleCounts.length - 1; scale > 0; scale--) {
+            if (scaleCounts[scale] > 0) {
+                return scale;
+            }
+        }
+        return 0;
+    }
+}
@@ -1,17 +1,22 @@
 package ckollmeier.de.Entities;
 
 import jakarta.validation.constraints.NotBlank;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.ToString;
 import lombok.Value;
 import lombok.With;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Diese Klasse repräsentiert einen Studenten mit seinen Basisinformationen.
@@ -36,30 +41,61 @@ public class Student {
     /**
      * Courses of the student with their grades.
      */
-    private @ToString.Exclude @EqualsAndHashCode.Exclude Map<String, Course> courses = new HashMap<>();
+    private @ToString.Exclude @EqualsAndHashCode.Exclude Map<String, Course> courses = new ConcurrentHashMap<>();
+
+    /**
+     * Running sum and count of the student's grades, fed by {@link Course#setGrade}.
+     */
+    private @Getter(AccessLevel.NONE) @ToString.Exclude @EqualsAndHashCode.Exclude GradeAggregate gradeAggregate = new GradeAggregate();
+
+    /**
+     * Listeners which are notified when the average grade of the student changes.
+     */
+    private @Getter(AccessLevel.NONE) @ToString.Exclude @EqualsAndHashCode.Exclude Set<AverageGradeListener> averageGradeListeners = new CopyOnWriteArraySet<>();
+
+    /**
+     * Lock guarding the courses and grades of the student. It is always acquired after the lock of the course.
+     */
+    private @Getter(AccessLevel.PACKAGE) @ToString.Exclude @EqualsAndHashCode.Exclude ReentrantLock lock = new ReentrantLock();
 
     /**
      * Fügt dem Studenten einen Kurs hinzu.
-     * Diese Methode sollte nicht überschrieben werden, da sie die Konsistenz zwischen Studenten und Kursen gewährleisten soll.
+     * Die Einschreibung wird vom Kurs vorgenommen, der beide Seiten atomar aktualisiert.
      *
      * @param course Der hinzuzufügende Kurs.
      */
     public void addCourse(final Course course) {
-        this.courses.put(course.getId(), course);
         course.addStudent(this);
     }
 
     /**
      * Entfernt einen Kurs vom Studenten.
-     * Diese Methode sollte nicht überschrieben werden, da sie die Konsistenz zwischen Studenten und Kursen gewährleisten soll.
+     * Die Austragung wird vom Kurs vorgenommen, der beide Seiten atomar aktualisiert.
      *
      * @param course Der zu entfernende Kurs.
      */
     public void removeCourse(final Course course) {
-        this.courses.remove(course.getId());
         course.removeStudent(this);
     }
 
+    /**
+     * Links a course to the student. Must only be called by the course while holding both locks.
+     *
+     * @param course The course the student was enrolled in.
+     */
+    void linkCourse(final Course course) {
+        this.courses.put(course.getId(), course);
+    }
+
+    /**
+     * Unlinks a course from the student. Must only be called by the course while holding both locks.
+     *
+     * @param course The course the student was removed from.
+     */
+    void unlinkCourse(final Course course) {
+        this.courses.remove(course.getId());
+    }
+
     /**
      * Retrieves the grade of a specific course for the student.
      * If the course is not found, an empty Optional is returned.
@@ -75,27 +111,68 @@ public class Student {
     /**
      * Calculates and returns the average grade of all courses the student is enrolled in.
      * If there are no grades, an empty Optional is returned.
+     * The average is read from a running aggregate which is kept up to date by the courses of the student.
      *
      * @return An Optional containing the average grade as a BigDecimal, or an empty Optional if no grades are present.
      */
     public Optional<BigDecimal> getAverageGrade() {
-        if (this.courses.isEmpty()) {
-            return Optional.empty();
-        }
+        return gradeAggregate.average();
+    }
 
-        BigDecimal sum = BigDecimal.ZERO;
-        int count = 0;
+    /**
+     * Updates the grade aggregate after a grade of this student changed in one of the courses.
+     * Must only be called by the course while holding both locks.
+     * Without listeners the averages are not computed at all, e.g. while a snapshot is being loaded.
+     *
+     * @param oldGrade The previous grade, or {@code null} if there was none.
+     * @param newGrade The new grade, or {@code null} if the grade was removed.
+     */
+    void gradeChanged(final BigDecimal oldGrade, final BigDecimal newGrade) {
+        if (averageGradeListeners.isEmpty()) {
+            gradeAggregate.replace(oldGrade, newGrade);
+            return;
+        }
+        BigDecimal oldAverage = gradeAggregate.average().orElse(null);
+        gradeAggregate.replace(oldGrade, newGrade);
+        BigDecimal newAverage = gradeAggregate.average().orElse(null);
+        if (!Objects.equals(oldAverage, newAverage)) {
+            averageGradeListeners.forEach(listener -> listener.averageGradeChanged(this, oldAverage, newAverage));
+        }
+    }
 
-        for (Course course : courses.values()) {
-            Optional<BigDecimal> grade = course.getGradeForStudent(this.id);
-            if (grade.isPresent()) {
-                sum = sum.add(grade.get());
-                count++;
+    /**
+     * Registers a listener which is notified whenever the average grade of the student changes.
+     * If the student already has an average grade, the listener is immediately notified with a change from {@code null}
+     * to the current average, atomically with the registration.
+     *
+     * @param listener The listener to register.
+     */
+    public void addAverageGradeListener(final AverageGradeListener listener) {
+        lock.lock();
+        try {
+            if (averageGradeListeners.add(listener)) {
+                gradeAggregate.average().ifPresent(average -> listener.averageGradeChanged(this, null, average));
             }
+        } finally {
+            lock.unlock();
         }
+    }
 
-        return count > 0
-                ? Optional.of(sum.divide(BigDecimal.valueOf(count), RoundingMode.HALF_UP))
-                : Optional.empty();
+    /**
+     * Removes a previously registered average grade listener.
+     * If the student has an average grade, the listener is notified with a change from the current average to {@code null},
+     * atomically with the removal.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeAverageGradeListener(final AverageGradeListener listener) {
+        lock.lock();
+        try {
+            if (averageGradeListeners.remove(listener)) {
+                gradeAggregate.average().ifPresent(average -> listener.averageGradeChanged(this, average, null));
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 }
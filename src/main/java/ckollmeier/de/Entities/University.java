@@ -1,10 +1,19 @@
 package ckollmeier.de.Entities;
 
+import ckollmeier.de.Util.PersistentHashMap;
 import lombok.Builder;
 import lombok.With;
 
 import java.util.Map;
 
+/**
+ * Diese Klasse repräsentiert eine Universität mit ihren Kursen.
+ * Die Kurse liegen in einer {@link PersistentHashMap}: {@link #withCourse} und {@link #withoutCourse} kosten
+ * O(log n) und teilen alle übrigen Einträge mit der bisherigen Universität, die unverändert bleibt.
+ * @param id      Eindeutige Kennung der Universität.
+ * @param name    Name der Universität.
+ * @param courses Die Kurse nach ihrer ID; wird als unveränderliche Map übernommen.
+ */
 @Builder
 @With
 public record University(
@@ -12,4 +21,31 @@ public record University(
         String name,
         Map<String, Course> courses
 ) {
+    /**
+     * Übernimmt die Kurse in eine {@link PersistentHashMap}, falls sie nicht bereits eine ist.
+     */
+    public University {
+        courses = courses == null ? PersistentHashMap.empty() : PersistentHashMap.copyOf(courses);
+    }
+
+    /**
+     * Liefert eine Universität, in der der Kurs unter seiner ID hinzugefügt oder ersetzt ist.
+     *
+     * @param course Der Kurs.
+     * @return Die neue Universität.
+     */
+    public University withCourse(final Course course) {
+        return withCourses(PersistentHashMap.copyOf(courses).with(course.getId(), course));
+    }
+
+    /**
+     * Liefert eine Universität ohne den Kurs mit der gegebenen ID.
+     *
+     * @param courseId Die ID des Kurses.
+     * @return Die neue Universität, oder diese, wenn es den Kurs nicht gibt.
+     */
+    public University withoutCourse(final String courseId) {
+        PersistentHashMap<String, Course> remaining = PersistentHashMap.copyOf(courses).without(courseId);
+        return remaining == courses ? this : withCourses(remaining);
+    }
 }
@@ -0,0 +1,243 @@
+package ckollmeier.de;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Liest Noten im Format {@code kursId,studentId,note} zeilenweise aus einem {@link Reader}.
+ * Die Zeilen werden direkt im Zeichenpuffer zerlegt: Die Note wird ohne Zwischen-String geparst
+ * und die Kurs-ID der vorherigen Zeile wird wiederverwendet, solange sie sich nicht ändert.
+ * Leere Zeilen werden übersprungen. Eine ungültige Zeile führt zu einer {@link IllegalArgumentException}; sie gilt
+ * danach als gelesen, sodass das Lesen mit der nächsten Zeile fortgesetzt werden kann.
+ */
+public final class GradeCsvReader implements Iterator<GradeRecord>, Closeable {
+    /**
+     * Trennzeichen zwischen den Spalten.
+     */
+    private static final char SEPARATOR = ',';
+    /**
+     * Größe des Lesepuffers.
+     */
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * Größte Anzahl an Ziffern, die ohne Überlauf in einem long geparst werden.
+     */
+    private static final int MAX_FAST_DIGITS = 18;
+
+    /**
+     * Die Quelle der Noten.
+     */
+    private final Reader reader;
+    /**
+     * Puffer für die aus der Quelle gelesenen Zeichen.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+    /**
+     * Position des nächsten ungelesenen Zeichens im Puffer.
+     */
+    private int position;
+    /**
+     * Anzahl der gültigen Zeichen im Puffer.
+     */
+    private int limit;
+    /**
+     * Die aktuelle Zeile.
+     */
+    private char[] line = new char[128];
+    /**
+     * Länge der aktuellen Zeile.
+     */
+    private int lineLength;
+    /**
+     * Nummer der aktuellen Zeile, beginnend bei 1.
+     */
+    private int lineNumber;
+    /**
+     * Die Kurs-ID der zuletzt gelesenen Zeile.
+     */
+    private String lastCourseId;
+    /**
+     * Der bereits gelesene nächste Datensatz oder {@code null}.
+     */
+    private GradeRecord next;
+    /**
+     * Gibt an, ob das Ende der Quelle erreicht wurde.
+     */
+    private boolean exhausted;
+
+    /**
+     * Erzeugt einen neuen Leser für die gegebene Quelle.
+     *
+     * @param reader Die Quelle der Noten.
+     */
+    public GradeCsvReader(final Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !exhausted) {
+            next = readRecord();
+        }
+        return next != null;
+    }
+
+    @Override
+    public GradeRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        GradeRecord result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private GradeRecord readRecord() {
+        while (readLine()) {
+            int end = lineLength;
+            while (end > 0 && Character.isWhitespace(line[end - 1])) {
+                end--;
+            }
+            if (end == 0) {
+                continue;
+            }
+            int firstSeparator = indexOf(SEPARATOR, 0, end);
+            int secondSeparator = firstSeparator < 0 ? -1 : indexOf(SEPARATOR, firstSeparator + 1, end);
+            if (secondSeparator < 0) {
+                throw new IllegalArgumentException("Invalid grade record in line " + lineNumber);
+            }
+            return new GradeRecord(
+                    courseId(0, firstSeparator),
+                    field(firstSeparator + 1, secondSeparator),
+                    grade(secondSeparator + 1, end));
+        }
+        exhausted = true;
+        return null;
+    }
+
+    private boolean readLine() {
+        lineLength = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                return lineLength > 0;
+            }
+            char c = buffer[position++];
+            if (c == '\n') {
+                lineNumber++;
+                return true;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLength++] = c;
+        }
+    }
+
+    private boolean fill() {
+        try {
+            int read = reader.read(buffer);
+            if (read <= 0) {
+                if (lineLength > 0) {
+                    lineNumber++;
+                }
+                return false;
+            }
+            position = 0;
+            limit = read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int indexOf(final char c, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (line[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String courseId(final int from, final int to) {
+        int start = trimStart(from, to);
+        int end = trimEnd(start, to);
+        if (lastCourseId != null && lastCourseId.length() == end - start) {
+            boolean same = true;
+            for (int i = start; i < end && same; i++) {
+                same = lastCourseId.charAt(i - start) == line[i];
+            }
+            if (same) {
+                return lastCourseId;
+            }
+        }
+        lastCourseId = new String(line, start, end - start);
+        return lastCourseId;
+    }
+
+    private String field(final int from, final int to) {
+        int start = trimStart(from, to);
+        return new String(line, start, trimEnd(start, to) - start);
+    }
+
+    private BigDecimal grade(final int from, final int to) {
+        int start = trimStart(from, to);
+        int end = trimEnd(start, to);
+        long unscaled = 0;
+        int scale = -1;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = line[i];
+            if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if (c >= '0' && c <= '9' && digits < MAX_FAST_DIGITS) {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else {
+                return parseSlow(start, end);
+            }
+        }
+        if (digits == 0) {
+            throw new IllegalArgumentException("Invalid grade in line " + lineNumber);
+        }
+        return BigDecimal.valueOf(unscaled, Math.max(scale, 0));
+    }
+
+    private BigDecimal parseSlow(final int start, final int end) {
+        try {
+            return new BigDecimal(line, start, end - start);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid grade in line " + lineNumber, e);
+        }
+    }
+
+    private int trimStart(final int from, final int to) {
+        int start = from;
+        while (start < to && Character.isWhitespace(line[start])) {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(final int from, final int to) {
+        int end = to;
+        while (end > from && Character.isWhitespace(line[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,20 @@
+package ckollmeier.de;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Ergebnis eines Notenimports.
+ * @param imported Die Anzahl der übernommenen Noten.
+ * @param rejected Die Noten, die ungültig sind oder deren Kurs oder Student nicht gefunden wurde oder deren Kurs
+ *                 archiviert ist.
+ * @param malformed Die Fehlermeldungen der Zeilen, die nicht gelesen werden konnten.
+ */
+@Builder
+public record GradeImportResult(
+        int imported,
+        List<GradeRecord> rejected,
+        List<String> malformed
+) {
+}
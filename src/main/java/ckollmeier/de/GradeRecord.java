@@ -0,0 +1,19 @@
+package ckollmeier.de;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+/**
+ * Eine einzelne Note aus einem Notenimport.
+ * @param courseId Die ID des Kurses.
+ * @param studentId Die ID des Studenten.
+ * @param grade Die Note des Studenten in diesem Kurs.
+ */
+@Builder
+public record GradeRecord(
+        String courseId,
+        String studentId,
+        BigDecimal grade
+) {
+}
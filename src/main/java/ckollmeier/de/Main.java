@@ -3,16 +3,35 @@ package ckollmeier.de;
 import ckollmeier.de.Entities.Course;
 import ckollmeier.de.Entities.Student;
 import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Persistence.UniversityStore;
 import ckollmeier.de.Repositories.CourseRepository;
 import ckollmeier.de.Repositories.StudentRepository;
 import ckollmeier.de.Repositories.TeacherRepository;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 
 public class Main {
 
-    public static void main(final String[] args) {
-        UniversityService universityService = createSampleUniversityService();
+    public static void main(final String[] args) throws IOException {
+        TeacherRepository teacherRepository = new TeacherRepository();
+        CourseRepository courseRepository = new CourseRepository();
+        StudentRepository studentRepository = new StudentRepository();
+        UniversityService universityService = new UniversityService(
+                teacherRepository,
+                courseRepository,
+                studentRepository
+        );
+        UniversityStore store = args.length > 0
+                ? UniversityStore.open(Path.of(args[0]), teacherRepository, courseRepository, studentRepository)
+                : null;
+        if (studentRepository.count() == 0) {
+            createSampleData(universityService);
+        }
+        if (store != null) {
+            store.close();
+        }
 
         universityService.printDetails();
 
@@ -31,12 +50,7 @@ public class Main {
                 );
     }
 
-    private static UniversityService createSampleUniversityService() {
-        UniversityService universityService = new UniversityService(
-                new TeacherRepository(),
-                new CourseRepository(),
-                new StudentRepository()
-        );
+    private static void createSampleData(final UniversityService universityService) {
         // Create Teacher
         Teacher teacher1 = new Teacher("1", "Dewey Finn", "Unknown Address");
         universityService.createTeacher(teacher1);
@@ -174,7 +188,5 @@ public class Main {
         course3.setGrade(student8.getId(), "4");
         course3.setGrade(student9.getId(), "3");
         course3.setGrade(student10.getId(), "1.0");
-
-        return universityService;
     }
 }
\ No newline at end of file
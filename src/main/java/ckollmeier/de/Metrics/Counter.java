@@ -0,0 +1,57 @@
+package ckollmeier.de.Metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zähler, der nur hochgezählt wird, z. B. für Aufrufe einer Methode.
+ * Ein abgeschalteter Zähler ignoriert alle Aufrufe.
+ */
+public final class Counter implements Meter {
+    /**
+     * Der Name des Zählers.
+     */
+    private final String name;
+    /**
+     * Der Zählerstand oder {@code null}, wenn der Zähler abgeschaltet ist.
+     */
+    private final LongAdder count;
+
+    Counter(final String name, final boolean enabled) {
+        this.name = name;
+        this.count = enabled ? new LongAdder() : null;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Erhöht den Zähler um eins.
+     */
+    public void increment() {
+        if (count != null) {
+            count.increment();
+        }
+    }
+
+    /**
+     * Erhöht den Zähler.
+     *
+     * @param amount Der Betrag, um den erhöht wird.
+     */
+    public void add(final long amount) {
+        if (count != null) {
+            count.add(amount);
+        }
+    }
+
+    /**
+     * Liefert den Zählerstand.
+     *
+     * @return Der Zählerstand, {@code 0} bei einem abgeschalteten Zähler.
+     */
+    public long count() {
+        return count != null ? count.sum() : 0;
+    }
+}
@@ -0,0 +1,36 @@
+package ckollmeier.de.Metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Messwert, der erst beim Auslesen bestimmt wird, z. B. die Größe eines Repositories.
+ */
+public final class Gauge implements Meter {
+    /**
+     * Der Name des Messwerts.
+     */
+    private final String name;
+    /**
+     * Bestimmt den aktuellen Wert.
+     */
+    private final LongSupplier value;
+
+    Gauge(final String name, final LongSupplier value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Bestimmt den aktuellen Wert.
+     *
+     * @return Der aktuelle Wert.
+     */
+    public long value() {
+        return value.getAsLong();
+    }
+}
@@ -0,0 +1,178 @@
+package ckollmeier.de.Metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramm für Laufzeiten in Nanosekunden mit logarithmisch-linearen Buckets nach dem Vorbild von HdrHistogram.
+ * Jede Zweierpotenz ist in {@value #SUB_BUCKETS} gleich breite Buckets geteilt, der relative Fehler eines Perzentils
+ * liegt damit unter einem Prozent. Werte unter {@value #SUB_BUCKETS} ns werden exakt gezählt.
+ * Ein abgeschaltetes Histogramm misst nicht und ignoriert alle Aufrufe.
+ *
+ * <pre>
+ * long start = histogram.start();
+ * ...
+ * histogram.stop(start);
+ * </pre>
+ */
+public final class LatencyHistogram implements Meter {
+    /**
+     * Anzahl der Bits, die innerhalb einer Zweierpotenz unterschieden werden.
+     */
+    private static final int SUB_BUCKET_BITS = 7;
+    /**
+     * Anzahl der Buckets je Zweierpotenz.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Anzahl aller Buckets, ausreichend für jeden nicht negativen long.
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    /**
+     * Faktor zur Umrechnung von Prozent.
+     */
+    private static final double PERCENT = 100.0;
+
+    /**
+     * Der Name des Histogramms.
+     */
+    private final String name;
+    /**
+     * Die Anzahl der Werte je Bucket oder {@code null}, wenn das Histogramm abgeschaltet ist.
+     */
+    private final AtomicLongArray buckets;
+    /**
+     * Die Anzahl aller Werte.
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * Die Summe aller Werte.
+     */
+    private final LongAdder sum = new LongAdder();
+    /**
+     * Der größte Wert.
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram(final String name, final boolean enabled) {
+        this.name = name;
+        this.buckets = enabled ? new AtomicLongArray(BUCKETS) : null;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Beginnt eine Messung.
+     *
+     * @return Der Startzeitpunkt, der an {@link #stop(long)} übergeben wird.
+     */
+    public long start() {
+        return buckets != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Beendet eine Messung und zählt die vergangene Zeit.
+     *
+     * @param start Der Rückgabewert von {@link #start()}.
+     */
+    public void stop(final long start) {
+        if (buckets != null) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Zählt einen Wert. Negative Werte werden als {@code 0} gezählt.
+     *
+     * @param nanos Der Wert in Nanosekunden.
+     */
+    public void record(final long nanos) {
+        if (buckets == null) {
+            return;
+        }
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Liefert die Anzahl der gezählten Werte.
+     *
+     * @return Die Anzahl.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Liefert den Mittelwert der gezählten Werte.
+     *
+     * @return Der Mittelwert in Nanosekunden, {@code 0} ohne Werte.
+     */
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Liefert den größten gezählten Wert.
+     *
+     * @return Der größte Wert in Nanosekunden, {@code 0} ohne Werte.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Liefert ein Perzentil der gezählten Werte.
+     * Das Ergebnis ist die Obergrenze des Buckets, in den das Perzentil fällt, höchstens aber der größte Wert.
+     *
+     * @param percentile Das Perzentil zwischen 0 und 100, z. B. {@code 99.9}.
+     * @return Das Perzentil in Nanosekunden, {@code 0} ohne Werte.
+     */
+    public long percentile(final double percentile) {
+        if (buckets == null) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += buckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, PERCENT) / PERCENT * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestValueOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
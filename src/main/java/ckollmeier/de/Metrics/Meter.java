@@ -0,0 +1,13 @@
+package ckollmeier.de.Metrics;
+
+/**
+ * Gemeinsame Schnittstelle aller Messwerte einer {@link MeterRegistry}.
+ */
+public sealed interface Meter permits Counter, Gauge, LatencyHistogram {
+    /**
+     * Liefert den Namen des Messwerts, z. B. {@code repository.students.findById}.
+     *
+     * @return Der Name.
+     */
+    String name();
+}
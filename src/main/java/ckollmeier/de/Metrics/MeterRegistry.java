@@ -0,0 +1,109 @@
+package ckollmeier.de.Metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sammlung der Messwerte einer Anwendung, ohne Abhängigkeit zu einem externen Monitoring-System.
+ * Messwerte werden einmal beim Aufbau der instrumentierten Objekte angelegt und dann direkt benutzt.
+ *
+ * <p>Die Registry {@link #DISABLED} liefert abgeschaltete Zähler und Histogramme, deren Methoden sofort zurückkehren,
+ * und merkt sich nichts. Sie ist die Voreinstellung aller Repositories und Services.</p>
+ */
+public final class MeterRegistry {
+    /**
+     * Abgeschaltete Registry.
+     */
+    public static final MeterRegistry DISABLED = new MeterRegistry(false);
+
+    /**
+     * Gibt an, ob gemessen wird.
+     */
+    private final boolean enabled;
+    /**
+     * Die angelegten Messwerte nach ihrem Namen.
+     */
+    private final Map<String, Meter> meters = new ConcurrentHashMap<>();
+
+    /**
+     * Erzeugt eine neue, eingeschaltete Registry.
+     */
+    public MeterRegistry() {
+        this(true);
+    }
+
+    private MeterRegistry(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Prüft, ob diese Registry misst.
+     *
+     * @return {@code true}, wenn gemessen wird.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Liefert den Zähler mit dem gegebenen Namen und legt ihn bei Bedarf an.
+     *
+     * @param name Der Name des Zählers.
+     * @return Der Zähler.
+     */
+    public Counter counter(final String name) {
+        if (!enabled) {
+            return new Counter(name, false);
+        }
+        return register(name, Counter.class, () -> new Counter(name, true));
+    }
+
+    /**
+     * Liefert das Laufzeit-Histogramm mit dem gegebenen Namen und legt es bei Bedarf an.
+     *
+     * @param name Der Name des Histogramms.
+     * @return Das Histogramm.
+     */
+    public LatencyHistogram histogram(final String name) {
+        if (!enabled) {
+            return new LatencyHistogram(name, false);
+        }
+        return register(name, LatencyHistogram.class, () -> new LatencyHistogram(name, true));
+    }
+
+    /**
+     * Legt einen Messwert an, der beim Auslesen bestimmt wird. Ein bestehender Messwert gleichen Namens wird ersetzt.
+     *
+     * @param name  Der Name des Messwerts.
+     * @param value Bestimmt den aktuellen Wert; wird nur beim Export aufgerufen.
+     */
+    public void gauge(final String name, final LongSupplier value) {
+        if (enabled) {
+            meters.put(name, new Gauge(name, value));
+        }
+    }
+
+    /**
+     * Liefert alle angelegten Messwerte, nach Namen sortiert.
+     *
+     * @return Die Messwerte.
+     */
+    public List<Meter> meters() {
+        List<Meter> result = new ArrayList<>(meters.values());
+        result.sort(Comparator.comparing(Meter::name));
+        return result;
+    }
+
+    private <T extends Meter> T register(final String name, final Class<T> type, final Supplier<T> factory) {
+        Meter meter = meters.computeIfAbsent(name, key -> factory.get());
+        if (!type.isInstance(meter)) {
+            throw new IllegalArgumentException("Meter " + name + " is already registered as " + meter.getClass().getSimpleName());
+        }
+        return type.cast(meter);
+    }
+}
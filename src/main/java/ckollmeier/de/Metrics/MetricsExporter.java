@@ -0,0 +1,103 @@
+package ckollmeier.de.Metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Schreibt die Messwerte einer {@link MeterRegistry} als Text oder als JSON.
+ * Laufzeiten werden in Nanosekunden ausgegeben.
+ *
+ * <p>Textformat, eine Zeile je Messwert:</p>
+ * <pre>
+ * counter repository.students.findById 42
+ * gauge repository.students.size 10
+ * histogram service.calculateAverageGrade count=3 mean=1520.3 p50=1407 p90=2047 p99=2047 p999=2047 max=2011
+ * </pre>
+ */
+public final class MetricsExporter {
+    /**
+     * Die exportierten Perzentile.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    /**
+     * Die Namen der exportierten Perzentile.
+     */
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private MetricsExporter() {
+    }
+
+    /**
+     * Schreibt alle Messwerte im Textformat.
+     *
+     * @param registry Die Registry.
+     * @param out      Das Ziel.
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    public static void writeText(final MeterRegistry registry, final Writer out) throws IOException {
+        for (Meter meter : registry.meters()) {
+            if (meter instanceof Counter counter) {
+                out.write("counter " + counter.name() + " " + counter.count());
+            } else if (meter instanceof Gauge gauge) {
+                out.write("gauge " + gauge.name() + " " + gauge.value());
+            } else if (meter instanceof LatencyHistogram histogram) {
+                out.write("histogram " + histogram.name() + " count=" + histogram.count()
+                        + " mean=" + String.format(Locale.ROOT, "%.1f", histogram.mean()));
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    out.write(" " + PERCENTILE_NAMES[i] + "=" + histogram.percentile(PERCENTILES[i]));
+                }
+                out.write(" max=" + histogram.max());
+            }
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * Schreibt alle Messwerte als ein JSON-Objekt mit den Feldern {@code counters}, {@code gauges} und
+     * {@code histograms}, jeweils nach Namen.
+     *
+     * @param registry Die Registry.
+     * @param out      Das Ziel.
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    public static void writeJson(final MeterRegistry registry, final Writer out) throws IOException {
+        StringBuilder counters = new StringBuilder();
+        StringBuilder gauges = new StringBuilder();
+        StringBuilder histograms = new StringBuilder();
+        for (Meter meter : registry.meters()) {
+            if (meter instanceof Counter counter) {
+                field(counters, counter.name()).append(counter.count());
+            } else if (meter instanceof Gauge gauge) {
+                field(gauges, gauge.name()).append(gauge.value());
+            } else if (meter instanceof LatencyHistogram histogram) {
+                field(histograms, histogram.name())
+                        .append("{\"count\":").append(histogram.count())
+                        .append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", histogram.mean()));
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    histograms.append(",\"").append(PERCENTILE_NAMES[i]).append("\":")
+                            .append(histogram.percentile(PERCENTILES[i]));
+                }
+                histograms.append(",\"max\":").append(histogram.max()).append('}');
+            }
+        }
+        out.write("{\"counters\":{" + counters + "},\"gauges\":{" + gauges + "},\"histograms\":{" + histograms + "}}\n");
+        out.flush();
+    }
+
+    private static StringBuilder field(final StringBuilder object, final String name) {
+        if (!object.isEmpty()) {
+            object.append(',');
+        }
+        object.append('"');
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                object.append('\\');
+            }
+            object.append(c);
+        }
+        return object.append("\":");
+    }
+}
@@ -0,0 +1,421 @@
+package ckollmeier.de.Persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only Log mit Prüfsummen, in das Änderungen als Datensätze geschrieben werden.
+ *
+ * <p>Aufbau der Datei: {@code int MAGIC, int VERSION}, danach je Datensatz {@code int Länge, int CRC32, Nutzdaten}.
+ * Beim Öffnen werden alle gültigen Datensätze wiedergegeben; ein unvollständiger oder beschädigter Rest am Ende,
+ * wie ihn ein Absturz während des Schreibens hinterlässt, wird abgeschnitten.</p>
+ *
+ * <p>{@link #append} schreibt nur in einen Puffer im Speicher. Dauerhaft gespeichert ist ein Datensatz erst nach
+ * {@link #commit()}. Rufen mehrere Threads gleichzeitig {@code commit()} auf, schreibt einer von ihnen alle bis dahin
+ * gesammelten Datensätze mit einem einzigen {@code fsync} (Group Commit), die anderen warten darauf.</p>
+ *
+ * <p>Schlägt das Schreiben fehl, wird die Datei auf den Stand davor gekürzt und die Datensätze bleiben für das nächste
+ * {@code commit()} im Puffer; ein halb geschriebener Datensatz bleibt also nicht mitten im Log stehen. Lässt sich die
+ * Datei nicht kürzen, lehnt das Log jedes weitere {@code commit()} ab.</p>
+ *
+ * <p>Gewartet wird an einer {@link ReentrantLock} statt an einem Monitor, damit wartende virtuelle Threads ihren
+ * Trägerthread freigeben.</p>
+ */
+final class ChangeLog implements Closeable {
+    /**
+     * Kennung am Anfang jeder Log-Datei.
+     */
+    private static final int MAGIC = 0x554E4957;
+    /**
+     * Version des Dateiformats.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Länge des Dateikopfs.
+     */
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    /**
+     * Länge des Kopfs eines Datensatzes.
+     */
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    /**
+     * Anfangsgröße des Puffers für noch nicht geschriebene Datensätze.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Die Log-Datei.
+     */
+    private final Path path;
+    /**
+     * Der Kanal der Log-Datei; wird beim Leeren ausgetauscht.
+     */
+    private FileChannel channel;
+    /**
+     * Datensätze, die noch nicht geschrieben wurden.
+     */
+    private byte[] pending = new byte[INITIAL_BUFFER_SIZE];
+    /**
+     * Anzahl der belegten Bytes in {@link #pending}.
+     */
+    private int pendingLength;
+    /**
+     * Zweiter Puffer, der während des Schreibens gegen {@link #pending} getauscht wird.
+     */
+    private byte[] writing = new byte[INITIAL_BUFFER_SIZE];
+    /**
+     * Anzahl der bisher angehängten Datensätze.
+     */
+    private long appended;
+    /**
+     * Anzahl der Datensätze, die dauerhaft gespeichert sind.
+     */
+    private long durable;
+    /**
+     * Gibt an, ob gerade ein Thread Datensätze schreibt.
+     */
+    private boolean flushing;
+    /**
+     * Gibt an, ob ein fehlgeschlagener Schreibvorgang nicht zurückgenommen werden konnte; das Log ist dann unbrauchbar.
+     */
+    private boolean failed;
+    /**
+     * Sperre für den Zustand des Logs.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Signalisiert das Ende eines Schreibvorgangs.
+     */
+    private final Condition flushed = lock.newCondition();
+
+    /**
+     * Erzeugt ein Log, das an das Ende eines bereits geöffneten und geprüften Kanals anhängt.
+     *
+     * @param path    Die Log-Datei.
+     * @param channel Der Kanal der Log-Datei, positioniert hinter dem letzten gültigen Datensatz.
+     */
+    ChangeLog(final Path path, final FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Öffnet das Log, gibt alle gültigen Datensätze an {@code replay} weiter und bereitet das Anhängen vor.
+     * Existiert die Datei nicht, wird sie angelegt.
+     *
+     * @param path   Die Log-Datei.
+     * @param replay Empfängt die Nutzdaten jedes gültigen Datensatzes in der geschriebenen Reihenfolge.
+     * @return Das geöffnete Log.
+     * @throws IOException wenn die Datei nicht gelesen werden kann oder kein gültiges Log ist.
+     */
+    static ChangeLog open(final Path path, final Consumer<ByteBuffer> replay) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long valid;
+            if (channel.size() < HEADER_SIZE) {
+                writeHeader(channel);
+                valid = HEADER_SIZE;
+            } else {
+                valid = replay(channel, path, replay);
+            }
+            if (valid < channel.size()) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+            channel.position(valid);
+            return new ChangeLog(path, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static long replay(final FileChannel channel, final Path path, final Consumer<ByteBuffer> replay)
+            throws IOException {
+        MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a change log: " + path);
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported change log version " + version + ": " + path);
+        }
+        CRC32 crc = new CRC32();
+        while (in.remaining() >= RECORD_HEADER_SIZE) {
+            int start = in.position();
+            int length = in.getInt();
+            int checksum = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                return start;
+            }
+            ByteBuffer payload = in.slice(in.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+            replay.accept(payload);
+            in.position(in.position() + length);
+        }
+        return in.position();
+    }
+
+    private static void writeHeader(final FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+        channel.truncate(0);
+        channel.write(header, 0);
+        channel.force(true);
+    }
+
+    /**
+     * Hängt einen Datensatz an. Er ist erst nach dem nächsten {@link #commit()} dauerhaft gespeichert.
+     *
+     * @param payload Die Nutzdaten des Datensatzes.
+     * @param length  Die Anzahl der gültigen Bytes in {@code payload}.
+     */
+    void append(final byte[] payload, final int length) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, length);
+        lock.lock();
+        try {
+            int required = pendingLength + RECORD_HEADER_SIZE + length;
+            if (required > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(required, pending.length * 2));
+            }
+            ByteBuffer.wrap(pending, pendingLength, RECORD_HEADER_SIZE).putInt(length).putInt((int) crc.getValue());
+            System.arraycopy(payload, 0, pending, pendingLength + RECORD_HEADER_SIZE, length);
+            pendingLength = required;
+            appended++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Speichert alle bis jetzt angehängten Datensätze dauerhaft und kehrt erst danach zurück.
+     *
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    void commit() throws IOException {
+        long target;
+        lock.lock();
+        try {
+            target = appended;
+        } finally {
+            lock.unlock();
+        }
+        while (true) {
+            byte[] batch;
+            int batchLength;
+            long batchEnd;
+            FileChannel out;
+            lock.lock();
+            try {
+                checkUsable();
+                if (durable >= target) {
+                    return;
+                }
+                if (flushing) {
+                    await();
+                    continue;
+                }
+                flushing = true;
+                batch = pending;
+                batchLength = pendingLength;
+                batchEnd = appended;
+                out = channel;
+                pending = writing;
+                pendingLength = 0;
+                writing = batch;
+            } finally {
+                lock.unlock();
+            }
+            boolean written = false;
+            try {
+                writeBatch(out, batch, batchLength);
+                written = true;
+            } finally {
+                lock.lock();
+                try {
+                    if (written) {
+                        durable = batchEnd;
+                    } else {
+                        restore(batch, batchLength);
+                    }
+                    flushing = false;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Schreibt alle angehängten Datensätze, führt {@code checkpoint} aus und entfernt danach alle Datensätze, die
+     * vor dem Aufruf angehängt wurden. Während {@code checkpoint} läuft, können weiterhin Datensätze angehängt
+     * werden; sie bleiben im Log. Das Log wird dazu neu geschrieben und atomar ersetzt, nach einem Absturz
+     * liegt also entweder das alte oder das geleerte Log vor.
+     *
+     * @param checkpoint Sichert den Zustand, den das Log bis hierhin beschreibt, z. B. als Snapshot.
+     * @throws IOException wenn nicht geschrieben werden kann oder {@code checkpoint} fehlschlägt.
+     */
+    void truncate(final Checkpoint checkpoint) throws IOException {
+        long mark;
+        lock.lock();
+        try {
+            while (flushing) {
+                await();
+            }
+            checkUsable();
+            writeBatch(channel, pending, pendingLength);
+            pendingLength = 0;
+            durable = appended;
+            mark = channel.position();
+        } finally {
+            lock.unlock();
+        }
+        checkpoint.run();
+        lock.lock();
+        try {
+            while (flushing) {
+                await();
+            }
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel target = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeHeader(target);
+                target.position(HEADER_SIZE);
+                long end = channel.position();
+                for (long position = mark; position < end;) {
+                    position += channel.transferTo(position, end - position, target);
+                }
+                target.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Speichert alle angehängten Datensätze dauerhaft und schließt die Datei.
+     *
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            lock.lock();
+            try {
+                channel.close();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Schreibt einen Block von Datensätzen dauerhaft. Schlägt das fehl, wird die Datei auf den Stand davor gekürzt,
+     * damit kein halber Datensatz vor später geschriebenen stehen bleibt.
+     *
+     * @param out    Der Kanal der Log-Datei.
+     * @param batch  Die Datensätze.
+     * @param length Die Anzahl der gültigen Bytes in {@code batch}.
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    private void writeBatch(final FileChannel out, final byte[] batch, final int length) throws IOException {
+        long start = out.position();
+        try {
+            write(out, batch, length);
+            out.force(false);
+        } catch (IOException | RuntimeException e) {
+            try {
+                out.truncate(start);
+                out.position(start);
+            } catch (IOException | RuntimeException rollback) {
+                e.addSuppressed(rollback);
+                lock.lock();
+                try {
+                    failed = true;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stellt einen nicht geschriebenen Block wieder vor die seitdem angehängten Datensätze.
+     * Nur unter {@link #lock} aufzurufen, mit dem Block, der beim Tauschen zu {@link #writing} wurde.
+     *
+     * @param batch       Der nicht geschriebene Block.
+     * @param batchLength Die Anzahl der gültigen Bytes in {@code batch}.
+     */
+    private void restore(final byte[] batch, final int batchLength) {
+        byte[] restored = batch;
+        int length = batchLength + pendingLength;
+        if (length > restored.length) {
+            restored = Arrays.copyOf(restored, Math.max(length, restored.length * 2));
+        }
+        System.arraycopy(pending, 0, restored, batchLength, pendingLength);
+        writing = pending;
+        pending = restored;
+        pendingLength = length;
+    }
+
+    private void checkUsable() throws IOException {
+        if (failed) {
+            throw new IOException("The change log could not be rolled back after a failed write: " + path);
+        }
+    }
+
+    private static void write(final FileChannel target, final byte[] batch, final int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(batch, 0, length);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private void await() throws InterruptedIOException {
+        try {
+            flushed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the change log");
+        }
+    }
+
+    /**
+     * Sicherung des Zustands, bevor das Log geleert wird.
+     */
+    @FunctionalInterface
+    interface Checkpoint {
+        /**
+         * Sichert den Zustand.
+         *
+         * @throws IOException wenn die Sicherung fehlschlägt.
+         */
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,80 @@
+package ckollmeier.de.Persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Gepufferte Ausgabe in einen {@link FileChannel}.
+ */
+final class ChannelOutput {
+    /**
+     * Größe des Schreibpuffers.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Der Zielkanal.
+     */
+    private final FileChannel channel;
+    /**
+     * Der Schreibpuffer.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    /**
+     * Anzahl der Bytes, die bereits in den Kanal geschrieben wurden.
+     */
+    private long written;
+
+    ChannelOutput(final FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Liefert die Position des nächsten Bytes, gezählt ab dem Anfang der Ausgabe.
+     *
+     * @return Die Anzahl der bisher ausgegebenen Bytes.
+     */
+    long position() {
+        return written + buffer.position();
+    }
+
+    void putInt(final int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void putLong(final long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    void putByte(final byte value) throws IOException {
+        ensure(1);
+        buffer.put(value);
+    }
+
+    void put(final byte[] value) throws IOException {
+        int offset = 0;
+        while (offset < value.length) {
+            ensure(1);
+            int length = Math.min(buffer.remaining(), value.length - offset);
+            buffer.put(value, offset, length);
+            offset += length;
+        }
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensure(final int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.EnrollmentSource;
+import ckollmeier.de.Entities.EnrollmentVisitor;
+import ckollmeier.de.Entities.FixedPointGrade;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.StudentRepository;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Archiv abgeschlossener Kurse, deren Einschreibungen erst bei Bedarf von der Platte geladen werden.
+ *
+ * <p>Beim Öffnen werden nur die Kopfdaten gelesen: ID, Name, Dozent, Anzahl der Einschreibungen sowie Summe und
+ * Anzahl der Noten. Daraus entstehen archivierte Kurse ({@link Course#archived}), die Anzahl der Studenten und
+ * Durchschnittsnote ohne Laden beantworten. Die Einschreibungen eines Kurses werden beim ersten Zugriff aus der
+ * speichereingeblendeten Datei gelesen. Überschreiten die geladenen Einschreibungen aller Kurse das Speicherbudget,
+ * werden die am längsten nicht benutzten wieder freigegeben (Clock-Verfahren).</p>
+ *
+ * <p>Aufbau der Datei (alle Zahlen big-endian):</p>
+ * <pre>
+ * int    MAGIC, int VERSION, long Position des Inhaltsverzeichnisses
+ * je Kurs ein Block mit je Einschreibung: int Studenten-Index, int Note in Hundertsteln, byte Skala
+ * Inhaltsverzeichnis:
+ * int    Anzahl Strings, je String: int Länge in Bytes, UTF-8-Bytes
+ * int    Anzahl Lehrer, je Lehrer: int id, int name, int address
+ * int    Anzahl Studenten, je Student: int id, int name, int address
+ * int    Anzahl Kurse, je Kurs: int id, int name, int Lehrer-Index, int Anzahl Einschreibungen,
+ *        long Notensumme in Hundertsteln, int Anzahl Noten je Skala (0 bis 2), long Position des Blocks
+ * </pre>
+ * Strings werden wie im {@link UniversitySnapshot} über eine Stringtabelle referenziert. Die Datei darf höchstens
+ * 2 GiB groß sein.
+ */
+public final class CourseArchive {
+    /**
+     * Kennung am Anfang jeder Archivdatei.
+     */
+    private static final int MAGIC = 0x554E4941;
+    /**
+     * Version des Dateiformats.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Position der Position des Inhaltsverzeichnisses in der Datei.
+     */
+    private static final int INDEX_POSITION_OFFSET = 2 * Integer.BYTES;
+    /**
+     * Länge des Dateikopfs.
+     */
+    private static final int HEADER_SIZE = INDEX_POSITION_OFFSET + Long.BYTES;
+    /**
+     * Länge eines Lehrers oder Studenten im Inhaltsverzeichnis.
+     */
+    private static final int PERSON_SIZE = 3 * Integer.BYTES;
+    /**
+     * Länge eines Kurses im Inhaltsverzeichnis.
+     */
+    private static final int COURSE_SIZE = (4 + FixedPointGrade.MAX_SCALE + 1) * Integer.BYTES + 2 * Long.BYTES;
+    /**
+     * Länge einer Einschreibung in einem Block.
+     */
+    private static final int ENROLLMENT_SIZE = 2 * Integer.BYTES + 1;
+    /**
+     * Referenz für {@code null}.
+     */
+    private static final int NULL_REFERENCE = StringTable.NULL_REFERENCE;
+
+    /**
+     * Der Inhalt der Datei.
+     */
+    private final MappedByteBuffer content;
+    /**
+     * Die Studenten, in denen eingeschriebene Studenten zuerst gesucht werden.
+     */
+    private final StudentRepository students;
+    /**
+     * Höchstens geladene Bytes an Einschreibungen.
+     */
+    private final long memoryBudget;
+    /**
+     * Die Strings der Datei.
+     */
+    private final String[] strings;
+    /**
+     * Je Student die Referenzen auf ID, Name und Adresse.
+     */
+    private final int[] studentStrings;
+    /**
+     * Die bereits aufgelösten Studenten nach ihrem Index.
+     * Kurse werden nebenläufig geladen; der erste aufgelöste Student eines Index wird von allen Kursen geteilt.
+     */
+    private final AtomicReferenceArray<Student> resolvedStudents;
+    /**
+     * Die archivierten Kurse in der Reihenfolge der Datei.
+     */
+    private final List<Course> courses;
+    /**
+     * Die Kurse mit geladenen Einschreibungen, in der Reihenfolge, in der das Clock-Verfahren sie prüft.
+     */
+    private final Deque<Course> residentCourses = new ArrayDeque<>();
+    /**
+     * Geschätzte Größe aller geladenen Einschreibungen in Bytes.
+     */
+    private long residentBytes;
+
+    private CourseArchive(final MappedByteBuffer content, final StudentRepository students, final long memoryBudget)
+            throws IOException {
+        this.content = content;
+        this.students = students;
+        this.memoryBudget = memoryBudget;
+        if (content.remaining() < HEADER_SIZE || content.getInt() != MAGIC) {
+            throw new IOException("Not a course archive");
+        }
+        int version = content.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported course archive version " + version);
+        }
+        long indexPosition = content.getLong();
+        if (indexPosition < HEADER_SIZE || indexPosition > content.limit()) {
+            throw new IOException("Corrupt course archive index position " + indexPosition);
+        }
+        ByteBuffer in = content.duplicate().position((int) indexPosition);
+
+        strings = StringTable.read(in);
+        Teacher[] teachers = new Teacher[StringTable.readCount(in, PERSON_SIZE)];
+        for (int i = 0; i < teachers.length; i++) {
+            teachers[i] = new Teacher(string(in.getInt()), string(in.getInt()), string(in.getInt()));
+        }
+        studentStrings = new int[3 * StringTable.readCount(in, PERSON_SIZE)];
+        for (int i = 0; i < studentStrings.length; i++) {
+            studentStrings[i] = in.getInt();
+        }
+        resolvedStudents = new AtomicReferenceArray<>(studentStrings.length / 3);
+
+        Course[] archived = new Course[StringTable.readCount(in, COURSE_SIZE)];
+        for (int c = 0; c < archived.length; c++) {
+            String id = string(in.getInt());
+            String name = string(in.getInt());
+            int teacher = in.getInt();
+            int size = in.getInt();
+            long gradeSum = in.getLong();
+            int[] gradeCounts = new int[FixedPointGrade.MAX_SCALE + 1];
+            for (int scale = 0; scale < gradeCounts.length; scale++) {
+                gradeCounts[scale] = in.getInt();
+            }
+            long block = in.getLong();
+            // Der Block wird erst beim Laden gelesen und muss deshalb schon hier vollständig vor dem Inhaltsverzeichnis
+            // liegen.
+            if (size < 0 || block < HEADER_SIZE || block > indexPosition - (long) size * ENROLLMENT_SIZE) {
+                throw new IOException("Corrupt enrollment block of archived course " + id);
+            }
+            archived[c] = Course.archived(id, name, teacher != NULL_REFERENCE ? teachers[teacher] : null,
+                    new Source((int) block, size, gradeSum, gradeCounts));
+        }
+        courses = List.of(archived);
+    }
+
+    /**
+     * Schreibt Kurse mit ihren Einschreibungen in eine Archivdatei.
+     * Die Datei wird zunächst neben dem Ziel angelegt und erst nach vollständigem Schreiben an ihren Platz verschoben.
+     *
+     * @param path    Die Zieldatei.
+     * @param courses Die zu archivierenden Kurse.
+     * @throws IOException wenn die Datei nicht geschrieben werden kann.
+     */
+    public static void write(final Path path, final Collection<Course> courses) throws IOException {
+        Map<Teacher, Integer> teacherIndex = new HashMap<>();
+        List<Teacher> teacherList = new ArrayList<>();
+        Map<String, Integer> studentIndex = new HashMap<>();
+        List<Student> studentList = new ArrayList<>();
+        StringTable strings = new StringTable();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelOutput out = new ChannelOutput(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(0);
+
+            List<Summary> summaries = new ArrayList<>(courses.size());
+            Summary summary = new Summary(studentIndex, studentList);
+            for (Course course : courses) {
+                Teacher teacher = course.getTeacher();
+                if (teacher != null && !teacherIndex.containsKey(teacher)) {
+                    teacherIndex.put(teacher, teacherList.size());
+                    teacherList.add(teacher);
+                }
+                strings.addAll(course.getId(), course.getName());
+                summary.clear();
+                course.forEachEnrollment(summary);
+                summaries.add(summary.writeTo(out));
+            }
+            teacherList.forEach(teacher -> strings.addAll(teacher.id(), teacher.name(), teacher.address()));
+            studentList.forEach(student -> strings.addAll(student.getId(), student.getName(), student.getAddress()));
+
+            long indexPosition = out.position();
+            out.putInt(strings.size());
+            for (byte[] value : strings.values()) {
+                out.putInt(value.length);
+                out.put(value);
+            }
+            out.putInt(teacherList.size());
+            for (Teacher teacher : teacherList) {
+                out.putInt(strings.indexOf(teacher.id()));
+                out.putInt(strings.indexOf(teacher.name()));
+                out.putInt(strings.indexOf(teacher.address()));
+            }
+            out.putInt(studentList.size());
+            for (Student student : studentList) {
+                out.putInt(strings.indexOf(student.getId()));
+                out.putInt(strings.indexOf(student.getName()));
+                out.putInt(strings.indexOf(student.getAddress()));
+            }
+            out.putInt(summaries.size());
+            int c = 0;
+            for (Course course : courses) {
+                Summary written = summaries.get(c++);
+                out.putInt(strings.indexOf(course.getId()));
+                out.putInt(strings.indexOf(course.getName()));
+                out.putInt(course.getTeacher() != null ? teacherIndex.get(course.getTeacher()) : NULL_REFERENCE);
+                out.putInt(written.size);
+                out.putLong(written.gradeSum);
+                for (int count : written.gradeCounts) {
+                    out.putInt(count);
+                }
+                out.putLong(written.block);
+            }
+            out.flush();
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, indexPosition), INDEX_POSITION_OFFSET);
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Öffnet eine Archivdatei und liest die Kopfdaten ihrer Kurse.
+     *
+     * @param path         Die Archivdatei.
+     * @param students     Die Studenten, die beim Laden anhand ihrer ID zugeordnet werden; nicht enthaltene
+     *                     Studenten werden aus dem Archiv erzeugt.
+     * @param memoryBudget Die geschätzte Anzahl Bytes, die geladene Einschreibungen höchstens belegen sollen.
+     * @return Das geöffnete Archiv.
+     * @throws IOException wenn die Datei nicht gelesen werden kann oder kein gültiges Archiv ist.
+     */
+    public static CourseArchive open(final Path path, final StudentRepository students, final long memoryBudget)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new CourseArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), students,
+                    memoryBudget);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Truncated or corrupt course archive: " + path, e);
+        }
+    }
+
+    /**
+     * Liefert die archivierten Kurse.
+     *
+     * @return Eine unveränderliche Liste der Kurse in der Reihenfolge der Datei.
+     */
+    public List<Course> getCourses() {
+        return courses;
+    }
+
+    /**
+     * Liefert die geschätzte Größe aller derzeit geladenen Einschreibungen.
+     *
+     * @return Die Größe in Bytes.
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Liefert die Anzahl der Kurse, deren Einschreibungen derzeit geladen sind.
+     *
+     * @return Die Anzahl der Kurse.
+     */
+    public synchronized int getResidentCourses() {
+        return residentCourses.size();
+    }
+
+    private String string(final int reference) {
+        return reference == NULL_REFERENCE ? null : strings[reference];
+    }
+
+    private Student student(final int index) {
+        Student student = resolvedStudents.get(index);
+        if (student == null) {
+            String id = string(studentStrings[3 * index]);
+            student = students.findById(id).orElseGet(() -> Student.builder()
+                    .id(id)
+                    .name(string(studentStrings[3 * index + 1]))
+                    .address(string(studentStrings[3 * index + 2]))
+                    .build());
+            if (!resolvedStudents.compareAndSet(index, null, student)) {
+                student = resolvedStudents.get(index);
+            }
+        }
+        return student;
+    }
+
+    private synchronized void loaded(final Course course, final long bytes) {
+        residentBytes += bytes;
+        // Der gerade geladene Kurs wird nicht geprüft, sonst käme sein Leser nie zum Zug.
+        // Jeder andere Kurs wird höchstens zweimal geprüft: beim ersten Mal verliert er seine zweite Chance.
+        for (int checks = 2 * residentCourses.size(); checks > 0 && residentBytes > memoryBudget; checks--) {
+            Course candidate = residentCourses.pollFirst();
+            long released = candidate.releaseEnrollments();
+            if (released > 0) {
+                residentBytes -= released;
+            } else if (candidate.isEnrollmentsLoaded()) {
+                residentCourses.addLast(candidate);
+            }
+        }
+        residentCourses.addLast(course);
+    }
+
+    /**
+     * Quelle der Einschreibungen eines archivierten Kurses.
+     */
+    private final class Source implements EnrollmentSource {
+        /**
+         * Position des Blocks mit den Einschreibungen.
+         */
+        private final int block;
+        /**
+         * Anzahl der Einschreibungen.
+         */
+        private final int size;
+        /**
+         * Summe der Noten in Hundertsteln.
+         */
+        private final long gradeSum;
+        /**
+         * Anzahl der Noten je Skala.
+         */
+        private final int[] gradeCounts;
+
+        Source(final int block, final int size, final long gradeSum, final int[] gradeCounts) {
+            this.block = block;
+            this.size = size;
+            this.gradeSum = gradeSum;
+            this.gradeCounts = gradeCounts;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long gradeSum() {
+            return gradeSum;
+        }
+
+        @Override
+        public int[] gradeCounts() {
+            return gradeCounts.clone();
+        }
+
+        @Override
+        public void load(final EnrollmentVisitor visitor) {
+            ByteBuffer in = content.duplicate().position(block);
+            for (int i = 0; i < size; i++) {
+                visitor.visit(student(in.getInt()), in.getInt(), in.get());
+            }
+        }
+
+        @Override
+        public void loaded(final Course course, final long bytes) {
+            CourseArchive.this.loaded(course, bytes);
+        }
+    }
+
+    /**
+     * Sammelt die Einschreibungen eines Kurses mit Notensumme und -anzahl und schreibt sie als Block.
+     */
+    private static final class Summary implements EnrollmentVisitor {
+        /**
+         * Index jedes Studenten nach seiner ID.
+         */
+        private final Map<String, Integer> studentIndex;
+        /**
+         * Die Studenten in der Reihenfolge ihres Index.
+         */
+        private final List<Student> studentList;
+        /**
+         * Die gesammelten Einschreibungen, je drei Werte: Studenten-Index, Note in Hundertsteln, Skala.
+         */
+        private int[] rows = new int[3 * 64];
+        /**
+         * Anzahl der gesammelten Einschreibungen.
+         */
+        private int size;
+        /**
+         * Summe der Noten in Hundertsteln.
+         */
+        private long gradeSum;
+        /**
+         * Anzahl der Noten je Skala.
+         */
+        private int[] gradeCounts = new int[FixedPointGrade.MAX_SCALE + 1];
+        /**
+         * Position des geschriebenen Blocks.
+         */
+        private long block;
+
+        Summary(final Map<String, Integer> studentIndex, final List<Student> studentList) {
+            this.studentIndex = studentIndex;
+            this.studentList = studentList;
+        }
+
+        private Summary(final Summary written) {
+            this.studentIndex = written.studentIndex;
+            this.studentList = written.studentList;
+            this.size = written.size;
+            this.gradeSum = written.gradeSum;
+            this.gradeCounts = written.gradeCounts.clone();
+            this.block = written.block;
+        }
+
+        @Override
+        public void visit(final Student student, final int hundredths, final int scale) {
+            Integer index = studentIndex.get(student.getId());
+            if (index == null) {
+                index = studentList.size();
+                studentIndex.put(student.getId(), index);
+                studentList.add(student);
+            }
+            if (3 * size == rows.length) {
+                rows = Arrays.copyOf(rows, rows.length * 2);
+            }
+            rows[3 * size] = index;
+            rows[3 * size + 1] = hundredths;
+            rows[3 * size + 2] = scale;
+            size++;
+            if (scale != NO_GRADE) {
+                gradeSum += hundredths;
+                gradeCounts[scale]++;
+            }
+        }
+
+        void clear() {
+            size = 0;
+            gradeSum = 0;
+            Arrays.fill(gradeCounts, 0);
+        }
+
+        Summary writeTo(final ChannelOutput out) throws IOException {
+            block = out.position();
+            for (int i = 0; i < 3 * size; i += 3) {
+                out.putInt(rows[i]);
+                out.putInt(rows[i + 1]);
+                out.putByte((byte) rows[i + 2]);
+            }
+            return new Summary(this);
+        }
+    }
+}
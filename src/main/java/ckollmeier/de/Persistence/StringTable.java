@@ -0,0 +1,84 @@
+package ckollmeier.de.Persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabelle der deduplizierten Strings einer Datei. Strings werden per Index referenziert,
+ * {@link #NULL_REFERENCE} steht für {@code null}.
+ */
+final class StringTable {
+    /**
+     * Referenz für {@code null}.
+     */
+    static final int NULL_REFERENCE = -1;
+
+    /**
+     * Index jedes Strings in der Tabelle.
+     */
+    private final Map<String, Integer> indices = new HashMap<>();
+    /**
+     * Die UTF-8-kodierten Strings in Tabellenreihenfolge.
+     */
+    private final List<byte[]> values = new ArrayList<>();
+
+    void addAll(final String... strings) {
+        for (String value : strings) {
+            if (value != null && !indices.containsKey(value)) {
+                indices.put(value, values.size());
+                values.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    int indexOf(final String value) {
+        return value == null ? NULL_REFERENCE : indices.get(value);
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    List<byte[]> values() {
+        return values;
+    }
+
+    /**
+     * Liest eine Stringtabelle, wie sie aus {@link #size()} und {@link #values()} geschrieben wurde.
+     *
+     * @param in Die Eingabe, positioniert auf die Anzahl der Strings.
+     * @return Die Strings nach ihrem Index.
+     * @throws IllegalArgumentException wenn eine Anzahl oder Länge nicht zur restlichen Eingabe passt.
+     */
+    static String[] read(final ByteBuffer in) {
+        String[] strings = new String[readCount(in, Integer.BYTES)];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] value = new byte[readCount(in, 1)];
+            in.get(value);
+            strings[i] = new String(value, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /**
+     * Liest eine Anzahl und prüft sie gegen die restliche Eingabe, bevor für sie Speicher angelegt wird.
+     *
+     * @param in         Die Eingabe, positioniert auf die Anzahl.
+     * @param recordSize Die Mindestgröße eines gezählten Eintrags in Bytes.
+     * @return Die Anzahl.
+     * @throws IllegalArgumentException wenn die Anzahl negativ ist oder so viele Einträge nicht mehr in die Eingabe
+     *                                  passen.
+     */
+    static int readCount(final ByteBuffer in, final int recordSize) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / recordSize) {
+            throw new IllegalArgumentException("Count " + count + " does not fit into the remaining " + in.remaining()
+                    + " bytes");
+        }
+        return count;
+    }
+}
@@ -0,0 +1,338 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.EnrollmentVisitor;
+import ckollmeier.de.Entities.FixedPointGrade;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Speichert den gesamten Datenbestand (Lehrer, Studenten, Kurse und Einschreibungen mit Noten) in einer kompakten
+ * Binärdatei und lädt ihn wieder.
+ *
+ * <p>Aufbau der Datei (alle Zahlen big-endian):</p>
+ * <pre>
+ * int    MAGIC, int VERSION
+ * int    Anzahl Strings, je String: int Länge in Bytes, UTF-8-Bytes
+ * int    Anzahl Lehrer, je Lehrer: byte im Repository, int id, int name, int address
+ * int    Anzahl Studenten, je Student: byte im Repository, int id, int name, int address
+ * int    Anzahl Kurse, je Kurs: int id, int name, int Lehrer-Index,
+ *        int Anzahl Einschreibungen, je Einschreibung: int Studenten-Index, int Note in Hundertsteln, byte Skala
+ * </pre>
+ * Strings werden über eine Stringtabelle dedupliziert und per Index referenziert, {@code -1} steht für {@code null}.
+ * Eine Skala von {@code -1} bedeutet, dass noch keine Note vergeben wurde.
+ * Geladen wird über eine speichereingeblendete Datei ({@link MappedByteBuffer}).
+ */
+public final class UniversitySnapshot {
+    /**
+     * Kennung am Anfang jeder Snapshot-Datei.
+     */
+    private static final int MAGIC = 0x554E4953;
+    /**
+     * Version des Dateiformats.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Anfangskapazität für die Einschreibungen eines Kurses beim Schreiben.
+     */
+    private static final int INITIAL_ENROLLMENTS = 1 << 10;
+    /**
+     * Referenz für {@code null}.
+     */
+    private static final int NULL_REFERENCE = StringTable.NULL_REFERENCE;
+    /**
+     * Skala einer noch nicht vergebenen Note.
+     */
+    private static final byte NO_GRADE = EnrollmentVisitor.NO_GRADE;
+    /**
+     * Länge eines Lehrers oder Studenten in der Datei.
+     */
+    private static final int PERSON_SIZE = 1 + 3 * Integer.BYTES;
+    /**
+     * Mindestlänge eines Kurses in der Datei.
+     */
+    private static final int COURSE_SIZE = 4 * Integer.BYTES;
+    /**
+     * Länge einer Einschreibung in der Datei.
+     */
+    private static final int ENROLLMENT_SIZE = 2 * Integer.BYTES + 1;
+
+    private UniversitySnapshot() {
+    }
+
+    /**
+     * Schreibt den Inhalt der Repositories in eine Snapshot-Datei.
+     * Die Datei wird zunächst neben dem Ziel angelegt und erst nach vollständigem Schreiben an ihren Platz verschoben.
+     *
+     * @param path     Die Zieldatei.
+     * @param teachers Das Repository der Lehrer.
+     * @param courses  Das Repository der Kurse.
+     * @param students Das Repository der Studenten.
+     * @throws IOException wenn die Datei nicht geschrieben werden kann.
+     */
+    public static void write(final Path path, final TeacherRepository teachers, final CourseRepository courses,
+                             final StudentRepository students) throws IOException {
+        List<Course> courseList = courses.findAll().stream().filter(course -> !course.isArchived()).toList();
+        Map<Teacher, Integer> teacherIndex = new HashMap<>();
+        List<Teacher> teacherList = new ArrayList<>();
+        List<Boolean> teacherStored = new ArrayList<>();
+        for (Teacher teacher : teachers) {
+            teacherIndex.put(teacher, teacherList.size());
+            teacherList.add(teacher);
+            teacherStored.add(true);
+        }
+        Map<Student, Integer> studentIndex = new IdentityHashMap<>();
+        List<Student> studentList = new ArrayList<>();
+        List<Boolean> studentStored = new ArrayList<>();
+        for (Student student : students) {
+            studentIndex.put(student, studentList.size());
+            studentList.add(student);
+            studentStored.add(true);
+        }
+        for (Course course : courseList) {
+            Teacher teacher = course.getTeacher();
+            if (teacher != null && !teacherIndex.containsKey(teacher)) {
+                teacherIndex.put(teacher, teacherList.size());
+                teacherList.add(teacher);
+                teacherStored.add(false);
+            }
+            course.forEachEnrollment((student, hundredths, scale) -> {
+                if (!studentIndex.containsKey(student)) {
+                    studentIndex.put(student, studentList.size());
+                    studentList.add(student);
+                    studentStored.add(false);
+                }
+            });
+        }
+
+        StringTable strings = new StringTable();
+        teacherList.forEach(teacher -> strings.addAll(teacher.id(), teacher.name(), teacher.address()));
+        studentList.forEach(student -> strings.addAll(student.getId(), student.getName(), student.getAddress()));
+        courseList.forEach(course -> strings.addAll(course.getId(), course.getName()));
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelOutput out = new ChannelOutput(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+
+            out.putInt(strings.size());
+            for (byte[] value : strings.values()) {
+                out.putInt(value.length);
+                out.put(value);
+            }
+
+            out.putInt(teacherList.size());
+            for (int i = 0; i < teacherList.size(); i++) {
+                Teacher teacher = teacherList.get(i);
+                out.putByte(teacherStored.get(i) ? (byte) 1 : (byte) 0);
+                out.putInt(strings.indexOf(teacher.id()));
+                out.putInt(strings.indexOf(teacher.name()));
+                out.putInt(strings.indexOf(teacher.address()));
+            }
+
+            out.putInt(studentList.size());
+            for (int i = 0; i < studentList.size(); i++) {
+                Student student = studentList.get(i);
+                out.putByte(studentStored.get(i) ? (byte) 1 : (byte) 0);
+                out.putInt(strings.indexOf(student.getId()));
+                out.putInt(strings.indexOf(student.getName()));
+                out.putInt(strings.indexOf(student.getAddress()));
+            }
+
+            out.putInt(courseList.size());
+            EnrollmentBuffer enrollments = new EnrollmentBuffer(studentIndex);
+            for (Course course : courseList) {
+                out.putInt(strings.indexOf(course.getId()));
+                out.putInt(strings.indexOf(course.getName()));
+                out.putInt(course.getTeacher() != null ? teacherIndex.get(course.getTeacher()) : NULL_REFERENCE);
+                enrollments.clear();
+                course.forEachEnrollment(enrollments);
+                enrollments.writeTo(out);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Lädt eine Snapshot-Datei in die gegebenen Repositories.
+     * Vorhandene Einträge mit gleicher ID werden überschrieben. Ist die Datei beschädigt, bleiben die Repositories
+     * unverändert.
+     *
+     * @param path     Die Snapshot-Datei.
+     * @param teachers Das Repository der Lehrer.
+     * @param courses  Das Repository der Kurse.
+     * @param students Das Repository der Studenten.
+     * @throws IOException wenn die Datei nicht gelesen werden kann oder kein gültiger Snapshot ist.
+     */
+    public static void read(final Path path, final TeacherRepository teachers, final CourseRepository courses,
+                            final StudentRepository students) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 2 * Integer.BYTES || in.getInt() != MAGIC) {
+                throw new IOException("Not a university snapshot: " + path);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            readContent(in, teachers, courses, students);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Truncated or corrupt snapshot: " + path, e);
+        }
+    }
+
+    private static void readContent(final ByteBuffer in, final TeacherRepository teachers, final CourseRepository courses,
+                                    final StudentRepository students) {
+        String[] strings = StringTable.read(in);
+
+        Teacher[] teacherList = new Teacher[StringTable.readCount(in, PERSON_SIZE)];
+        boolean[] teacherStored = new boolean[teacherList.length];
+        for (int i = 0; i < teacherList.length; i++) {
+            teacherStored[i] = in.get() != 0;
+            teacherList[i] = new Teacher(string(strings, in.getInt()), string(strings, in.getInt()), string(strings, in.getInt()));
+        }
+
+        Student[] studentList = new Student[StringTable.readCount(in, PERSON_SIZE)];
+        boolean[] studentStored = new boolean[studentList.length];
+        for (int i = 0; i < studentList.length; i++) {
+            studentStored[i] = in.get() != 0;
+            studentList[i] = Student.builder()
+                    .id(string(strings, in.getInt()))
+                    .name(string(strings, in.getInt()))
+                    .address(string(strings, in.getInt()))
+                    .build();
+        }
+
+        Course[] courseList = new Course[StringTable.readCount(in, COURSE_SIZE)];
+        for (int c = 0; c < courseList.length; c++) {
+            String id = string(strings, in.getInt());
+            String name = string(strings, in.getInt());
+            int teacher = in.getInt();
+            Course course = Course.builder()
+                    .id(id)
+                    .name(name)
+                    .teacher(teacher != NULL_REFERENCE ? teacherList[teacher] : null)
+                    .build();
+            int enrollments = StringTable.readCount(in, ENROLLMENT_SIZE);
+            List<Student> enrolled = new ArrayList<>(enrollments);
+            Map<String, BigDecimal> grades = new HashMap<>((int) (enrollments / 0.75f) + 1);
+            for (int e = 0; e < enrollments; e++) {
+                Student student = studentList[in.getInt()];
+                int hundredths = in.getInt();
+                byte scale = in.get();
+                enrolled.add(student);
+                if (scale != NO_GRADE) {
+                    grades.put(student.getId(), FixedPointGrade.toBigDecimal(hundredths, scale));
+                }
+            }
+            course.addStudents(enrolled);
+            course.setGrades(grades);
+            courseList[c] = course;
+        }
+
+        // Erst speichern, wenn die ganze Datei gelesen ist, damit eine beschädigte Datei nichts halb lädt.
+        for (int i = 0; i < teacherList.length; i++) {
+            if (teacherStored[i]) {
+                teachers.save(teacherList[i]);
+            }
+        }
+        for (Course course : courseList) {
+            courses.save(course);
+        }
+        // Erst nach den Noten speichern, damit der Notenindex jeden Studenten nur einmal einsortiert.
+        for (int i = 0; i < studentList.length; i++) {
+            if (studentStored[i]) {
+                students.save(studentList[i]);
+            }
+        }
+    }
+
+    private static String string(final String[] strings, final int reference) {
+        return reference == NULL_REFERENCE ? null : strings[reference];
+    }
+
+    /**
+     * Sammelt die Einschreibungen eines Kurses, damit ihre Anzahl vor ihnen geschrieben werden kann.
+     */
+    private static final class EnrollmentBuffer implements EnrollmentVisitor {
+        /**
+         * Index jedes Studenten im Snapshot.
+         */
+        private final Map<Student, Integer> studentIndex;
+        /**
+         * Studenten-Index je Einschreibung.
+         */
+        private int[] students = new int[INITIAL_ENROLLMENTS];
+        /**
+         * Note in Hundertsteln je Einschreibung.
+         */
+        private int[] grades = new int[INITIAL_ENROLLMENTS];
+        /**
+         * Skala der Note je Einschreibung.
+         */
+        private byte[] scales = new byte[INITIAL_ENROLLMENTS];
+        /**
+         * Anzahl der gesammelten Einschreibungen.
+         */
+        private int size;
+
+        EnrollmentBuffer(final Map<Student, Integer> studentIndex) {
+            this.studentIndex = studentIndex;
+        }
+
+        @Override
+        public void visit(final Student student, final int hundredths, final int scale) {
+            Integer index = studentIndex.get(student);
+            if (index == null) {
+                // Erst nach dem Sammeln der Studenten eingeschrieben; die Einschreibung steht noch im Änderungslog.
+                return;
+            }
+            if (size == students.length) {
+                students = Arrays.copyOf(students, size * 2);
+                grades = Arrays.copyOf(grades, size * 2);
+                scales = Arrays.copyOf(scales, size * 2);
+            }
+            students[size] = index;
+            grades[size] = hundredths;
+            scales[size] = (byte) scale;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void writeTo(final ChannelOutput out) throws IOException {
+            out.putInt(size);
+            for (int i = 0; i < size; i++) {
+                out.putInt(students[i]);
+                out.putInt(grades[i]);
+                out.putByte(scales[i]);
+            }
+        }
+    }
+}
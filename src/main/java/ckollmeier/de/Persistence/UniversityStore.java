@@ -0,0 +1,476 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.CourseChangeListener;
+import ckollmeier.de.Entities.FixedPointGrade;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.StudentsGradesInCourses;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.RepositoryListener;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hält die Repositories dauerhaft in einem Verzeichnis aus Snapshot ({@link UniversitySnapshot}) und
+ * Änderungslog ({@link ChangeLog}).
+ *
+ * <p>Beim Öffnen wird der letzte Snapshot geladen und das Log darauf wiedergegeben. Danach wird jedes
+ * {@code save} und {@code deleteById} der Repositories sowie jede Einschreibung, Abmeldung und Note eines
+ * gespeicherten Kurses in das Log geschrieben. Dauerhaft gespeichert sind die Änderungen nach {@link #commit()}.
+ * {@link #compact()} schreibt einen neuen Snapshot und leert das Log.</p>
+ *
+ * <p>Alle Datensätze beschreiben den Zustand nach der Änderung, nicht die Differenz. Wird ein Log auf einen Stand
+ * wiedergegeben, der die Änderungen schon enthält (Absturz zwischen Snapshot und Leeren des Logs), ergibt sich
+ * daher derselbe Zustand. Schon vorhandene Kurse und Studenten werden dabei nicht einfach ersetzt, damit sie ihre
+ * Verknüpfungen untereinander behalten.</p>
+ *
+ * <p>Archivierte Kurse ({@link Course#isArchived()}) werden weder aufgezeichnet noch in den Snapshot geschrieben;
+ * sie sind in ihrem {@link CourseArchive} gespeichert.</p>
+ */
+public final class UniversityStore implements Closeable {
+    /**
+     * Dateiname des Snapshots im Verzeichnis.
+     */
+    static final String SNAPSHOT_FILE = "university.snapshot";
+    /**
+     * Dateiname des Änderungslogs im Verzeichnis.
+     */
+    static final String LOG_FILE = "changes.log";
+
+    /**
+     * Datensatz: Lehrer gespeichert.
+     */
+    private static final byte TEACHER_SAVED = 1;
+    /**
+     * Datensatz: Lehrer gelöscht.
+     */
+    private static final byte TEACHER_DELETED = 2;
+    /**
+     * Datensatz: Student gespeichert.
+     */
+    private static final byte STUDENT_SAVED = 3;
+    /**
+     * Datensatz: Student gelöscht.
+     */
+    private static final byte STUDENT_DELETED = 4;
+    /**
+     * Datensatz: Kurs gespeichert.
+     */
+    private static final byte COURSE_SAVED = 5;
+    /**
+     * Datensatz: Kurs gelöscht.
+     */
+    private static final byte COURSE_DELETED = 6;
+    /**
+     * Datensatz: Student in einen Kurs eingeschrieben.
+     */
+    private static final byte STUDENT_ADDED = 7;
+    /**
+     * Datensatz: Student aus einem Kurs entfernt.
+     */
+    private static final byte STUDENT_REMOVED = 8;
+    /**
+     * Datensatz: Note gesetzt.
+     */
+    private static final byte GRADE_SET = 9;
+
+    /**
+     * Der Snapshot im Verzeichnis.
+     */
+    private final Path snapshot;
+    /**
+     * Das Repository der Lehrer.
+     */
+    private final TeacherRepository teachers;
+    /**
+     * Das Repository der Kurse.
+     */
+    private final CourseRepository courses;
+    /**
+     * Das Repository der Studenten.
+     */
+    private final StudentRepository students;
+    /**
+     * Die Kurse, deren Änderungen aufgezeichnet werden, nach ihrer ID.
+     */
+    private final Map<String, Course> recordedCourses = new ConcurrentHashMap<>();
+    /**
+     * Zeichnet Änderungen an Lehrern auf.
+     */
+    private final RepositoryListener<Teacher> teacherRecorder = new TeacherRecorder();
+    /**
+     * Zeichnet Änderungen an Studenten auf.
+     */
+    private final RepositoryListener<Student> studentRecorder = new StudentRecorder();
+    /**
+     * Zeichnet Änderungen an Kursen auf.
+     */
+    private final CourseRecorder courseRecorder = new CourseRecorder();
+    /**
+     * Studenten, die während der Wiedergabe eingeschrieben, aber nicht im Repository gespeichert sind.
+     */
+    private Map<String, Student> detachedStudents;
+    /**
+     * Das Änderungslog.
+     */
+    private ChangeLog log;
+    /**
+     * Gibt an, ob Änderungen aufgezeichnet werden.
+     */
+    private volatile boolean recording;
+
+    private UniversityStore(final Path directory, final TeacherRepository teachers, final CourseRepository courses,
+                            final StudentRepository students) {
+        this.snapshot = directory.resolve(SNAPSHOT_FILE);
+        this.teachers = teachers;
+        this.courses = courses;
+        this.students = students;
+    }
+
+    /**
+     * Öffnet den Speicher in einem Verzeichnis und lädt dessen Inhalt in die gegebenen, leeren Repositories.
+     * Ab der Rückkehr werden alle Änderungen an den Repositories aufgezeichnet. Während des Öffnens dürfen die
+     * Repositories nicht anderweitig verändert werden.
+     *
+     * @param directory Das Verzeichnis; wird angelegt, falls es nicht existiert.
+     * @param teachers  Das Repository der Lehrer.
+     * @param courses   Das Repository der Kurse.
+     * @param students  Das Repository der Studenten.
+     * @return Der geöffnete Speicher.
+     * @throws IOException wenn Snapshot oder Log nicht gelesen werden können.
+     */
+    public static UniversityStore open(final Path directory, final TeacherRepository teachers,
+                                       final CourseRepository courses, final StudentRepository students)
+            throws IOException {
+        Files.createDirectories(directory);
+        UniversityStore store = new UniversityStore(directory, teachers, courses, students);
+        if (Files.exists(store.snapshot)) {
+            UniversitySnapshot.read(store.snapshot, teachers, courses, students);
+        }
+        store.log = ChangeLog.open(directory.resolve(LOG_FILE), store::apply);
+        store.detachedStudents = null;
+        teachers.addListener(store.teacherRecorder);
+        students.addListener(store.studentRecorder);
+        courses.addListener(store.courseRecorder);
+        for (Course course : courses) {
+            if (course.isArchived()) {
+                continue;
+            }
+            store.recordedCourses.put(course.getId(), course);
+            course.addChangeListener(store.courseRecorder);
+        }
+        store.recording = true;
+        return store;
+    }
+
+    /**
+     * Speichert alle bisher aufgezeichneten Änderungen dauerhaft.
+     * Rufen mehrere Threads gleichzeitig {@code commit()} auf, werden ihre Änderungen gemeinsam gespeichert.
+     *
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    public void commit() throws IOException {
+        log.commit();
+    }
+
+    /**
+     * Schreibt den aktuellen Stand als neuen Snapshot und leert das Log.
+     * Die Repositories können währenddessen weiter verändert werden; diese Änderungen bleiben im Log und werden beim
+     * nächsten Öffnen auf den Snapshot wiedergegeben, auch wenn der Snapshot sie teilweise schon enthält.
+     *
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    public void compact() throws IOException {
+        log.truncate(() -> UniversitySnapshot.write(snapshot, teachers, courses, students));
+    }
+
+    /**
+     * Beendet die Aufzeichnung, speichert alle aufgezeichneten Änderungen dauerhaft und schließt das Log.
+     *
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    @Override
+    public void close() throws IOException {
+        recording = false;
+        teachers.removeListener(teacherRecorder);
+        students.removeListener(studentRecorder);
+        courses.removeListener(courseRecorder);
+        recordedCourses.values().forEach(course -> course.removeChangeListener(courseRecorder));
+        recordedCourses.clear();
+        log.close();
+    }
+
+    private void apply(final ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case TEACHER_SAVED -> teachers.save(readTeacher(in));
+            case TEACHER_DELETED -> teachers.deleteById(readString(in));
+            case STUDENT_SAVED -> saveStudent(Student.builder()
+                    .id(readString(in))
+                    .name(readString(in))
+                    .address(readString(in))
+                    .build());
+            case STUDENT_DELETED -> students.deleteById(readString(in));
+            case COURSE_SAVED -> {
+                Course course = Course.builder()
+                        .id(readString(in))
+                        .name(readString(in))
+                        .teacher(in.get() != 0 ? readTeacher(in) : null)
+                        .build();
+                // Die folgenden Datensätze schreiben die Einschreibungen neu ein; die des abgelösten Kurses würden
+                // sonst bei seinen Studenten doppelt zählen, etwa wenn das Log auf einen neueren Snapshot trifft.
+                courses.findById(course.getId()).ifPresent(UniversityStore::unlinkEnrollments);
+                courses.save(course);
+            }
+            case COURSE_DELETED -> courses.deleteById(readString(in));
+            case STUDENT_ADDED -> {
+                String courseId = readString(in);
+                Student student = resolveStudent(readString(in), readString(in), readString(in));
+                courses.findById(courseId).ifPresent(course -> course.addStudent(student));
+            }
+            case STUDENT_REMOVED -> {
+                String courseId = readString(in);
+                String studentId = readString(in);
+                courses.findById(courseId).ifPresent(course -> {
+                    StudentsGradesInCourses enrollment = course.getStudentsGrades().get(studentId);
+                    if (enrollment != null) {
+                        course.removeStudent(enrollment.getStudent());
+                    }
+                });
+            }
+            case GRADE_SET -> {
+                String courseId = readString(in);
+                String studentId = readString(in);
+                BigDecimal grade = FixedPointGrade.toBigDecimal(in.getInt(), in.get());
+                courses.findById(courseId).ifPresent(course -> course.setGrades(Map.of(studentId, grade)));
+            }
+            default -> throw new IllegalStateException("Unknown change log record type " + type);
+        }
+    }
+
+    private static void unlinkEnrollments(final Course course) {
+        if (course.isArchived()) {
+            return;
+        }
+        for (Student student : course.getStudents()) {
+            course.removeStudent(student);
+        }
+    }
+
+    /**
+     * Speichert einen wiedergegebenen Studenten. Ist ein Student mit denselben Daten schon gespeichert oder
+     * eingeschrieben, etwa weil der Snapshot neuer als das Log ist, bleibt dieses Objekt erhalten. Ein Ersetzen
+     * hinterließe einen Studenten ohne Kurse und Durchschnittsnote, weil die folgenden Einschreibungen am Kurs schon
+     * vorhanden sind und übersprungen werden.
+     *
+     * @param student Der wiedergegebene Student.
+     */
+    private void saveStudent(final Student student) {
+        Student existing = findStudent(student.getId());
+        Student saved = student.equals(existing) ? existing : student;
+        students.save(saved);
+        if (detachedStudents != null) {
+            detachedStudents.put(saved.getId(), saved);
+        }
+    }
+
+    private Student resolveStudent(final String id, final String name, final String address) {
+        Student found = findStudent(id);
+        if (found != null) {
+            return found;
+        }
+        return detachedStudents().computeIfAbsent(id, key -> Student.builder().id(key).name(name).address(address).build());
+    }
+
+    private Student findStudent(final String id) {
+        Student stored = students.findById(id).orElse(null);
+        return stored != null ? stored : detachedStudents().get(id);
+    }
+
+    private Map<String, Student> detachedStudents() {
+        if (detachedStudents == null) {
+            detachedStudents = new HashMap<>();
+            for (Course course : courses) {
+                course.forEachEnrollment((student, hundredths, scale) ->
+                        detachedStudents.putIfAbsent(student.getId(), student));
+            }
+        }
+        return detachedStudents;
+    }
+
+    private static Teacher readTeacher(final ByteBuffer in) {
+        return new Teacher(readString(in), readString(in), readString(in));
+    }
+
+    private static String readString(final ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        in.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private void record(final Record record) {
+        if (recording) {
+            log.append(record.bytes, record.length);
+        }
+    }
+
+    /**
+     * Zeichnet Änderungen an Lehrern auf.
+     */
+    private final class TeacherRecorder implements RepositoryListener<Teacher> {
+        @Override
+        public void saved(final Teacher teacher) {
+            record(new Record(TEACHER_SAVED).teacher(teacher));
+        }
+
+        @Override
+        public void deleted(final String id) {
+            record(new Record(TEACHER_DELETED).string(id));
+        }
+    }
+
+    /**
+     * Zeichnet Änderungen an Studenten auf.
+     */
+    private final class StudentRecorder implements RepositoryListener<Student> {
+        @Override
+        public void saved(final Student student) {
+            record(new Record(STUDENT_SAVED).string(student.getId()).string(student.getName()).string(student.getAddress()));
+        }
+
+        @Override
+        public void deleted(final String id) {
+            record(new Record(STUDENT_DELETED).string(id));
+        }
+    }
+
+    /**
+     * Zeichnet Änderungen an Kursen und an den Einschreibungen der gespeicherten Kurse auf.
+     */
+    private final class CourseRecorder implements RepositoryListener<Course>, CourseChangeListener {
+        @Override
+        public void saved(final Course course) {
+            Course previous = recordedCourses.put(course.getId(), course);
+            if (previous != null) {
+                previous.removeChangeListener(this);
+            }
+            if (course.isArchived()) {
+                // Archivierte Kurse liegen in ihrem CourseArchive; ein gleichnamiger Kurs wird im Log entfernt.
+                recordedCourses.remove(course.getId());
+                record(new Record(COURSE_DELETED).string(course.getId()));
+                return;
+            }
+            Record record = new Record(COURSE_SAVED).string(course.getId()).string(course.getName());
+            if (course.getTeacher() != null) {
+                record.flag(true).teacher(course.getTeacher());
+            } else {
+                record.flag(false);
+            }
+            record(record);
+            course.addChangeListener(this);
+        }
+
+        @Override
+        public void deleted(final String id) {
+            Course removed = recordedCourses.remove(id);
+            if (removed != null) {
+                removed.removeChangeListener(this);
+            }
+            record(new Record(COURSE_DELETED).string(id));
+        }
+
+        @Override
+        public void studentAdded(final Course course, final Student student) {
+            record(new Record(STUDENT_ADDED).string(course.getId())
+                    .string(student.getId()).string(student.getName()).string(student.getAddress()));
+        }
+
+        @Override
+        public void studentRemoved(final Course course, final Student student) {
+            record(new Record(STUDENT_REMOVED).string(course.getId()).string(student.getId()));
+        }
+
+        @Override
+        public void gradeChanged(final Course course, final Student student, final BigDecimal grade) {
+            record(new Record(GRADE_SET).string(course.getId()).string(student.getId())
+                    .grade(grade));
+        }
+    }
+
+    /**
+     * Baut die Nutzdaten eines Datensatzes auf.
+     */
+    private static final class Record {
+        /**
+         * Die bisher geschriebenen Bytes.
+         */
+        private byte[] bytes = new byte[64];
+        /**
+         * Anzahl der belegten Bytes.
+         */
+        private int length;
+
+        Record(final byte type) {
+            bytes[length++] = type;
+        }
+
+        Record flag(final boolean value) {
+            ensure(1);
+            bytes[length++] = value ? (byte) 1 : (byte) 0;
+            return this;
+        }
+
+        Record string(final String value) {
+            if (value == null) {
+                return integer(-1);
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            integer(encoded.length);
+            ensure(encoded.length);
+            System.arraycopy(encoded, 0, bytes, length, encoded.length);
+            length += encoded.length;
+            return this;
+        }
+
+        Record teacher(final Teacher teacher) {
+            return string(teacher.id()).string(teacher.name()).string(teacher.address());
+        }
+
+        Record grade(final BigDecimal grade) {
+            integer(FixedPointGrade.toHundredths(grade));
+            ensure(1);
+            bytes[length++] = (byte) FixedPointGrade.scaleOf(grade);
+            return this;
+        }
+
+        private Record integer(final int value) {
+            ensure(Integer.BYTES);
+            ByteBuffer.wrap(bytes, length, Integer.BYTES).putInt(value);
+            length += Integer.BYTES;
+            return this;
+        }
+
+        private void ensure(final int additional) {
+            if (length + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + additional, bytes.length * 2));
+            }
+        }
+    }
+}
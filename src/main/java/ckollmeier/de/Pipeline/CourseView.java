@@ -0,0 +1,61 @@
+package ckollmeier.de.Pipeline;
+
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Util.PersistentHashMap;
+import lombok.Builder;
+import lombok.With;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Unveränderlicher Stand eines Kurses in einer {@link UniversityView}.
+ * @param id           Die ID des Kurses.
+ * @param name         Der Name des Kurses.
+ * @param teacher      Der Dozent, der den Kurs unterrichtet.
+ * @param enrollments  Die Noten nach der ID der eingeschriebenen Studenten; leer für Studenten ohne Note.
+ * @param averageGrade Die Durchschnittsnote des Kurses, falls es Noten gibt.
+ */
+@Builder
+@With
+public record CourseView(
+        String id,
+        String name,
+        Teacher teacher,
+        Map<String, Optional<BigDecimal>> enrollments,
+        Optional<BigDecimal> averageGrade
+) {
+    /**
+     * Übernimmt die Einschreibungen in eine {@link PersistentHashMap}, falls sie nicht bereits eine sind.
+     * Eine geänderte Einschreibung kostet so nur O(log n) und die Stände teilen sich alle übrigen.
+     */
+    public CourseView {
+        enrollments = PersistentHashMap.copyOf(enrollments);
+    }
+
+    /**
+     * Liefert die IDs der eingeschriebenen Studenten.
+     *
+     * @return Eine unveränderliche Sicht auf die IDs.
+     */
+    public Set<String> studentIds() {
+        return enrollments.keySet();
+    }
+
+    /**
+     * Liefert die Note eines Studenten in diesem Kurs.
+     *
+     * @param studentId Die ID des Studenten.
+     * @return Die Note oder ein leeres Optional, wenn der Student keine Note hat.
+     * @throws IllegalArgumentException wenn der Student nicht eingeschrieben ist.
+     */
+    public Optional<BigDecimal> gradeForStudent(final String studentId) {
+        Optional<BigDecimal> grade = enrollments.get(studentId);
+        if (grade == null) {
+            throw new IllegalArgumentException("Student not found.");
+        }
+        return grade;
+    }
+}
@@ -0,0 +1,165 @@
+package ckollmeier.de.Pipeline;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded ring buffer with many producers and a single consumer.
+ * Producers claim a sequence number with a single atomic increment and publish their event by writing the sequence
+ * into the slot; no lock is taken. The consumer takes the published events strictly in sequence order, in batches.
+ *
+ * <p>A full buffer makes producers wait until the consumer has freed their slot. Once the buffer is closed, no more
+ * sequences can be claimed, but all events claimed before are still handed to the consumer.</p>
+ *
+ * @param <E> The type of the events.
+ */
+final class RingBuffer<E> {
+    /**
+     * Value of {@link #next} after closing. Incrementing it stays negative for all practical purposes.
+     */
+    private static final long CLOSED = Long.MIN_VALUE / 2;
+    /**
+     * How long a producer waiting for a free slot parks before checking again.
+     */
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * The events by slot.
+     */
+    private final Object[] slots;
+    /**
+     * The sequence of the event published in each slot, or -1 if no event was published yet.
+     */
+    private final AtomicLongArray published;
+    /**
+     * Mask to map a sequence to its slot.
+     */
+    private final int mask;
+    /**
+     * The next sequence to be claimed, or a negative value once the buffer is closed.
+     */
+    private final AtomicLong next = new AtomicLong();
+    /**
+     * The first sequence after the last event claimed before closing, or -1 while the buffer is open.
+     */
+    private volatile long end = -1;
+    /**
+     * The next sequence the consumer takes. All slots of smaller sequences are free.
+     */
+    private volatile long consumed;
+    /**
+     * The consumer thread while it is parked waiting for events, otherwise {@code null}.
+     */
+    private volatile Thread waitingConsumer;
+
+    /**
+     * Creates an empty ring buffer.
+     *
+     * @param capacity The number of slots; must be a power of two.
+     */
+    RingBuffer(final int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        slots = new Object[capacity];
+        long[] initial = new long[capacity];
+        Arrays.fill(initial, -1);
+        published = new AtomicLongArray(initial);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Publishes an event, waiting while the buffer is full.
+     *
+     * @param event The event to publish.
+     * @return {@code false} if the buffer is closed and the event was not published.
+     */
+    boolean publish(final E event) {
+        long sequence = next.getAndIncrement();
+        if (sequence < 0) {
+            return false;
+        }
+        while (sequence - slots.length >= consumed) {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        int slot = (int) sequence & mask;
+        slots[slot] = event;
+        published.set(slot, sequence);
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Hands the published events to the consumer in sequence order and frees their slots.
+     * Must only be called by the consumer thread.
+     *
+     * @param handler  Receives the events.
+     * @param maxBatch The maximum number of events to take.
+     * @return The number of events taken.
+     */
+    @SuppressWarnings("unchecked")
+    int drain(final Consumer<? super E> handler, final int maxBatch) {
+        long sequence = consumed;
+        int taken = 0;
+        while (taken < maxBatch) {
+            int slot = (int) sequence & mask;
+            if (published.get(slot) != sequence) {
+                break;
+            }
+            E event = (E) slots[slot];
+            slots[slot] = null;
+            handler.accept(event);
+            sequence++;
+            taken++;
+        }
+        consumed = sequence;
+        return taken;
+    }
+
+    /**
+     * Parks the consumer thread until an event may have been published or the buffer was closed.
+     * Spurious returns are possible. Must only be called by the consumer thread.
+     */
+    void awaitEvents() {
+        waitingConsumer = Thread.currentThread();
+        try {
+            long sequence = consumed;
+            if (published.get((int) sequence & mask) != sequence && !isDrained()) {
+                LockSupport.park(this);
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+    }
+
+    /**
+     * Closes the buffer. Events claimed before are still handed to the consumer.
+     */
+    void close() {
+        long claimed = next.getAndSet(CLOSED);
+        if (claimed >= 0) {
+            end = claimed;
+        }
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Tells whether the buffer is closed and the consumer has taken all events.
+     *
+     * @return {@code true} if no more events will arrive.
+     */
+    boolean isDrained() {
+        long last = end;
+        return last >= 0 && consumed >= last;
+    }
+}
@@ -0,0 +1,31 @@
+package ckollmeier.de.Pipeline;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Unveränderlicher Stand eines Studenten in einer {@link UniversityView}.
+ * @param id           Die ID des Studenten.
+ * @param name         Der Name des Studenten.
+ * @param address      Die Adresse des Studenten.
+ * @param courseIds    Die IDs der belegten Kurse.
+ * @param averageGrade Die Durchschnittsnote über alle Kurse, falls es Noten gibt.
+ */
+@Builder
+public record StudentView(
+        String id,
+        String name,
+        String address,
+        Set<String> courseIds,
+        Optional<BigDecimal> averageGrade
+) {
+    /**
+     * Übernimmt die Kurs-IDs als unveränderliche Kopie.
+     */
+    public StudentView {
+        courseIds = Set.copyOf(courseIds);
+    }
+}
@@ -0,0 +1,411 @@
+package ckollmeier.de.Pipeline;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.EnrollmentVisitor;
+import ckollmeier.de.Entities.FixedPointGrade;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.StudentsGradesInCourses;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+import ckollmeier.de.UniversityService;
+import ckollmeier.de.Util.PersistentHashMap;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Single-writer pipeline for all changes to the repositories.
+ * Changes are published into a {@link RingBuffer} by any number of threads and applied in order by one writer thread,
+ * so writers never contend for the locks of courses and students. After each batch the writer publishes an immutable
+ * {@link UniversityView} which readers access without any lock. Only the teachers, courses, students and enrollments
+ * touched by the batch are updated in the view; everything else is shared with the previous view.
+ *
+ * <p>The future returned for a change completes once a view containing the change has been published, so a caller
+ * reads its own writes through {@link #view()}. While the pipeline is in use, the repositories and entities must only
+ * be changed through it; changes made directly are not reflected in the view until the entity changes again.</p>
+ *
+ * <p>Nothing thrown by a change or while publishing a view stops the writer. A change that throws fails only its own
+ * future. If publishing fails, the futures of the whole batch fail, and the next view is rebuilt from the
+ * repositories.</p>
+ */
+public final class UniversityPipeline implements AutoCloseable {
+    /**
+     * Number of slots of the ring buffer if not specified otherwise.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+
+    /**
+     * The repository of the teachers.
+     */
+    private final TeacherRepository teacherRepository;
+    /**
+     * The repository of the courses.
+     */
+    private final CourseRepository courseRepository;
+    /**
+     * The repository of the students.
+     */
+    private final StudentRepository studentRepository;
+    /**
+     * Applies the changes to the repositories, with the same validation as without the pipeline.
+     */
+    private final UniversityService service;
+    /**
+     * The changes waiting for the writer.
+     */
+    private final RingBuffer<Mutation> ring;
+    /**
+     * Maximum number of changes applied before the next view is published.
+     */
+    private final int maxBatch;
+    /**
+     * The thread applying all changes.
+     */
+    private final Thread writer;
+    /**
+     * IDs of the teachers changed since the last view; only used by the writer.
+     */
+    private final Set<String> changedTeachers = new HashSet<>();
+    /**
+     * IDs of the courses changed since the last view; only used by the writer.
+     */
+    private final Set<String> changedCourses = new HashSet<>();
+    /**
+     * IDs of the students changed since the last view; only used by the writer.
+     */
+    private final Set<String> changedStudents = new HashSet<>();
+    /**
+     * IDs of the students whose enrollment or grade changed since the last view, by course ID; only used by the writer.
+     */
+    private final Map<String, Set<String>> changedEnrollments = new HashMap<>();
+    /**
+     * The futures of the changes applied since the last view with their outcome; only used by the writer.
+     */
+    private final List<Completion> completions = new ArrayList<>();
+    /**
+     * The most recently published view.
+     */
+    private volatile UniversityView view = UniversityView.EMPTY;
+
+    /**
+     * Creates a pipeline with {@link #DEFAULT_CAPACITY} slots and starts its writer thread.
+     *
+     * @param teacherRepository The repository of the teachers.
+     * @param courseRepository  The repository of the courses.
+     * @param studentRepository The repository of the students.
+     */
+    public UniversityPipeline(final TeacherRepository teacherRepository, final CourseRepository courseRepository,
+                              final StudentRepository studentRepository) {
+        this(teacherRepository, courseRepository, studentRepository, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a pipeline and starts its writer thread. The first view holds the current content of the repositories.
+     *
+     * @param teacherRepository The repository of the teachers.
+     * @param courseRepository  The repository of the courses.
+     * @param studentRepository The repository of the students.
+     * @param capacity          The number of changes that can wait for the writer; must be a power of two.
+     */
+    public UniversityPipeline(final TeacherRepository teacherRepository, final CourseRepository courseRepository,
+                              final StudentRepository studentRepository, final int capacity) {
+        this.teacherRepository = teacherRepository;
+        this.courseRepository = courseRepository;
+        this.studentRepository = studentRepository;
+        this.service = new UniversityService(teacherRepository, courseRepository, studentRepository);
+        this.ring = new RingBuffer<>(capacity);
+        this.maxBatch = capacity;
+
+        changeAll();
+        publish();
+
+        writer = new Thread(this::run, "university-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Returns the most recently published view. Never blocks.
+     *
+     * @return The current view.
+     */
+    public UniversityView view() {
+        return view;
+    }
+
+    /**
+     * Creates and saves a teacher, see {@link UniversityService#createTeacher(Teacher)}.
+     *
+     * @param teacher The teacher to be created.
+     * @return A future which completes once the teacher is visible in the view.
+     */
+    public CompletableFuture<Void> createTeacher(final Teacher teacher) {
+        return submit(() -> {
+            changedTeachers.add(teacher.id());
+            service.createTeacher(teacher);
+        });
+    }
+
+    /**
+     * Creates and saves a course, see {@link UniversityService#createCourse(Course)}.
+     *
+     * @param course The course to be created.
+     * @return A future which completes once the course is visible in the view.
+     */
+    public CompletableFuture<Void> createCourse(final Course course) {
+        return submit(() -> {
+            changedCourses.add(course.getId());
+            courseRepository.findById(course.getId())
+                    .ifPresent(replaced -> changedStudents.addAll(replaced.getStudentsGrades().keySet()));
+            service.createCourse(course);
+        });
+    }
+
+    /**
+     * Creates and saves a student, see {@link UniversityService#createStudent(Student)}.
+     *
+     * @param student The student to be created.
+     * @return A future which completes once the student is visible in the view.
+     */
+    public CompletableFuture<Void> createStudent(final Student student) {
+        return submit(() -> {
+            changedStudents.add(student.getId());
+            service.createStudent(student);
+        });
+    }
+
+    /**
+     * Adds students to a course, see {@link UniversityService#addStudentsToCourse(String, List)}.
+     *
+     * @param courseId   The ID of the course.
+     * @param studentIds The IDs of the students.
+     * @return A future which completes once the enrollments are visible in the view,
+     * or completes exceptionally with an {@link IllegalArgumentException} if the course or a student is not found.
+     */
+    public CompletableFuture<Void> addStudentsToCourse(final String courseId, final List<String> studentIds) {
+        return submit(() -> {
+            changedEnrollments.computeIfAbsent(courseId, id -> new HashSet<>()).addAll(studentIds);
+            changedStudents.addAll(studentIds);
+            service.addStudentsToCourse(courseId, studentIds);
+        });
+    }
+
+    /**
+     * Sets the grade of a student in a course, see {@link Course#setGrade(String, String)}.
+     *
+     * @param courseId  The ID of the course.
+     * @param studentId The ID of the student.
+     * @param grade     The grade, with at most two decimal places.
+     * @return A future which completes once the grade is visible in the view,
+     * or completes exceptionally with an {@link IllegalArgumentException} if the course or the enrollment is not found.
+     */
+    public CompletableFuture<Void> setGrade(final String courseId, final String studentId, final String grade) {
+        return submit(() -> {
+            enrollmentChanged(courseId, studentId);
+            findCourse(courseId).setGrade(studentId, grade);
+        });
+    }
+
+    /**
+     * Removes a student from a course, see {@link Course#removeStudent(Student)}.
+     *
+     * @param courseId  The ID of the course.
+     * @param studentId The ID of the student.
+     * @return A future which completes once the removal is visible in the view,
+     * or completes exceptionally with an {@link IllegalArgumentException} if the course or the student is not found.
+     */
+    public CompletableFuture<Void> removeStudentFromCourse(final String courseId, final String studentId) {
+        return submit(() -> {
+            enrollmentChanged(courseId, studentId);
+            Course course = findCourse(courseId);
+            course.removeStudent(studentRepository.findById(studentId)
+                    .orElseThrow(() -> new IllegalArgumentException("Student not found with ID: " + studentId)));
+        });
+    }
+
+    /**
+     * Stops accepting changes and waits until the writer has applied and published all changes submitted before.
+     */
+    @Override
+    public void close() {
+        ring.close();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void changeAll() {
+        teacherRepository.forEach(teacher -> changedTeachers.add(teacher.id()));
+        courseRepository.forEach(course -> changedCourses.add(course.getId()));
+        studentRepository.forEach(student -> changedStudents.add(student.getId()));
+    }
+
+    private void enrollmentChanged(final String courseId, final String studentId) {
+        changedEnrollments.computeIfAbsent(courseId, id -> new HashSet<>()).add(studentId);
+        changedStudents.add(studentId);
+    }
+
+    private Course findCourse(final String courseId) {
+        return courseRepository.findById(courseId)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+    }
+
+    private CompletableFuture<Void> submit(final Runnable change) {
+        Mutation mutation = new Mutation(change, new CompletableFuture<>());
+        if (!ring.publish(mutation)) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("The pipeline is closed."));
+        }
+        return mutation.result();
+    }
+
+    private void run() {
+        while (!ring.isDrained()) {
+            if (ring.drain(this::apply, maxBatch) == 0) {
+                ring.awaitEvents();
+                continue;
+            }
+            Throwable publishFailure = null;
+            try {
+                publish();
+            } catch (Throwable e) {
+                // The changes of the batch are applied, but the view may be half updated; start over from scratch.
+                publishFailure = e;
+                changeAll();
+            }
+            for (Completion completion : completions) {
+                completion.complete(publishFailure);
+            }
+            completions.clear();
+        }
+    }
+
+    private void apply(final Mutation mutation) {
+        Throwable failure = null;
+        try {
+            mutation.change().run();
+        } catch (Throwable e) {
+            failure = e;
+        }
+        completions.add(new Completion(mutation.result(), failure));
+    }
+
+    private void publish() {
+        UniversityView current = view;
+        view = new UniversityView(current.getVersion() + 1,
+                update(current.teacherMap(), changedTeachers, id -> teacherRepository.findById(id).orElse(null)),
+                updateCourses(current.courseMap()),
+                update(current.studentMap(), changedStudents,
+                        id -> studentRepository.findById(id).map(UniversityPipeline::toView).orElse(null)));
+    }
+
+    private PersistentHashMap<String, CourseView> updateCourses(final PersistentHashMap<String, CourseView> current) {
+        changedEnrollments.keySet().removeAll(changedCourses);
+        PersistentHashMap<String, CourseView> next = update(current, changedCourses,
+                id -> courseRepository.findById(id).map(UniversityPipeline::toView).orElse(null));
+        for (Map.Entry<String, Set<String>> changed : changedEnrollments.entrySet()) {
+            String courseId = changed.getKey();
+            Optional<Course> course = courseRepository.findById(courseId);
+            next = course.isPresent()
+                    ? next.with(courseId, patch(next.get(courseId), course.get(), changed.getValue()))
+                    : next.without(courseId);
+        }
+        changedEnrollments.clear();
+        return next;
+    }
+
+    private static <V> PersistentHashMap<String, V> update(final PersistentHashMap<String, V> current,
+                                                           final Set<String> changed, final Function<String, V> lookup) {
+        PersistentHashMap<String, V> next = current;
+        for (String id : changed) {
+            V value = lookup.apply(id);
+            next = value == null ? next.without(id) : next.with(id, value);
+        }
+        changed.clear();
+        return next;
+    }
+
+    private static CourseView patch(final CourseView view, final Course course, final Set<String> studentIds) {
+        if (view == null) {
+            return toView(course);
+        }
+        PersistentHashMap<String, Optional<BigDecimal>> enrollments = PersistentHashMap.copyOf(view.enrollments());
+        Map<String, StudentsGradesInCourses> current = course.getStudentsGrades();
+        for (String studentId : studentIds) {
+            StudentsGradesInCourses enrollment = current.get(studentId);
+            enrollments = enrollment == null
+                    ? enrollments.without(studentId)
+                    : enrollments.with(studentId, Optional.ofNullable(enrollment.getGrade()));
+        }
+        return view.withEnrollments(enrollments).withAverageGrade(course.getAverageGrade());
+    }
+
+    private static CourseView toView(final Course course) {
+        Map<String, Optional<BigDecimal>> enrollments = new HashMap<>();
+        course.forEachEnrollment((student, hundredths, scale) -> enrollments.put(student.getId(),
+                scale == EnrollmentVisitor.NO_GRADE
+                        ? Optional.empty()
+                        : Optional.of(FixedPointGrade.toBigDecimal(hundredths, scale))));
+        return CourseView.builder()
+                .id(course.getId())
+                .name(course.getName())
+                .teacher(course.getTeacher())
+                .enrollments(enrollments)
+                .averageGrade(course.getAverageGrade())
+                .build();
+    }
+
+    private static StudentView toView(final Student student) {
+        return StudentView.builder()
+                .id(student.getId())
+                .name(student.getName())
+                .address(student.getAddress())
+                .courseIds(student.getCourses().keySet())
+                .averageGrade(student.getAverageGrade())
+                .build();
+    }
+
+    /**
+     * A change waiting in the ring buffer.
+     *
+     * @param change Applies the change; runs on the writer thread.
+     * @param result Completed once the change is visible in the view.
+     */
+    private record Mutation(Runnable change, CompletableFuture<Void> result) {
+    }
+
+    /**
+     * An applied change waiting for the next view.
+     *
+     * @param result  The future of the change.
+     * @param failure What the change threw, or {@code null} if it succeeded.
+     */
+    private record Completion(CompletableFuture<Void> result, Throwable failure) {
+        /**
+         * Completes the future once the view has been published or publishing has failed.
+         *
+         * @param publishFailure What publishing the view threw, or {@code null} if it succeeded.
+         */
+        void complete(final Throwable publishFailure) {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else if (publishFailure != null) {
+                result.completeExceptionally(publishFailure);
+            } else {
+                result.complete(null);
+            }
+        }
+    }
+}
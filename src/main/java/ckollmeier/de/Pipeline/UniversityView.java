@@ -0,0 +1,147 @@
+package ckollmeier.de.Pipeline;
+
+import ckollmeier.de.Entities.GradeAggregate;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Util.PersistentHashMap;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Unveränderlicher Stand aller Lehrer, Kurse und Studenten, den eine {@link UniversityPipeline} veröffentlicht.
+ * Leser greifen ohne Sperren zu; ein Stand ändert sich nie, der nächste wird als neues Objekt veröffentlicht.
+ * Aufeinanderfolgende Stände teilen sich über {@link PersistentHashMap} alle unveränderten Einträge.
+ */
+public final class UniversityView {
+    /**
+     * Der leere Stand vor der ersten Veröffentlichung.
+     */
+    static final UniversityView EMPTY = new UniversityView(0, PersistentHashMap.empty(), PersistentHashMap.empty(),
+            PersistentHashMap.empty());
+
+    /**
+     * Die Nummer des Stands; jede Veröffentlichung erhöht sie.
+     */
+    private final long version;
+    /**
+     * Die Lehrer nach ihrer ID.
+     */
+    private final PersistentHashMap<String, Teacher> teachers;
+    /**
+     * Die Kurse nach ihrer ID.
+     */
+    private final PersistentHashMap<String, CourseView> courses;
+    /**
+     * Die Studenten nach ihrer ID.
+     */
+    private final PersistentHashMap<String, StudentView> students;
+
+    /**
+     * Erzeugt einen Stand.
+     *
+     * @param version  Die Nummer des Stands.
+     * @param teachers Die Lehrer nach ihrer ID.
+     * @param courses  Die Kurse nach ihrer ID.
+     * @param students Die Studenten nach ihrer ID.
+     */
+    UniversityView(final long version, final PersistentHashMap<String, Teacher> teachers, final PersistentHashMap<String, CourseView> courses,
+                   final PersistentHashMap<String, StudentView> students) {
+        this.version = version;
+        this.teachers = teachers;
+        this.courses = courses;
+        this.students = students;
+    }
+
+    /**
+     * Liefert die Nummer des Stands.
+     *
+     * @return Die Nummer, die mit jeder Veröffentlichung wächst.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sucht einen Lehrer.
+     *
+     * @param id Die ID des Lehrers.
+     * @return Der Lehrer oder ein leeres Optional.
+     */
+    public Optional<Teacher> findTeacher(final String id) {
+        return Optional.ofNullable(teachers.get(id));
+    }
+
+    /**
+     * Sucht einen Kurs.
+     *
+     * @param id Die ID des Kurses.
+     * @return Der Kurs oder ein leeres Optional.
+     */
+    public Optional<CourseView> findCourse(final String id) {
+        return Optional.ofNullable(courses.get(id));
+    }
+
+    /**
+     * Sucht einen Studenten.
+     *
+     * @param id Die ID des Studenten.
+     * @return Der Student oder ein leeres Optional.
+     */
+    public Optional<StudentView> findStudent(final String id) {
+        return Optional.ofNullable(students.get(id));
+    }
+
+    /**
+     * Liefert alle Lehrer dieses Stands.
+     *
+     * @return Eine unveränderliche Sammlung der Lehrer.
+     */
+    public Collection<Teacher> getTeachers() {
+        return teachers.values();
+    }
+
+    /**
+     * Liefert alle Kurse dieses Stands.
+     *
+     * @return Eine unveränderliche Sammlung der Kurse.
+     */
+    public Collection<CourseView> getCourses() {
+        return courses.values();
+    }
+
+    /**
+     * Liefert alle Studenten dieses Stands.
+     *
+     * @return Eine unveränderliche Sammlung der Studenten.
+     */
+    public Collection<StudentView> getStudents() {
+        return students.values();
+    }
+
+    PersistentHashMap<String, Teacher> teacherMap() {
+        return teachers;
+    }
+
+    PersistentHashMap<String, CourseView> courseMap() {
+        return courses;
+    }
+
+    PersistentHashMap<String, StudentView> studentMap() {
+        return students;
+    }
+
+    /**
+     * Berechnet den Durchschnitt der Durchschnittsnoten aller Kurse,
+     * genau wie {@link ckollmeier.de.UniversityService#calculateAverageGrade()}.
+     *
+     * @return Der Durchschnitt oder ein leeres Optional, wenn kein Kurs Noten hat.
+     */
+    public Optional<BigDecimal> calculateAverageGrade() {
+        GradeAggregate aggregate = new GradeAggregate();
+        for (CourseView course : courses.values()) {
+            course.averageGrade().ifPresent(aggregate::add);
+        }
+        return aggregate.average();
+    }
+}
@@ -0,0 +1,108 @@
+package ckollmeier.de;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Größenbeschränkter Cache für Abfrageergebnisse mit LRU-Verdrängung.
+ * Jedes Ergebnis wird mit der Version der Daten gespeichert, aus denen es berechnet wurde. Hat sich die Version
+ * seitdem geändert, gilt das Ergebnis als veraltet und wird neu berechnet.
+ */
+final class QueryCache {
+    /**
+     * Die maximale Anzahl gespeicherter Ergebnisse.
+     */
+    private final int capacity;
+    /**
+     * Die gespeicherten Ergebnisse in Zugriffsreihenfolge, das am längsten nicht benutzte zuerst.
+     */
+    private final Map<Object, Entry> entries;
+    /**
+     * Anzahl der Treffer.
+     */
+    private final LongAdder hits = new LongAdder();
+    /**
+     * Anzahl der Fehlschläge.
+     */
+    private final LongAdder misses = new LongAdder();
+    /**
+     * Anzahl der verdrängten Ergebnisse.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Erzeugt einen leeren Cache.
+     *
+     * @param capacity Die maximale Anzahl gespeicherter Ergebnisse.
+     */
+    QueryCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object, Entry> eldest) {
+                if (size() > QueryCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Liefert das gespeicherte Ergebnis einer Abfrage oder berechnet und speichert es.
+     * Die Abfrage wird außerhalb der Sperre des Caches ausgeführt. Da die Version vor der Berechnung gelesen wird,
+     * wird ein Ergebnis, das durch eine gleichzeitige Änderung veraltet ist, beim nächsten Zugriff neu berechnet.
+     *
+     * @param key     Die Abfrage und ihre Parameter; muss {@code equals} und {@code hashCode} implementieren.
+     * @param version Die aktuelle Version der Daten, von denen die Abfrage abhängt.
+     * @param query   Berechnet das Ergebnis. Das Ergebnis muss unveränderlich sein.
+     * @param <T>     Der Typ des Ergebnisses.
+     * @return Das Ergebnis der Abfrage.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(final Object key, final long version, final Supplier<T> query) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version() == version) {
+                hits.increment();
+                return (T) entry.value();
+            }
+        }
+        misses.increment();
+        T value = query.get();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.version() < version) {
+                entries.put(key, new Entry(version, value));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Liefert die aktuellen Kennzahlen des Caches.
+     *
+     * @return Die Kennzahlen.
+     */
+    QueryCacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new QueryCacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    /**
+     * Ein gespeichertes Ergebnis.
+     * @param version Die Version der Daten, aus denen das Ergebnis berechnet wurde.
+     * @param value   Das Ergebnis.
+     */
+    private record Entry(long version, Object value) {
+    }
+}
@@ -0,0 +1,19 @@
+package ckollmeier.de;
+
+import lombok.Builder;
+
+/**
+ * Kennzahlen des Abfrage-Caches von {@link UniversityService}.
+ * @param hits      Die Anzahl der Abfragen, die aus dem Cache beantwortet wurden.
+ * @param misses    Die Anzahl der Abfragen, die berechnet werden mussten, weil kein gültiges Ergebnis vorlag.
+ * @param evictions Die Anzahl der Ergebnisse, die wegen der Größenbeschränkung verdrängt wurden.
+ * @param size      Die Anzahl der aktuell gespeicherten Ergebnisse.
+ */
+@Builder
+public record QueryCacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        int size
+) {
+}
@@ -0,0 +1,45 @@
+package ckollmeier.de.Reports;
+
+import java.io.PrintStream;
+import java.io.Writer;
+
+/**
+ * Writer, der Zeichen an einen {@link PrintStream} weitergibt.
+ * Die Zeichen werden mit dem Zeichensatz des PrintStreams kodiert, sodass die Ausgabe byte-genau
+ * der von {@code print} und {@code printf} entspricht. {@link #close()} schließt den PrintStream nicht.
+ */
+public final class PrintStreamWriter extends Writer {
+    /**
+     * Der Ziel-Stream.
+     */
+    private final PrintStream out;
+
+    /**
+     * Erzeugt einen Writer für den gegebenen PrintStream.
+     *
+     * @param out Der Ziel-Stream.
+     */
+    public PrintStreamWriter(final PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(final char[] buffer, final int offset, final int length) {
+        out.print(new String(buffer, offset, length));
+    }
+
+    @Override
+    public void write(final String text, final int offset, final int length) {
+        out.print(text.substring(offset, offset + length));
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        out.flush();
+    }
+}
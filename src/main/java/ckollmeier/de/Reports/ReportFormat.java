@@ -0,0 +1,19 @@
+package ckollmeier.de.Reports;
+
+/**
+ * Ausgabeformate der Übersicht über Studenten, Lehrer und Kurse.
+ */
+public enum ReportFormat {
+    /**
+     * Lesbarer Text, wie ihn {@code UniversityService.printDetails()} auf der Konsole ausgibt.
+     */
+    TEXT,
+    /**
+     * Eine CSV-Zeile pro Eintrag mit den Spalten {@code type,id,name,count,average}.
+     */
+    CSV,
+    /**
+     * Ein JSON-Objekt pro Zeile (JSON Lines).
+     */
+    JSON_LINES
+}
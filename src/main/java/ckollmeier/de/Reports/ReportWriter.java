@@ -0,0 +1,261 @@
+package ckollmeier.de.Reports;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Schreibt die Übersicht über Studenten, Lehrer und Kurse zeilenweise in einen {@link Writer}.
+ * Das Layout ist fest im Code hinterlegt, es wird also kein Formatstring pro Zeile ausgewertet.
+ * Das Format {@link ReportFormat#TEXT} entspricht Zeichen für Zeichen der bisherigen {@code printf}-Ausgabe.
+ * Der Writer sollte gepuffert sein, da viele kleine Stücke geschrieben werden.
+ */
+public final class ReportWriter {
+    /**
+     * Breite der Namensspalte für Studenten und Lehrer.
+     */
+    private static final int PERSON_NAME_WIDTH = 20;
+    /**
+     * Breite der Namensspalte für Kurse.
+     */
+    private static final int COURSE_NAME_WIDTH = 30;
+    /**
+     * Leerzeichen zum Auffüllen der Spalten.
+     */
+    private static final char[] SPACES = new char[COURSE_NAME_WIDTH];
+    /**
+     * Zeilentrenner, wie ihn {@code %n} ausgibt.
+     */
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    /**
+     * Kopfzeile des CSV-Formats.
+     */
+    private static final String CSV_HEADER = "type,id,name,count,average";
+
+    static {
+        Arrays.fill(SPACES, ' ');
+    }
+
+    /**
+     * Das Ziel der Ausgabe.
+     */
+    private final Writer out;
+    /**
+     * Das Ausgabeformat.
+     */
+    private final ReportFormat format;
+    /**
+     * Gibt an, ob die CSV-Kopfzeile bereits geschrieben wurde.
+     */
+    private boolean headerWritten;
+
+    /**
+     * Erzeugt einen neuen ReportWriter.
+     *
+     * @param out    Das Ziel der Ausgabe.
+     * @param format Das Ausgabeformat.
+     */
+    public ReportWriter(final Writer out, final ReportFormat format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Beginnt einen Abschnitt, z. B. {@code Students}. Nur im Textformat wird dafür eine Überschrift ausgegeben.
+     *
+     * @param title Der Titel des Abschnitts.
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    public void section(final String title) throws IOException {
+        switch (format) {
+            case TEXT -> {
+                out.write(title);
+                out.write(':');
+                out.write(LINE_SEPARATOR);
+            }
+            case CSV -> {
+                if (!headerWritten) {
+                    out.write(CSV_HEADER);
+                    out.write('\n');
+                    headerWritten = true;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Schreibt die Zeile eines Studenten.
+     *
+     * @param student Der Student.
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    public void student(final Student student) throws IOException {
+        BigDecimal average = student.getAverageGrade().orElse(null);
+        if (format == ReportFormat.TEXT) {
+            out.write("  - Name: ");
+            padded(student.getName(), PERSON_NAME_WIDTH);
+            out.write(" ID: ");
+            out.write(String.valueOf(student.getId()));
+            out.write(" | ⌀");
+            out.write(rounded(average));
+            out.write(LINE_SEPARATOR);
+        } else {
+            record("student", student.getId(), student.getName(), student.getCourses().size(), average);
+        }
+    }
+
+    /**
+     * Schreibt die Zeile eines Lehrers.
+     *
+     * @param teacher Der Lehrer.
+     * @param courses Die Anzahl der Kurse, die der Lehrer unterrichtet.
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    public void teacher(final Teacher teacher, final int courses) throws IOException {
+        if (format == ReportFormat.TEXT) {
+            out.write("  - Name: ");
+            padded(teacher.name(), PERSON_NAME_WIDTH);
+            out.write(" ID: ");
+            out.write(String.valueOf(teacher.id()));
+            out.write(" | ");
+            out.write(Integer.toString(courses));
+            out.write(" courses");
+            out.write(LINE_SEPARATOR);
+        } else {
+            record("teacher", teacher.id(), teacher.name(), courses, null);
+        }
+    }
+
+    /**
+     * Schreibt die Zeile eines Kurses.
+     *
+     * @param course Der Kurs.
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    public void course(final Course course) throws IOException {
+        int students = course.getStudentCount();
+        BigDecimal average = course.getAverageGrade().orElse(null);
+        if (format == ReportFormat.TEXT) {
+            out.write("  - Name: ");
+            padded(course.getName(), COURSE_NAME_WIDTH);
+            out.write(" ID: ");
+            out.write(String.valueOf(course.getId()));
+            out.write(" | ");
+            out.write(Integer.toString(students));
+            out.write(" students with ⌀");
+            out.write(rounded(average));
+            out.write(LINE_SEPARATOR);
+        } else {
+            record("course", course.getId(), course.getName(), students, average);
+        }
+    }
+
+    /**
+     * Schreibt alle gepufferten Zeichen.
+     *
+     * @throws IOException wenn nicht geschrieben werden kann.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void padded(final String value, final int width) throws IOException {
+        String text = String.valueOf(value);
+        out.write(text);
+        if (text.length() < width) {
+            out.write(SPACES, 0, width - text.length());
+        }
+    }
+
+    private static String rounded(final BigDecimal average) {
+        return (average != null ? average : BigDecimal.ZERO).setScale(1, RoundingMode.HALF_UP).toString();
+    }
+
+    private void record(final String type, final String id, final String name, final int count,
+                        final BigDecimal average) throws IOException {
+        if (format == ReportFormat.CSV) {
+            out.write(type);
+            out.write(',');
+            csv(id);
+            out.write(',');
+            csv(name);
+            out.write(',');
+            out.write(Integer.toString(count));
+            out.write(',');
+            if (average != null) {
+                out.write(average.toPlainString());
+            }
+        } else {
+            out.write("{\"type\":\"");
+            out.write(type);
+            out.write("\",\"id\":");
+            json(id);
+            out.write(",\"name\":");
+            json(name);
+            out.write(",\"count\":");
+            out.write(Integer.toString(count));
+            out.write(",\"average\":");
+            out.write(average != null ? average.toPlainString() : "null");
+            out.write('}');
+        }
+        out.write('\n');
+    }
+
+    private void csv(final String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private void json(final String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < ' ') {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+}
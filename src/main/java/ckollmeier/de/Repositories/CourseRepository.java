@@ -1,15 +1,97 @@
 package ckollmeier.de.Repositories;
 
 import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.CourseChangeListener;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Metrics.Counter;
+import ckollmeier.de.Metrics.MeterRegistry;
 
+import java.math.BigDecimal;
+
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class CourseRepository {
+public class CourseRepository implements Iterable<Course> {
     /**
      * Datenbank zur Speicherung der Kurse.
      */
-    private final java.util.Map<String, Course> courseDatabase = new java.util.HashMap<>();
+    private final IdTable<Course> courseDatabase = new IdTable<>();
+    /**
+     * Sekundärindex der Kurse nach der ID ihres Lehrers.
+     */
+    private final java.util.Map<String, java.util.Map<String, Course>> coursesByTeacher = new java.util.concurrent.ConcurrentHashMap<>();
+    /**
+     * Die registrierten Listener.
+     */
+    private final List<RepositoryListener<Course>> listeners = new java.util.concurrent.CopyOnWriteArrayList<>();
+    /**
+     * Zähler, der bei jeder Änderung, die Durchschnittsnoten der Kurse betreffen kann, erhöht wird.
+     */
+    private final java.util.concurrent.atomic.AtomicLong averageGradeVersion = new java.util.concurrent.atomic.AtomicLong();
+    /**
+     * Erhöht {@link #averageGradeVersion}, wenn sich Noten eines gespeicherten Kurses ändern.
+     */
+    private final CourseChangeListener gradeListener = new CourseChangeListener() {
+        @Override
+        public void studentAdded(final Course course, final Student student) {
+        }
+
+        @Override
+        public void studentRemoved(final Course course, final Student student) {
+            averageGradeVersion.incrementAndGet();
+        }
+
+        @Override
+        public void gradeChanged(final Course course, final Student student, final BigDecimal grade) {
+            averageGradeVersion.incrementAndGet();
+        }
+    };
+
+    /**
+     * Zählt die Aufrufe von {@link #findById}.
+     */
+    private final Counter findByIdCalls;
+    /**
+     * Zählt die Aufrufe von {@link #findAll} und die Durchläufe über alle Kurse.
+     */
+    private final Counter findAllCalls;
+    /**
+     * Zählt die Aufrufe von {@link #save}.
+     */
+    private final Counter saveCalls;
+    /**
+     * Zählt die Aufrufe von {@link #deleteById}.
+     */
+    private final Counter deleteByIdCalls;
+
+    /**
+     * Erzeugt ein leeres Repository ohne Messwerte.
+     */
+    public CourseRepository() {
+        this(MeterRegistry.DISABLED);
+    }
+
+    /**
+     * Erzeugt ein leeres Repository, das Aufrufe und Größe in der gegebenen Registry misst.
+     *
+     * @param registry Die Registry für die Messwerte.
+     */
+    public CourseRepository(final MeterRegistry registry) {
+        findByIdCalls = registry.counter("repository.courses.findById");
+        findAllCalls = registry.counter("repository.courses.findAll");
+        saveCalls = registry.counter("repository.courses.save");
+        deleteByIdCalls = registry.counter("repository.courses.deleteById");
+        registry.gauge("repository.courses.size", courseDatabase::size);
+        registry.gauge("repository.courses.enrollments", () -> courseDatabase.stream()
+                .mapToLong(Course::getStudentCount).sum());
+        registry.gauge("repository.courses.enrollments.max", () -> courseDatabase.stream()
+                .mapToLong(Course::getStudentCount).max().orElse(0));
+    }
 
     /**
      * Speichert einen Kurs in der Datenbank.
@@ -17,8 +99,19 @@ public class CourseRepository {
      * @param course Der zu speichernde Kurs.
      */
     public void save(final Course course) {
+        saveCalls.increment();
         if (course != null && course.getId() != null) {
-            courseDatabase.put(course.getId(), course);
+            courseDatabase.compute(course.getId(), previous -> {
+                if (previous != null) {
+                    unindex(previous);
+                    previous.removeChangeListener(gradeListener);
+                }
+                index(course);
+                course.addChangeListener(gradeListener);
+                averageGradeVersion.incrementAndGet();
+                listeners.forEach(listener -> listener.saved(course));
+                return course;
+            });
         }
     }
 
@@ -29,6 +122,10 @@ public class CourseRepository {
      * @return Ein Optional mit dem Kurs der gegebenen ID oder ein leeres Optional, falls kein solcher Kurs existiert.
      */
     public Optional<Course> findById(final String id) {
+        findByIdCalls.increment();
+        if (id == null) {
+            return Optional.empty();
+        }
         return Optional.ofNullable(courseDatabase.get(id));
     }
 
@@ -38,15 +135,160 @@ public class CourseRepository {
      * @param id Die ID des zu löschenden Kurses.
      */
     public void deleteById(final String id) {
-        courseDatabase.remove(id);
+        deleteByIdCalls.increment();
+        if (id != null) {
+            courseDatabase.computeIfPresent(id, removed -> {
+                unindex(removed);
+                removed.removeChangeListener(gradeListener);
+                averageGradeVersion.incrementAndGet();
+                listeners.forEach(listener -> listener.deleted(id));
+                return null;
+            });
+        }
     }
 
     /**
      * Gibt alle Kurse in der Datenbank zurück.
+     * Die Liste ist eine Momentaufnahme und wird von späteren Änderungen an der Datenbank nicht beeinflusst.
      *
      * @return Eine Liste aller Kurse.
      */
     public List<Course> findAll() {
-        return new java.util.ArrayList<>(courseDatabase.values());
+        findAllCalls.increment();
+        return courseDatabase.values();
+    }
+
+    /**
+     * Liefert eine Seite der Kurse, in derselben Reihenfolge wie {@link #iterator()}.
+     * Werden zwischen zwei Seiten Kurse gelöscht, verschieben sich die folgenden Seiten; für einen lückenlosen
+     * Durchlauf unter gleichzeitigen Änderungen ist {@link #iterator()} vorzuziehen.
+     *
+     * @param offset Die Anzahl der zu überspringenden Kurse; nicht negativ.
+     * @param limit  Die maximale Anzahl der Kurse der Seite; nicht negativ.
+     * @return Eine Liste mit höchstens {@code limit} Kurse.
+     * @throws IllegalArgumentException wenn {@code offset} oder {@code limit} negativ ist.
+     */
+    public List<Course> findAll(final int offset, final int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        findAllCalls.increment();
+        return courseDatabase.page(offset, limit);
+    }
+
+    /**
+     * Liefert einen Cursor über alle Kurse, in der Reihenfolge, in der ihre IDs zum ersten Mal gespeichert wurden;
+     * eine neue ID nimmt den Platz der zuletzt gelöschten ein.
+     * Es wird keine Kopie angelegt und keine Sperre über den ganzen Durchlauf gehalten; gleichzeitige Änderungen
+     * sind erlaubt. Jeder Kurs, der während des ganzen Durchlaufs gespeichert ist, wird genau einmal geliefert.
+     *
+     * @return Der Cursor.
+     */
+    @Override
+    public Iterator<Course> iterator() {
+        findAllCalls.increment();
+        return courseDatabase.iterator();
+    }
+
+    /**
+     * Liefert einen {@link Spliterator} über alle Kurse, siehe {@link #iterator()}.
+     *
+     * @return Der Spliterator.
+     */
+    @Override
+    public Spliterator<Course> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * Liefert einen sequentiellen Stream über alle Kurse, siehe {@link #iterator()}.
+     *
+     * @return Der Stream.
+     */
+    public Stream<Course> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Zählt die Kurse, ohne sie zu kopieren.
+     *
+     * @return Die Anzahl der Kurse.
+     */
+    public int count() {
+        return courseDatabase.size();
+    }
+
+    /**
+     * Findet alle Kurse eines Lehrers.
+     *
+     * @param teacherId Die ID des Lehrers.
+     * @return Eine Liste aller Kurse, die der Lehrer unterrichtet.
+     */
+    public List<Course> findByTeacherId(final String teacherId) {
+        if (teacherId == null) {
+            return List.of();
+        }
+        return List.copyOf(coursesByTeacher.getOrDefault(teacherId, java.util.Map.of()).values());
+    }
+
+    /**
+     * Zählt die Kurse eines Lehrers.
+     *
+     * @param teacherId Die ID des Lehrers.
+     * @return Die Anzahl der Kurse, die der Lehrer unterrichtet.
+     */
+    public int countByTeacherId(final String teacherId) {
+        if (teacherId == null) {
+            return 0;
+        }
+        return coursesByTeacher.getOrDefault(teacherId, java.util.Map.of()).size();
+    }
+
+    /**
+     * Liefert einen Versionszähler der Durchschnittsnoten aller gespeicherten Kurse.
+     * Der Zähler ändert sich, sobald ein Kurs gespeichert oder gelöscht wird oder sich in einem gespeicherten Kurs
+     * eine Note ändert oder ein Student abgemeldet wird.
+     *
+     * @return Die aktuelle Version.
+     */
+    public long getAverageGradeVersion() {
+        return averageGradeVersion.get();
+    }
+
+    /**
+     * Registriert einen Listener, der über jedes Speichern und Löschen benachrichtigt wird.
+     *
+     * @param listener Der Listener.
+     */
+    public void addListener(final RepositoryListener<Course> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Entfernt einen zuvor registrierten Listener.
+     *
+     * @param listener Der Listener.
+     */
+    public void removeListener(final RepositoryListener<Course> listener) {
+        listeners.remove(listener);
+    }
+
+    private void index(final Course course) {
+        if (course.getTeacher() != null && course.getTeacher().id() != null) {
+            coursesByTeacher.compute(course.getTeacher().id(), (teacherId, courses) -> {
+                java.util.Map<String, Course> group = courses != null ? courses : new java.util.concurrent.ConcurrentHashMap<>();
+                group.put(course.getId(), course);
+                return group;
+            });
+        }
+    }
+
+    private void unindex(final Course course) {
+        if (course.getTeacher() != null && course.getTeacher().id() != null) {
+            coursesByTeacher.computeIfPresent(course.getTeacher().id(), (teacherId, courses) -> {
+                courses.remove(course.getId());
+                return courses.isEmpty() ? null : courses;
+            });
+        }
     }
 }
@@ -0,0 +1,308 @@
+package ckollmeier.de.Repositories;
+
+import ckollmeier.de.Util.IdInterner;
+import ckollmeier.de.Util.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Threadsichere Tabelle der Entitäten eines Repositories nach ihrer String-ID.
+ * Die IDs werden über einen {@link IdInterner} auf dichte Handles abgebildet, die Entitäten liegen in einer
+ * {@link IntObjectHashMap} nach diesem Handle. Es gibt also keinen Map-Eintrag als Objekt je Entität.
+ *
+ * <p>Lesende Zugriffe laufen zunächst ohne Sperre über einen optimistischen Lesestempel und werden nur wiederholt,
+ * wenn währenddessen geschrieben wurde. Schreibende Zugriffe auf dieselbe ID sind über eine Sperre je ID
+ * (gestreift) serialisiert; die Änderungsfunktion von {@link #compute} läuft unter dieser Sperre, bevor die neue
+ * Entität sichtbar wird. Die gemeinsame Sperre der Tabelle wird nur für das Eintragen selbst genommen, sodass
+ * aufwendige Änderungsfunktionen, etwa Listener der Repositories, keine Zugriffe auf andere IDs aufhalten.</p>
+ *
+ * <p>Wird eine Entität entfernt, wird auch das Handle ihrer ID freigegeben und für die nächste neue ID
+ * wiederverwendet; gelöschte IDs belegen also keinen Speicher, und die Handles bleiben dicht. Durchlaufen wird in
+ * der Reihenfolge der Handles. Da das Handle einer enthaltenen Entität sich nicht ändert, sieht ein
+ * {@link #iterator() Cursor} jede Entität, die während des ganzen Durchlaufs enthalten ist, genau einmal, auch wenn
+ * gleichzeitig geschrieben wird.</p>
+ *
+ * @param <V> Der Typ der Entitäten.
+ */
+final class IdTable<V> {
+    /**
+     * Anzahl der Sperren für die Änderungen an einzelnen IDs; eine Zweierpotenz.
+     */
+    private static final int ID_LOCKS = 64;
+
+    /**
+     * Die Handles der IDs.
+     */
+    private final IdInterner ids = new IdInterner();
+    /**
+     * Die Entitäten nach dem Handle ihrer ID.
+     */
+    private final IntObjectHashMap<V> entities = new IntObjectHashMap<>();
+    /**
+     * Sperre für beide Strukturen.
+     */
+    private final StampedLock lock = new StampedLock();
+    /**
+     * Sperren, die die Änderungen an derselben ID serialisieren; jede ID gehört über ihren Hashwert zu einer.
+     */
+    private final ReentrantLock[] idLocks = new ReentrantLock[ID_LOCKS];
+
+    /**
+     * Erzeugt eine leere Tabelle.
+     */
+    IdTable() {
+        for (int i = 0; i < idLocks.length; i++) {
+            idLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Liefert die Entität mit der gegebenen ID.
+     *
+     * @param id Die ID.
+     * @return Die Entität oder {@code null}.
+     */
+    V get(final String id) {
+        return read(() -> {
+            int handle = ids.find(id);
+            return handle == IdInterner.NOT_FOUND ? null : entities.get(handle);
+        });
+    }
+
+    /**
+     * Ersetzt die Entität mit der gegebenen ID atomar gegenüber anderen Änderungen an dieser ID.
+     * Lesende Zugriffe sehen die neue Entität erst, nachdem {@code remapping} zurückgekehrt ist.
+     *
+     * @param id        Die ID.
+     * @param remapping Bildet die bisherige Entität oder {@code null} auf die neue ab; {@code null} entfernt sie.
+     * @return Die neue Entität oder {@code null}.
+     */
+    V compute(final String id, final UnaryOperator<V> remapping) {
+        ReentrantLock idLock = idLock(id);
+        idLock.lock();
+        try {
+            V previous = get(id);
+            V value = remapping.apply(previous);
+            if (value != null || previous != null) {
+                store(id, value);
+            }
+            return value;
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    /**
+     * Ersetzt die Entität mit der gegebenen ID atomar gegenüber anderen Änderungen an dieser ID, falls es sie gibt.
+     * Lesende Zugriffe sehen die Änderung erst, nachdem {@code remapping} zurückgekehrt ist.
+     *
+     * @param id        Die ID.
+     * @param remapping Bildet die bisherige Entität auf die neue ab; {@code null} entfernt sie.
+     * @return Die neue Entität oder {@code null}.
+     */
+    V computeIfPresent(final String id, final UnaryOperator<V> remapping) {
+        ReentrantLock idLock = idLock(id);
+        idLock.lock();
+        try {
+            V previous = get(id);
+            if (previous == null) {
+                return null;
+            }
+            V value = remapping.apply(previous);
+            store(id, value);
+            return value;
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    private void store(final String id, final V value) {
+        long stamp = lock.writeLock();
+        try {
+            int handle = ids.find(id);
+            if (value != null) {
+                entities.put(handle == IdInterner.NOT_FOUND ? ids.intern(id) : handle, value);
+            } else if (handle != IdInterner.NOT_FOUND) {
+                entities.remove(handle);
+                ids.release(handle);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private ReentrantLock idLock(final String id) {
+        int hash = id.hashCode();
+        return idLocks[(hash ^ (hash >>> 16)) & (ID_LOCKS - 1)];
+    }
+
+    /**
+     * Liefert alle Entitäten als Momentaufnahme.
+     *
+     * @return Eine neue Liste aller Entitäten, in keiner bestimmten Reihenfolge.
+     */
+    List<V> values() {
+        return read(entities::values);
+    }
+
+    /**
+     * Liefert einen Cursor über alle Entitäten. Er liest blockweise unter einem optimistischen Lesestempel und hält
+     * zwischen den Blöcken keine Sperre, die Entitäten können also währenddessen verändert werden.
+     * Gelöschte Entitäten werden übersprungen, neu gespeicherte können gesehen werden.
+     *
+     * @return Der Cursor; {@link Iterator#remove()} wird nicht unterstützt.
+     */
+    Iterator<V> iterator() {
+        return new Cursor();
+    }
+
+    /**
+     * Liefert einen sequentiellen Stream über alle Entitäten, siehe {@link #iterator()}.
+     *
+     * @return Der Stream.
+     */
+    Stream<V> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Liefert eine Seite der Entitäten in der Reihenfolge der Handles.
+     *
+     * @param offset Die Anzahl der zu überspringenden Entitäten.
+     * @param limit  Die maximale Anzahl der Entitäten der Seite.
+     * @return Eine neue Liste mit höchstens {@code limit} Entitäten.
+     */
+    List<V> page(final int offset, final int limit) {
+        return read(() -> {
+            List<V> result = new ArrayList<>(Math.min(limit, entities.size()));
+            int skipped = 0;
+            for (int handle = 0, handles = ids.limit(); handle < handles && result.size() < limit; handle++) {
+                V value = entities.get(handle);
+                if (value != null && skipped++ >= offset) {
+                    result.add(value);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Liefert die Anzahl der Entitäten.
+     *
+     * @return Die Anzahl.
+     */
+    int size() {
+        return read(entities::size);
+    }
+
+    /**
+     * Cursor über die Entitäten in der Reihenfolge ihrer Handles, siehe {@link #iterator()}.
+     */
+    private final class Cursor implements Iterator<V> {
+        /**
+         * Anzahl der Handles, die pro Block gelesen werden.
+         */
+        private static final int CHUNK_SIZE = 64;
+        /**
+         * Die Entitäten des aktuellen Blocks.
+         */
+        private final Object[] chunk = new Object[CHUNK_SIZE];
+        /**
+         * Die Position der nächsten Entität im Block.
+         */
+        private int position;
+        /**
+         * Die Anzahl der Entitäten im Block.
+         */
+        private int length;
+        /**
+         * Das erste Handle des nächsten Blocks.
+         */
+        private int nextHandle;
+        /**
+         * Das Handle nach dem zuletzt gelesenen, während eines Leseversuchs.
+         */
+        private int scanned;
+        /**
+         * Gibt an, ob alle Handles gelesen wurden.
+         */
+        private boolean exhausted;
+
+        @Override
+        public boolean hasNext() {
+            while (position == length) {
+                if (exhausted) {
+                    return false;
+                }
+                fill();
+            }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) chunk[position];
+            chunk[position++] = null;
+            return value;
+        }
+
+        private void fill() {
+            int from = nextHandle;
+            length = read(() -> {
+                int handles = ids.limit();
+                int handle = from;
+                int count = 0;
+                while (handle < handles && count < CHUNK_SIZE) {
+                    V value = entities.get(handle++);
+                    if (value != null) {
+                        chunk[count++] = value;
+                    }
+                }
+                scanned = handle;
+                return count;
+            });
+            position = 0;
+            exhausted = scanned == from;
+            nextHandle = scanned;
+        }
+    }
+
+    private <R> R read(final Supplier<R> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                R result = reader.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // Während des Lesens wurde geschrieben und ein inkonsistenter Zustand gesehen; mit Sperre wiederholen.
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
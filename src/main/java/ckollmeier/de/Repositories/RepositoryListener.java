@@ -0,0 +1,24 @@
+package ckollmeier.de.Repositories;
+
+/**
+ * Listener, der über Änderungen an einem Repository benachrichtigt wird.
+ * Die Benachrichtigung erfolgt atomar mit der Änderung, für dieselbe ID also in der Reihenfolge der Änderungen.
+ * Während der Benachrichtigung ist das Repository gesperrt; der Listener darf es daher nicht selbst aufrufen.
+ *
+ * @param <T> Der Typ der gespeicherten Entitäten.
+ */
+public interface RepositoryListener<T> {
+    /**
+     * Wird aufgerufen, nachdem eine Entität gespeichert wurde.
+     *
+     * @param entity Die gespeicherte Entität.
+     */
+    void saved(T entity);
+
+    /**
+     * Wird aufgerufen, nachdem eine Entität gelöscht wurde.
+     *
+     * @param id Die ID der gelöschten Entität.
+     */
+    void deleted(String id);
+}
@@ -0,0 +1,131 @@
+package ckollmeier.de.Repositories;
+
+import ckollmeier.de.Entities.AverageGradeListener;
+import ckollmeier.de.Entities.Student;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sortierter Index der Studenten nach ihrer Durchschnittsnote.
+ * Der Index meldet sich bei jedem indizierten Studenten als {@link AverageGradeListener} an
+ * und wird so bei der Anmeldung, der Abmeldung und jeder Notenänderung aktualisiert.
+ */
+final class StudentGradeIndex implements AverageGradeListener {
+    /**
+     * Studenten gruppiert nach Durchschnittsnote, aufsteigend sortiert (beste Note zuerst).
+     */
+    private final ConcurrentSkipListMap<BigDecimal, Map<String, Student>> studentsByAverage = new ConcurrentSkipListMap<>();
+    /**
+     * Zähler, der bei jeder Änderung des Index erhöht wird.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Nimmt einen Studenten in den Index auf.
+     *
+     * @param student Der aufzunehmende Student.
+     */
+    void add(final Student student) {
+        student.addAverageGradeListener(this);
+    }
+
+    /**
+     * Entfernt einen Studenten aus dem Index.
+     *
+     * @param student Der zu entfernende Student.
+     */
+    void remove(final Student student) {
+        student.removeAverageGradeListener(this);
+    }
+
+    @Override
+    public void averageGradeChanged(final Student student, final BigDecimal oldAverage, final BigDecimal newAverage) {
+        if (oldAverage != null) {
+            delete(oldAverage, student);
+        }
+        if (newAverage != null) {
+            put(newAverage, student);
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Liefert die Version des Index. Sie ändert sich, sobald ein Student aufgenommen, entfernt oder neu einsortiert wird.
+     *
+     * @return Die aktuelle Version.
+     */
+    long version() {
+        return version.get();
+    }
+
+    /**
+     * Findet alle Studenten, deren Durchschnittsnote zwischen den gegebenen Noten liegt (jeweils inklusive).
+     *
+     * @param from Die beste Note des Bereichs.
+     * @param to   Die schlechteste Note des Bereichs.
+     * @return Die Studenten im Bereich, aufsteigend nach Durchschnittsnote sortiert.
+     */
+    List<Student> findBetween(final BigDecimal from, final BigDecimal to) {
+        if (from.compareTo(to) > 0) {
+            return List.of();
+        }
+        return flatten(studentsByAverage.subMap(from, true, to, true).values(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Findet alle Studenten, deren Durchschnittsnote besser oder gleich der gegebenen Note ist.
+     *
+     * @param grade Die Vergleichsnote.
+     * @return Die Studenten, aufsteigend nach Durchschnittsnote sortiert.
+     */
+    List<Student> findBetterOrEquals(final BigDecimal grade) {
+        NavigableMap<BigDecimal, Map<String, Student>> head = studentsByAverage.headMap(grade, true);
+        return flatten(head.values(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Findet die besten Studenten nach Durchschnittsnote.
+     *
+     * @param limit Die maximale Anzahl der Studenten.
+     * @return Höchstens {@code limit} Studenten, aufsteigend nach Durchschnittsnote sortiert.
+     */
+    List<Student> findTop(final int limit) {
+        return flatten(studentsByAverage.values(), limit);
+    }
+
+    private void put(final BigDecimal average, final Student student) {
+        studentsByAverage.compute(average, (key, students) -> {
+            Map<String, Student> group = students != null ? students : new ConcurrentHashMap<>();
+            group.put(student.getId(), student);
+            return group;
+        });
+    }
+
+    private void delete(final BigDecimal average, final Student student) {
+        studentsByAverage.computeIfPresent(average, (key, students) -> {
+            students.remove(student.getId(), student);
+            return students.isEmpty() ? null : students;
+        });
+    }
+
+    private static List<Student> flatten(final Collection<Map<String, Student>> groups, final int limit) {
+        List<Student> result = new ArrayList<>();
+        for (Map<String, Student> group : groups) {
+            for (Student student : group.values()) {
+                if (result.size() >= limit) {
+                    return result;
+                }
+                result.add(student);
+            }
+        }
+        return result;
+    }
+}
@@ -1,17 +1,73 @@
 package ckollmeier.de.Repositories;
 
+import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Metrics.Counter;
+import ckollmeier.de.Metrics.MeterRegistry;
 
-public class StudentRepository {
+public class StudentRepository implements Iterable<Student> {
     /**
      * Datenbank zur Speicherung der Studenten.
      */
-    private final Map<String, Student> studentDatabase = new HashMap<>();
+    private final IdTable<Student> studentDatabase = new IdTable<>();
+    /**
+     * Sortierter Index der Studenten nach Durchschnittsnote.
+     */
+    private final StudentGradeIndex gradeIndex = new StudentGradeIndex();
+    /**
+     * Registered listeners.
+     */
+    private final List<RepositoryListener<Student>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Counts the calls of {@link #findById}.
+     */
+    private final Counter findByIdCalls;
+    /**
+     * Counts the calls of {@link #findAll} and the iterations over all students.
+     */
+    private final Counter findAllCalls;
+    /**
+     * Counts the calls of {@link #save}.
+     */
+    private final Counter saveCalls;
+    /**
+     * Counts the calls of {@link #deleteById}.
+     */
+    private final Counter deleteByIdCalls;
+
+    /**
+     * Creates an empty repository without metrics.
+     */
+    public StudentRepository() {
+        this(MeterRegistry.DISABLED);
+    }
+
+    /**
+     * Creates an empty repository which measures calls and size in the given registry.
+     *
+     * @param registry the registry for the metrics
+     */
+    public StudentRepository(final MeterRegistry registry) {
+        findByIdCalls = registry.counter("repository.students.findById");
+        findAllCalls = registry.counter("repository.students.findAll");
+        saveCalls = registry.counter("repository.students.save");
+        deleteByIdCalls = registry.counter("repository.students.deleteById");
+        registry.gauge("repository.students.size", studentDatabase::size);
+    }
 
     /**
      * Saves a student to the repository.
@@ -19,8 +75,16 @@ public class StudentRepository {
      * @param student the student to save; must not be null and must contain a valid ID
      */
     public void save(final Student student) {
+        saveCalls.increment();
         if (student != null && student.getId() != null) {
-            studentDatabase.put(student.getId(), student);
+            studentDatabase.compute(student.getId(), previous -> {
+                if (previous != null) {
+                    gradeIndex.remove(previous);
+                }
+                gradeIndex.add(student);
+                listeners.forEach(listener -> listener.saved(student));
+                return student;
+            });
         }
     }
 
@@ -31,23 +95,178 @@ public class StudentRepository {
      * @return an Optional containing the student associated with the given ID, or an empty Optional if no such student exists
      */
     public Optional<Student> findById(final String id) {
+        findByIdCalls.increment();
+        if (id == null) {
+            return Optional.empty();
+        }
         return Optional.ofNullable(studentDatabase.get(id));
     }
 
+    /**
+     * Finds all students with the given IDs in a single pass.
+     * Unknown and {@code null} IDs are left out of the result.
+     *
+     * @param ids the IDs of the students to find
+     * @return a map from ID to student containing every student that was found
+     */
+    public Map<String, Student> findAllById(final Collection<String> ids) {
+        Map<String, Student> found = new HashMap<>((int) (ids.size() / 0.75f) + 1);
+        for (String id : ids) {
+            if (id != null) {
+                Student student = studentDatabase.get(id);
+                if (student != null) {
+                    found.put(id, student);
+                }
+            }
+        }
+        return found;
+    }
+
     /**
      * Deletes a student from the repository by their ID.
      *
      * @param id the ID of the student to be deleted
      */
     public void deleteById(final String id) {
-        studentDatabase.remove(id);
+        deleteByIdCalls.increment();
+        if (id == null) {
+            return;
+        }
+        studentDatabase.computeIfPresent(id, removed -> {
+            gradeIndex.remove(removed);
+            listeners.forEach(listener -> listener.deleted(id));
+            return null;
+        });
     }
+
     /**
      * Finds all students in the repository.
+     * The returned collection is an unmodifiable snapshot which is not affected by later changes to the repository.
      *
      * @return a collection of all students
      */
     public Collection<Student> findAll() {
-        return studentDatabase.values();
+        findAllCalls.increment();
+        return Collections.unmodifiableList(studentDatabase.values());
+    }
+
+    /**
+     * Returns a page of students, in the same order as {@link #iterator()}.
+     * If students are deleted between two pages, the following pages shift; to visit every student under concurrent
+     * modification, prefer {@link #iterator()}.
+     *
+     * @param offset the number of students to skip; not negative
+     * @param limit  the maximum number of students on the page; not negative
+     * @return a list of at most {@code limit} students
+     * @throws IllegalArgumentException if {@code offset} or {@code limit} is negative
+     */
+    public List<Student> findAll(final int offset, final int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        findAllCalls.increment();
+        return studentDatabase.page(offset, limit);
+    }
+
+    /**
+     * Returns a cursor over all students, in the order in which their IDs were first saved; a new ID takes the place
+     * of the most recently deleted one.
+     * No copy is made and no lock is held for the whole iteration, so the repository may be modified concurrently.
+     * Every student that is stored during the whole iteration is returned exactly once.
+     *
+     * @return the cursor
+     */
+    @Override
+    public Iterator<Student> iterator() {
+        findAllCalls.increment();
+        return studentDatabase.iterator();
+    }
+
+    /**
+     * Returns a {@link Spliterator} over all students, see {@link #iterator()}.
+     *
+     * @return the spliterator
+     */
+    @Override
+    public Spliterator<Student> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns a sequential stream over all students, see {@link #iterator()}.
+     *
+     * @return the stream
+     */
+    public Stream<Student> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Counts the students without copying them.
+     *
+     * @return the number of students
+     */
+    public int count() {
+        return studentDatabase.size();
+    }
+
+    /**
+     * Finds all students whose average grade is better than or equal to the given grade.
+     *
+     * @param grade the grade to compare against
+     * @return the matching students, sorted by average grade with the best grade first
+     */
+    public List<Student> findByAverageGradeBetterOrEquals(final BigDecimal grade) {
+        return gradeIndex.findBetterOrEquals(grade);
+    }
+
+    /**
+     * Finds all students whose average grade lies within the given range (both bounds inclusive).
+     *
+     * @param from the best grade of the range
+     * @param to   the worst grade of the range
+     * @return the matching students, sorted by average grade with the best grade first
+     */
+    public List<Student> findByAverageGradeBetween(final BigDecimal from, final BigDecimal to) {
+        return gradeIndex.findBetween(from, to);
+    }
+
+    /**
+     * Finds the students with the best average grades.
+     *
+     * @param limit the maximum number of students to return
+     * @return at most {@code limit} students, sorted by average grade with the best grade first
+     */
+    public List<Student> findTopByAverageGrade(final int limit) {
+        return gradeIndex.findTop(limit);
+    }
+
+    /**
+     * Returns a version counter of the average grades of the stored students.
+     * The counter changes whenever a student with an average grade is saved or deleted or the average grade of a stored
+     * student changes, i.e. whenever the result of one of the average grade queries may have changed.
+     *
+     * @return the current version
+     */
+    public long getAverageGradeVersion() {
+        return gradeIndex.version();
+    }
+
+    /**
+     * Registers a listener which is notified about every save and delete.
+     *
+     * @param listener the listener
+     */
+    public void addListener(final RepositoryListener<Student> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(final RepositoryListener<Student> listener) {
+        listeners.remove(listener);
     }
 }
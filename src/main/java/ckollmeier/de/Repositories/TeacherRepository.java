@@ -1,14 +1,63 @@
 package ckollmeier.de.Repositories;
 
 import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Metrics.Counter;
+import ckollmeier.de.Metrics.MeterRegistry;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class TeacherRepository {
+public class TeacherRepository implements Iterable<Teacher> {
     /**
      * Datenbank zur Speicherung der Lehrer.
      */
-    private final java.util.Map<String, Teacher> teacherDatabase = new java.util.HashMap<>();
+    private final IdTable<Teacher> teacherDatabase = new IdTable<>();
+    /**
+     * Die registrierten Listener.
+     */
+    private final List<RepositoryListener<Teacher>> listeners = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+    /**
+     * Zählt die Aufrufe von {@link #findById}.
+     */
+    private final Counter findByIdCalls;
+    /**
+     * Zählt die Aufrufe von {@link #findAll} und die Durchläufe über alle Lehrer.
+     */
+    private final Counter findAllCalls;
+    /**
+     * Zählt die Aufrufe von {@link #save}.
+     */
+    private final Counter saveCalls;
+    /**
+     * Zählt die Aufrufe von {@link #deleteById}.
+     */
+    private final Counter deleteByIdCalls;
+
+    /**
+     * Erzeugt ein leeres Repository ohne Messwerte.
+     */
+    public TeacherRepository() {
+        this(MeterRegistry.DISABLED);
+    }
+
+    /**
+     * Erzeugt ein leeres Repository, das Aufrufe und Größe in der gegebenen Registry misst.
+     *
+     * @param registry Die Registry für die Messwerte.
+     */
+    public TeacherRepository(final MeterRegistry registry) {
+        findByIdCalls = registry.counter("repository.teachers.findById");
+        findAllCalls = registry.counter("repository.teachers.findAll");
+        saveCalls = registry.counter("repository.teachers.save");
+        deleteByIdCalls = registry.counter("repository.teachers.deleteById");
+        registry.gauge("repository.teachers.size", teacherDatabase::size);
+    }
 
     /**
      * Speichert einen Lehrer in der Datenbank.
@@ -16,8 +65,12 @@ public class TeacherRepository {
      * @param teacher Der zu speichernde Lehrer.
      */
     public void save(final Teacher teacher) {
+        saveCalls.increment();
         if (teacher != null && teacher.id() != null) {
-            teacherDatabase.put(teacher.id(), teacher);
+            teacherDatabase.compute(teacher.id(), previous -> {
+                listeners.forEach(listener -> listener.saved(teacher));
+                return teacher;
+            });
         }
     }
 
@@ -28,6 +81,10 @@ public class TeacherRepository {
      * @return Ein Optional mit dem Lehrer mit der gegebenen ID oder ein leeres Optional, falls kein solcher Lehrer existiert.
      */
     public Optional<Teacher> findById(final String id) {
+        findByIdCalls.increment();
+        if (id == null) {
+            return Optional.empty();
+        }
         return Optional.ofNullable(teacherDatabase.get(id));
     }
 
@@ -37,16 +94,101 @@ public class TeacherRepository {
      * @param id Die ID des zu löschenden Lehrers.
      */
     public void deleteById(final String id) {
-        teacherDatabase.remove(id);
+        deleteByIdCalls.increment();
+        if (id != null) {
+            teacherDatabase.computeIfPresent(id, removed -> {
+                listeners.forEach(listener -> listener.deleted(id));
+                return null;
+            });
+        }
     }
 
     /**
      * Gibt alle Lehrer in der Datenbank zurück.
+     * Die Liste ist eine Momentaufnahme und wird von späteren Änderungen an der Datenbank nicht beeinflusst.
      *
      * @return Eine Liste aller Lehrer.
      */
-    public java.util.List<Teacher> findAll() {
-        return new java.util.ArrayList<>(teacherDatabase.values());
+    public List<Teacher> findAll() {
+        findAllCalls.increment();
+        return teacherDatabase.values();
     }
-}
 
+    /**
+     * Liefert eine Seite der Lehrer, in derselben Reihenfolge wie {@link #iterator()}.
+     * Werden zwischen zwei Seiten Lehrer gelöscht, verschieben sich die folgenden Seiten; für einen lückenlosen
+     * Durchlauf unter gleichzeitigen Änderungen ist {@link #iterator()} vorzuziehen.
+     *
+     * @param offset Die Anzahl der zu überspringenden Lehrer; nicht negativ.
+     * @param limit  Die maximale Anzahl der Lehrer der Seite; nicht negativ.
+     * @return Eine Liste mit höchstens {@code limit} Lehrer.
+     * @throws IllegalArgumentException wenn {@code offset} oder {@code limit} negativ ist.
+     */
+    public List<Teacher> findAll(final int offset, final int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        findAllCalls.increment();
+        return teacherDatabase.page(offset, limit);
+    }
+
+    /**
+     * Liefert einen Cursor über alle Lehrer, in der Reihenfolge, in der ihre IDs zum ersten Mal gespeichert wurden;
+     * eine neue ID nimmt den Platz der zuletzt gelöschten ein.
+     * Es wird keine Kopie angelegt und keine Sperre über den ganzen Durchlauf gehalten; gleichzeitige Änderungen
+     * sind erlaubt. Jeder Lehrer, der während des ganzen Durchlaufs gespeichert ist, wird genau einmal geliefert.
+     *
+     * @return Der Cursor.
+     */
+    @Override
+    public Iterator<Teacher> iterator() {
+        findAllCalls.increment();
+        return teacherDatabase.iterator();
+    }
+
+    /**
+     * Liefert einen {@link Spliterator} über alle Lehrer, siehe {@link #iterator()}.
+     *
+     * @return Der Spliterator.
+     */
+    @Override
+    public Spliterator<Teacher> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * Liefert einen sequentiellen Stream über alle Lehrer, siehe {@link #iterator()}.
+     *
+     * @return Der Stream.
+     */
+    public Stream<Teacher> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Zählt die Lehrer, ohne sie zu kopieren.
+     *
+     * @return Die Anzahl der Lehrer.
+     */
+    public int count() {
+        return teacherDatabase.size();
+    }
+
+    /**
+     * Registriert einen Listener, der über jedes Speichern und Löschen benachrichtigt wird.
+     *
+     * @param listener Der Listener.
+     */
+    public void addListener(final RepositoryListener<Teacher> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Entfernt einen zuvor registrierten Listener.
+     *
+     * @param listener Der Listener.
+     */
+    public void removeListener(final RepositoryListener<Teacher> listener) {
+        listeners.remove(listener);
+    }
+}
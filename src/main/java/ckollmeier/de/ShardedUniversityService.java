@@ -0,0 +1,292 @@
+package ckollmeier.de;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.GradeAggregate;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Service over several independent shards, each with its own repositories, {@link UniversityService} and executor.
+ * Teachers, courses and students are placed on a shard by their ID, by default by its hash. A custom router can
+ * place them by university instead, for example by a prefix of the ID.
+ *
+ * <p>Calls on a single entity run on the executor of its shard. Queries are scattered to all shards and their partial
+ * results are gathered: the average grade merges the {@link GradeAggregate} of each shard, so it is exactly the same
+ * as if all courses were held by one service. Students may be enrolled in courses of other shards; their average
+ * grade is maintained by their own shard.</p>
+ */
+public final class ShardedUniversityService implements AutoCloseable {
+    /**
+     * The shards, indexed by the result of the router.
+     */
+    private final List<Shard> shards;
+    /**
+     * Maps an ID to the index of its shard.
+     */
+    private final ToIntFunction<String> router;
+
+    /**
+     * Creates a service with empty shards that places entities by the hash of their ID.
+     *
+     * @param shardCount      The number of shards; must be positive.
+     * @param threadsPerShard The number of threads of the executor of each shard; must be positive.
+     */
+    public ShardedUniversityService(final int shardCount, final int threadsPerShard) {
+        this(shardCount, threadsPerShard, id -> Math.floorMod(id.hashCode(), shardCount));
+    }
+
+    /**
+     * Creates a service with empty shards that places entities by the given router.
+     *
+     * @param shardCount      The number of shards; must be positive.
+     * @param threadsPerShard The number of threads of the executor of each shard; must be positive.
+     * @param router          Maps the ID of a teacher, course or student to the index of its shard, between 0 and
+     *                        {@code shardCount - 1}. Must always return the same shard for the same ID.
+     */
+    public ShardedUniversityService(final int shardCount, final int threadsPerShard,
+                                    final ToIntFunction<String> router) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        if (threadsPerShard <= 0) {
+            throw new IllegalArgumentException("threadsPerShard must be positive: " + threadsPerShard);
+        }
+        this.router = router;
+        List<Shard> created = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            String threadName = "university-shard-" + i;
+            TeacherRepository teachers = new TeacherRepository();
+            CourseRepository courses = new CourseRepository();
+            StudentRepository students = new StudentRepository();
+            created.add(new Shard(courses, students, new UniversityService(teachers, courses, students),
+                    Executors.newFixedThreadPool(threadsPerShard, runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    })));
+        }
+        this.shards = List.copyOf(created);
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return The number of shards.
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Returns the shard an ID is placed on.
+     *
+     * @param id The ID of a teacher, course or student.
+     * @return The index of the shard.
+     * @throws IllegalArgumentException if the router returns an index outside of the shards.
+     */
+    public int shardOf(final String id) {
+        int shard = router.applyAsInt(id);
+        if (shard < 0 || shard >= shards.size()) {
+            throw new IllegalArgumentException("No shard " + shard + " for ID: " + id);
+        }
+        return shard;
+    }
+
+    /**
+     * Creates and saves a student on its shard, see {@link UniversityService#createStudent(Student)}.
+     *
+     * @param student The student to be created.
+     * @return A future which completes once the student is saved.
+     */
+    public CompletableFuture<Void> createStudent(final Student student) {
+        Shard shard = shards.get(shardOf(student.getId()));
+        return CompletableFuture.runAsync(() -> shard.service().createStudent(student), shard.executor());
+    }
+
+    /**
+     * Creates and saves a teacher on its shard, see {@link UniversityService#createTeacher(Teacher)}.
+     *
+     * @param teacher The teacher to be created.
+     * @return A future which completes once the teacher is saved.
+     */
+    public CompletableFuture<Void> createTeacher(final Teacher teacher) {
+        Shard shard = shards.get(shardOf(teacher.id()));
+        return CompletableFuture.runAsync(() -> shard.service().createTeacher(teacher), shard.executor());
+    }
+
+    /**
+     * Creates and saves a course on its shard, see {@link UniversityService#createCourse(Course)}.
+     *
+     * @param course The course to be created.
+     * @return A future which completes once the course is saved.
+     */
+    public CompletableFuture<Void> createCourse(final Course course) {
+        Shard shard = shards.get(shardOf(course.getId()));
+        return CompletableFuture.runAsync(() -> shard.service().createCourse(course), shard.executor());
+    }
+
+    /**
+     * Adds students to a course, see {@link UniversityService#addStudentsToCourse(String, List)}.
+     * The students are looked up on their shards first; either all students are added or none.
+     *
+     * @param courseId   The ID of the course.
+     * @param studentIds The IDs of the students, which may be placed on other shards than the course.
+     * @return A future which completes once the students are enrolled, or completes exceptionally with an
+     * {@link IllegalArgumentException} if the course or a student is not found.
+     */
+    public CompletableFuture<Void> addStudentsToCourse(final String courseId, final List<String> studentIds) {
+        Map<Integer, List<String>> idsByShard = new HashMap<>();
+        for (String studentId : studentIds) {
+            idsByShard.computeIfAbsent(shardOf(studentId), shard -> new ArrayList<>()).add(studentId);
+        }
+        List<CompletableFuture<Map<String, Student>>> lookups = new ArrayList<>(idsByShard.size());
+        idsByShard.forEach((index, ids) -> {
+            Shard shard = shards.get(index);
+            lookups.add(CompletableFuture.supplyAsync(() -> shard.students().findAllById(ids), shard.executor()));
+        });
+
+        Shard courseShard = shards.get(shardOf(courseId));
+        return gather(lookups).thenAcceptAsync(found -> {
+            Map<String, Student> students = new HashMap<>();
+            found.forEach(students::putAll);
+            var course = courseShard.courses().findById(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+            for (String studentId : studentIds) {
+                if (!students.containsKey(studentId)) {
+                    throw new IllegalArgumentException("Student not found with ID: " + studentId);
+                }
+            }
+            course.addStudents(students.values());
+        }, courseShard.executor());
+    }
+
+    /**
+     * Calculates the average grade of all courses on all shards, see {@link UniversityService#calculateAverageGrade()}.
+     * The partial aggregates of the shards are merged exactly, so the result does not depend on the placement.
+     *
+     * @return A future with the average grade, or an empty Optional if no course has a grade.
+     */
+    public CompletableFuture<Optional<BigDecimal>> calculateAverageGrade() {
+        return scatter(UniversityService::averageGradeAggregate).thenApply(partials -> {
+            GradeAggregate aggregate = new GradeAggregate();
+            partials.forEach(aggregate::merge);
+            return aggregate.average();
+        });
+    }
+
+    /**
+     * Retrieves the students of all shards whose average grade is better than or equals to the given grade,
+     * see {@link UniversityService#getStudentsWithAverageGradeBetterOrEquals(BigDecimal)}.
+     *
+     * @param grade The grade to compare the students' average grade against.
+     * @return A future with an unmodifiable list of the students, best grade first.
+     */
+    public CompletableFuture<List<Student>> getStudentsWithAverageGradeBetterOrEquals(final BigDecimal grade) {
+        return scatter(service -> service.getStudentsWithAverageGradeBetterOrEquals(grade))
+                .thenApply(parts -> mergeByAverageGrade(parts, average -> average.compareTo(grade) <= 0,
+                        Integer.MAX_VALUE));
+    }
+
+    /**
+     * Retrieves the students of all shards whose average grade lies between the given grades (both inclusive),
+     * see {@link UniversityService#getStudentsWithAverageGradeBetween(BigDecimal, BigDecimal)}.
+     *
+     * @param from The best grade of the range.
+     * @param to   The worst grade of the range.
+     * @return A future with an unmodifiable list of the students, best grade first.
+     */
+    public CompletableFuture<List<Student>> getStudentsWithAverageGradeBetween(final BigDecimal from,
+                                                                            final BigDecimal to) {
+        return scatter(service -> service.getStudentsWithAverageGradeBetween(from, to))
+                .thenApply(parts -> mergeByAverageGrade(parts,
+                        average -> average.compareTo(from) >= 0 && average.compareTo(to) <= 0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Retrieves the students with the best average grades of all shards, see {@link UniversityService#getBestStudents}.
+     *
+     * @param limit The maximum number of students to return.
+     * @return A future with an unmodifiable list of at most {@code limit} students, best grade first.
+     */
+    public CompletableFuture<List<Student>> getBestStudents(final int limit) {
+        return scatter(service -> service.getBestStudents(limit))
+                .thenApply(parts -> mergeByAverageGrade(parts, average -> true, limit));
+    }
+
+    /**
+     * Stops accepting calls and waits until the calls already submitted to the shards have completed.
+     */
+    @Override
+    public void close() {
+        shards.forEach(shard -> shard.executor().shutdown());
+        for (Shard shard : shards) {
+            ExecutorService executor = shard.executor();
+            executor.close();
+        }
+    }
+
+    private <T> CompletableFuture<List<T>> scatter(final Function<UniversityService, T> query) {
+        List<CompletableFuture<T>> parts = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            parts.add(CompletableFuture.supplyAsync(() -> query.apply(shard.service()), shard.executor()));
+        }
+        return gather(parts);
+    }
+
+    private static <T> CompletableFuture<List<T>> gather(final List<CompletableFuture<T>> parts) {
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> parts.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Merges the sorted results of the shards into one list, best grade first.
+     * The average of each student is read once and used both for the filter and for the ordering: a grade may have
+     * changed since the shard filtered the student, and the merged list must not contain a student whose current
+     * average no longer matches the query.
+     *
+     * @param parts  The students found by each shard, each part best grade first.
+     * @param filter The condition of the query on the average grade.
+     * @param limit  The maximum number of students to return.
+     * @return An unmodifiable list of at most {@code limit} students, best grade first.
+     */
+    static List<Student> mergeByAverageGrade(final List<List<Student>> parts, final Predicate<BigDecimal> filter,
+                                             final int limit) {
+        // Each part is sorted already; the stable sort of their concatenation merges these runs in linear time.
+        List<Map.Entry<BigDecimal, Student>> ranked = new ArrayList<>();
+        for (List<Student> part : parts) {
+            for (Student student : part) {
+                student.getAverageGrade().filter(filter).ifPresent(average -> ranked.add(Map.entry(average, student)));
+            }
+        }
+        ranked.sort(Map.Entry.comparingByKey());
+        return ranked.stream().limit(limit).map(Map.Entry::getValue).toList();
+    }
+
+    /**
+     * The repositories, service and executor of one shard.
+     *
+     * @param courses  The courses placed on the shard.
+     * @param students The students placed on the shard.
+     * @param service  The service over the repositories of the shard.
+     * @param executor Runs the calls on the shard.
+     */
+    private record Shard(CourseRepository courses, StudentRepository students, UniversityService service,
+                         ExecutorService executor) {
+    }
+}
@@ -1,23 +1,77 @@
 package ckollmeier.de;
 
 import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.FixedPointGrade;
+import ckollmeier.de.Entities.GradeAggregate;
 import ckollmeier.de.Entities.Student;
 import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Metrics.LatencyHistogram;
+import ckollmeier.de.Metrics.MeterRegistry;
+import ckollmeier.de.Reports.PrintStreamWriter;
+import ckollmeier.de.Reports.ReportFormat;
+import ckollmeier.de.Reports.ReportWriter;
 import ckollmeier.de.Repositories.CourseRepository;
 import ckollmeier.de.Repositories.StudentRepository;
 import ckollmeier.de.Repositories.TeacherRepository;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor
 public class UniversityService {
+    /**
+     * Size of the character buffer used for reports.
+     */
+    private static final int REPORT_BUFFER_SIZE = 1 << 16;
+    /**
+     * Default number of courses from which on the average grade is calculated in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 10_000;
+    /**
+     * Maximum number of query results kept in the query cache.
+     */
+    public static final int QUERY_CACHE_SIZE = 1024;
+
+    /**
+     * Number of courses from which on {@link #calculateAverageGrade()} aggregates in parallel.
+     */
+    private @Setter @Getter int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    /**
+     * Cache for the results of the average grade queries.
+     */
+    private final QueryCache queryCache = new QueryCache(QUERY_CACHE_SIZE);
+    /**
+     * Latency of {@link #calculateAverageGrade()}.
+     */
+    private volatile LatencyHistogram averageGradeLatency = MeterRegistry.DISABLED.histogram("service.calculateAverageGrade");
+    /**
+     * Latency of the reports written by {@link #printDetails()} and {@link #writeDetails(Writer, ReportFormat)}.
+     */
+    private volatile LatencyHistogram reportLatency = MeterRegistry.DISABLED.histogram("service.writeDetails");
 
     /**
      * Adds a list of students to a specific course.
+     * All students are resolved before the first one is enrolled, so either all students are added or none.
      *
      * @param courseId   The ID of the course to which students will be added.
      * @param studentIds A list of student IDs to be added to the course.
@@ -27,13 +81,146 @@ public class UniversityService {
         var course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
 
+        var students = studentRepository.findAllById(studentIds);
         for (String studentId : studentIds) {
-            var student = studentRepository.findById(studentId)
-                    .orElseThrow(() -> new IllegalArgumentException("Student not found with ID: " + studentId));
-            student.addCourse(course);
+            if (!students.containsKey(studentId)) {
+                throw new IllegalArgumentException("Student not found with ID: " + studentId);
+            }
+        }
+        course.addStudents(students.values());
+    }
+
+    /**
+     * Enrolls a large batch of students into a specific course.
+     * All IDs are resolved in one pass and validated before the valid rows are applied in a single update.
+     * Invalid rows do not abort the batch but are reported in the result, including students that were enrolled
+     * concurrently by another caller.
+     *
+     * @param courseId   The ID of the course to which students will be added.
+     * @param studentIds A list of student IDs to be added to the course.
+     * @return The number of enrolled students together with the rows that could not be enrolled.
+     * @throws IllegalArgumentException if the course is not found.
+     */
+    public EnrollmentResult enrollStudents(final String courseId, final List<String> studentIds) {
+        var course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+
+        var found = studentRepository.findAllById(studentIds);
+        var enrolledIds = course.getStudentsGrades().keySet();
+        Map<String, Student> batch = new LinkedHashMap<>((int) (found.size() / 0.75f) + 1);
+        Map<String, Integer> batchRows = new HashMap<>((int) (found.size() / 0.75f) + 1);
+        Set<String> seen = new HashSet<>((int) (studentIds.size() / 0.75f) + 1);
+        List<EnrollmentFailure> failures = new ArrayList<>();
+
+        for (int row = 0; row < studentIds.size(); row++) {
+            String studentId = studentIds.get(row);
+            EnrollmentFailure.Reason reason = null;
+            if (studentId == null || studentId.isBlank()) {
+                reason = EnrollmentFailure.Reason.MISSING_ID;
+            } else if (!seen.add(studentId)) {
+                reason = EnrollmentFailure.Reason.DUPLICATE;
+            } else if (!found.containsKey(studentId)) {
+                reason = EnrollmentFailure.Reason.STUDENT_NOT_FOUND;
+            } else if (enrolledIds.contains(studentId)) {
+                reason = EnrollmentFailure.Reason.ALREADY_ENROLLED;
+            }
+
+            if (reason == null) {
+                batch.put(studentId, found.get(studentId));
+                batchRows.put(studentId, row);
+            } else {
+                failures.add(new EnrollmentFailure(row, studentId, reason));
+            }
+        }
+
+        // The check above reads a snapshot; the course reports what was enrolled in the meantime under its lock.
+        List<Student> skipped = course.addStudents(batch.values());
+        for (Student student : skipped) {
+            failures.add(new EnrollmentFailure(batchRows.get(student.getId()), student.getId(),
+                    EnrollmentFailure.Reason.ALREADY_ENROLLED));
+        }
+        if (!skipped.isEmpty()) {
+            failures.sort(Comparator.comparingInt(EnrollmentFailure::row));
+        }
+
+        return EnrollmentResult.builder()
+                .courseId(courseId)
+                .enrolled(batch.size() - skipped.size())
+                .failures(List.copyOf(failures))
+                .build();
+    }
+
+    /**
+     * Imports a stream of grades, for example read by a {@link GradeCsvReader}.
+     * Consecutive grades of the same course are collected and each course applies its batch under a single lock.
+     * If a student has several grades for the same course, the last one wins.
+     * Every grade is validated before it is batched, so a single bad row never aborts the import halfway: invalid
+     * grades and grades for unknown students or for unknown or archived courses are rejected, and lines the iterator
+     * cannot parse (an {@link IllegalArgumentException} from it, after which it continues with the next line like
+     * {@link GradeCsvReader}) are reported as malformed.
+     *
+     * @param grades The grades to import.
+     * @return The number of imported grades together with the rejected grades and the malformed lines.
+     */
+    public GradeImportResult importGrades(final Iterator<GradeRecord> grades) {
+        int imported = 0;
+        List<GradeRecord> rejected = new ArrayList<>();
+        List<String> malformed = new ArrayList<>();
+        String courseId = null;
+        Map<String, BigDecimal> batch = new HashMap<>();
+
+        while (true) {
+            GradeRecord grade;
+            try {
+                if (!grades.hasNext()) {
+                    break;
+                }
+                grade = grades.next();
+            } catch (IllegalArgumentException e) {
+                malformed.add(e.getMessage());
+                continue;
+            }
+            if (!isValidGrade(grade.grade())) {
+                rejected.add(grade);
+                continue;
+            }
+            if (courseId != null && !courseId.equals(grade.courseId())) {
+                imported += applyGrades(courseId, batch, rejected);
+                batch = new HashMap<>(batch.size() * 2);
+            }
+            courseId = grade.courseId();
+            batch.put(grade.studentId(), grade.grade());
+        }
+        if (courseId != null) {
+            imported += applyGrades(courseId, batch, rejected);
+        }
+
+        return GradeImportResult.builder()
+                .imported(imported)
+                .rejected(List.copyOf(rejected))
+                .malformed(List.copyOf(malformed))
+                .build();
+    }
+
+    private static boolean isValidGrade(final BigDecimal grade) {
+        if (grade == null) {
+            return false;
+        }
+        try {
+            FixedPointGrade.validate(grade);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
         }
     }
 
+    private int applyGrades(final String courseId, final Map<String, BigDecimal> grades, final List<GradeRecord> rejected) {
+        var course = courseRepository.findById(courseId).filter(found -> !found.isArchived());
+        var notFound = course.isPresent() ? course.get().setGrades(grades) : grades.keySet();
+        notFound.forEach(studentId -> rejected.add(new GradeRecord(courseId, studentId, grades.get(studentId))));
+        return grades.size() - notFound.size();
+    }
+
     /**
      * Repository for managing teacher entities.
      */
@@ -77,64 +264,182 @@ public class UniversityService {
 
     /**
      * Retrieves the average grade for all courses.
+     * Catalogs with at least {@link #getParallelThreshold()} courses are aggregated in parallel on the common
+     * fork/join pool; the result is exactly the same as the sequential one.
+     * The result is cached until a grade of a stored course changes or a course is saved or deleted.
      *
      * @return A map where the key is the course ID and the value is the average grade for that course,
      * or an empty map if no courses or grades are found.
      */
     public Optional<BigDecimal> calculateAverageGrade() {
-        var courses = courseRepository.findAll();
-        if (courses.isEmpty()) {
-            return Optional.empty();
+        long start = averageGradeLatency.start();
+        try {
+            return averageGradeAggregate().average();
+        } finally {
+            averageGradeLatency.stop(start);
         }
+    }
 
-        BigDecimal totalSum = BigDecimal.ZERO;
-        int totalGrades = 0;
+    /**
+     * Returns the aggregate of the average grades of all courses, from which {@link #calculateAverageGrade()} is taken.
+     * Partial aggregates of several services can be merged exactly, see {@link ShardedUniversityService}.
+     * The aggregate is cached like the average grade and must not be modified.
+     *
+     * @return The aggregate of the average grades of all courses.
+     */
+    GradeAggregate averageGradeAggregate() {
+        return queryCache.get(List.of("averageGradeAggregate"), courseRepository.getAverageGradeVersion(),
+                this::aggregateAverageGrade);
+    }
 
-        for (Course course : courses) {
-            Optional<BigDecimal> grade = course.getAverageGrade();
-            if (grade.isEmpty()) {
-                continue;
-            }
-            totalSum = totalSum.add(grade.get());
-            totalGrades++;
+    /**
+     * Aggregates the average grades of all courses without the cache, in parallel from
+     * {@link #getParallelThreshold()} courses on.
+     *
+     * @return The aggregate of the average grades of all courses.
+     */
+    GradeAggregate aggregateAverageGrade() {
+        if (courseRepository.count() >= parallelThreshold) {
+            // The parallel stream needs a snapshot that splits evenly.
+            return courseRepository.findAll().parallelStream()
+                    .map(Course::getAverageGrade)
+                    .flatMap(Optional::stream)
+                    .collect(GradeAggregate.collector());
         }
 
-        return totalGrades > 0
-                ? Optional.of(totalSum.divide(BigDecimal.valueOf(totalGrades), RoundingMode.HALF_UP))
-                : Optional.empty();
+        GradeAggregate aggregate = new GradeAggregate();
+        for (Course course : courseRepository) {
+            course.getAverageGrade().ifPresent(aggregate::add);
+        }
+        return aggregate;
     }
 
     /**
      * Retrieves a list of students whose average grade is better than or equals to the given grade.
      *
      * @param grade The grade to compare the students' average grade against.
-     * @return A list of students with an average grade better than or equals to the given grade.
+     * @return An unmodifiable list of students with an average grade better than or equals to the given grade,
+     * best grade first.
      */
     public List<Student> getStudentsWithAverageGradeBetterOrEquals(final BigDecimal grade) {
-        return studentRepository.findAll().stream()
-                .filter(s -> s.getAverageGrade()
-                        .orElse(grade.add(BigDecimal.ONE))
-                        .compareTo(grade) <= 0)
-                .toList();
+        return studentQuery(List.of("betterOrEquals", grade),
+                () -> studentRepository.findByAverageGradeBetterOrEquals(grade));
+    }
+
+    /**
+     * Retrieves a list of students whose average grade lies between the given grades (both inclusive).
+     *
+     * @param from The best grade of the range.
+     * @param to   The worst grade of the range.
+     * @return An unmodifiable list of students with an average grade within the range, best grade first.
+     */
+    public List<Student> getStudentsWithAverageGradeBetween(final BigDecimal from, final BigDecimal to) {
+        return studentQuery(List.of("between", from, to), () -> studentRepository.findByAverageGradeBetween(from, to));
+    }
+
+    /**
+     * Retrieves the students with the best average grades.
+     *
+     * @param limit The maximum number of students to return.
+     * @return An unmodifiable list of at most {@code limit} students, best grade first.
+     */
+    public List<Student> getBestStudents(final int limit) {
+        return studentQuery(List.of("best", limit), () -> studentRepository.findTopByAverageGrade(limit));
+    }
+
+    /**
+     * Measures the latency of {@link #calculateAverageGrade()} and of the reports, and the query cache statistics,
+     * in the given registry. Without a registry nothing is measured.
+     *
+     * @param registry The registry for the metrics.
+     */
+    public void setMeterRegistry(final MeterRegistry registry) {
+        averageGradeLatency = registry.histogram("service.calculateAverageGrade");
+        reportLatency = registry.histogram("service.writeDetails");
+        registry.gauge("service.queryCache.hits", () -> queryCache.stats().hits());
+        registry.gauge("service.queryCache.misses", () -> queryCache.stats().misses());
+        registry.gauge("service.queryCache.evictions", () -> queryCache.stats().evictions());
+        registry.gauge("service.queryCache.size", () -> queryCache.stats().size());
+    }
+
+    /**
+     * Returns hit, miss and eviction counts of the cache for the average grade queries.
+     *
+     * @return The current statistics of the query cache.
+     */
+    public QueryCacheStats getQueryCacheStats() {
+        return queryCache.stats();
+    }
+
+    private List<Student> studentQuery(final List<Object> key, final Supplier<List<Student>> query) {
+        return queryCache.get(key, studentRepository.getAverageGradeVersion(), () -> List.copyOf(query.get()));
     }
 
     /**
      * Prints details of all students, teachers, and courses managed by the service.
      */
     public void printDetails() {
-        System.out.println("Students:");
-        studentRepository.findAll().forEach(student ->
-                System.out.printf("  - Name: %-20s ID: %s | ⌀%s%n", student.getName(), student.getId(), student.getAverageGrade().orElse(BigDecimal.ZERO).setScale(1, RoundingMode.HALF_UP))
-        );
-
-        System.out.println("Teachers:");
-        teacherRepository.findAll().forEach(teacher ->
-                System.out.printf("  - Name: %-20s ID: %s | %d courses%n", teacher.name(), teacher.id(), courseRepository.findAll().stream().filter(course -> course.getTeacher().id().equals(teacher.id())).count())
-        );
-
-        System.out.println("Courses:");
-        courseRepository.findAll().forEach(course ->
-                System.out.printf("  - Name: %-30s ID: %s | %d students with ⌀%s%n", course.getName(), course.getId(), course.getStudents().size(), course.getAverageGrade().orElse(BigDecimal.ZERO).setScale(1, RoundingMode.HALF_UP))
-        );
+        printDetails(ReportFormat.TEXT);
+    }
+
+    /**
+     * Prints details of all students, teachers, and courses in the given format to {@link System#out}.
+     * The output is buffered and encoded exactly like {@code System.out.printf} would encode it.
+     *
+     * @param format The output format.
+     */
+    public void printDetails(final ReportFormat format) {
+        try {
+            writeDetails(new BufferedWriter(new PrintStreamWriter(System.out), REPORT_BUFFER_SIZE), format);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes details of all students, teachers, and courses in the given format to an output stream.
+     *
+     * @param out     The stream to write to. It is flushed but not closed.
+     * @param charset The charset used to encode the report.
+     * @param format  The output format.
+     * @throws IOException if the report cannot be written.
+     */
+    public void writeDetails(final OutputStream out, final Charset charset, final ReportFormat format) throws IOException {
+        writeDetails(new BufferedWriter(new OutputStreamWriter(out, charset), REPORT_BUFFER_SIZE), format);
+    }
+
+    /**
+     * Writes details of all students, teachers, and courses in the given format.
+     * The entities are rendered one by one, the report is never built in memory as a whole.
+     *
+     * @param out    The writer to write to, preferably buffered. It is flushed but not closed.
+     * @param format The output format.
+     * @throws IOException if the report cannot be written.
+     */
+    public void writeDetails(final Writer out, final ReportFormat format) throws IOException {
+        long start = reportLatency.start();
+        try {
+            writeReport(new ReportWriter(out, format));
+        } finally {
+            reportLatency.stop(start);
+        }
+    }
+
+    private void writeReport(final ReportWriter report) throws IOException {
+        report.section("Students");
+        for (Student student : studentRepository) {
+            report.student(student);
+        }
+
+        report.section("Teachers");
+        for (Teacher teacher : teacherRepository) {
+            report.teacher(teacher, courseRepository.countByTeacherId(teacher.id()));
+        }
+
+        report.section("Courses");
+        for (Course course : courseRepository) {
+            report.course(course);
+        }
+        report.flush();
     }
 }
@@ -0,0 +1,208 @@
+package ckollmeier.de.Util;
+
+import java.util.Arrays;
+
+/**
+ * Bildet externe String-IDs auf dichte {@code int}-Handles ab, beginnend bei {@code 0}.
+ * Solange eine ID nicht freigegeben wird, behält sie ihr Handle, und jede ID wird nur einmal gespeichert.
+ * Die Zuordnung liegt in einer Hash-Tabelle mit offener Adressierung, die nur die Handles enthält;
+ * die IDs selbst stehen in einem Array nach ihrem Handle. Mit {@link #release(int)} freigegebene Handles werden
+ * über eine Freiliste wiederverwendet, sodass die Handles auch bei häufigem Anlegen und Löschen dicht bleiben; in
+ * der Hash-Tabelle bleibt bis zum nächsten Umbau ein Grabstein zurück.
+ * Die Klasse ist nicht threadsicher.
+ */
+public final class IdInterner {
+    /**
+     * Anfangskapazität der Hash-Tabelle.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Maximaler Füllgrad der Hash-Tabelle in Prozent.
+     */
+    private static final int MAX_LOAD_PERCENT = 70;
+    /**
+     * Multiplikator zum Streuen der Hashwerte (Fibonacci-Hashing).
+     */
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+    /**
+     * Rückgabewert von {@link #find(String)} für unbekannte IDs.
+     */
+    public static final int NOT_FOUND = -1;
+    /**
+     * Eintrag der Hash-Tabelle für eine freigegebene ID (Grabstein).
+     */
+    private static final int TOMBSTONE = -1;
+
+    /**
+     * Die IDs nach ihrem Handle.
+     */
+    private String[] ids = new String[INITIAL_CAPACITY];
+    /**
+     * Hash-Tabelle der Handles, jeweils um eins erhöht; {@code 0} markiert einen freien Platz,
+     * {@link #TOMBSTONE} einen Platz, dessen ID freigegeben wurde.
+     */
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+    /**
+     * Anzahl der jemals vergebenen Handles; alle Handles sind kleiner.
+     */
+    private int limit;
+    /**
+     * Anzahl der IDs mit Handle.
+     */
+    private int size;
+    /**
+     * Anzahl der Grabsteine in der Hash-Tabelle.
+     */
+    private int tombstones;
+    /**
+     * Die freigegebenen Handles, die als Nächstes wiederverwendet werden.
+     */
+    private int[] freeHandles = new int[INITIAL_CAPACITY];
+    /**
+     * Anzahl der Einträge in {@link #freeHandles}.
+     */
+    private int freeCount;
+
+    /**
+     * Liefert das Handle einer ID und vergibt bei Bedarf ein neues.
+     *
+     * @param id Die ID; nicht {@code null}.
+     * @return Das Handle.
+     */
+    public int intern(final String id) {
+        int mask = table.length - 1;
+        int i = slot(id, mask);
+        int insertAt = -1;
+        for (int entry = table[i]; entry != 0; entry = table[i]) {
+            if (entry == TOMBSTONE) {
+                if (insertAt < 0) {
+                    insertAt = i;
+                }
+            } else if (ids[entry - 1].equals(id)) {
+                return entry - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        if (insertAt >= 0) {
+            i = insertAt;
+            tombstones--;
+        }
+        int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        } else {
+            handle = limit++;
+            if (handle == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+        }
+        ids[handle] = id;
+        table[i] = handle + 1;
+        size++;
+        if ((size + tombstones) * 100 > table.length * MAX_LOAD_PERCENT) {
+            // Bei überwiegend Grabsteinen genügt ein Umbau in gleicher Größe.
+            rehash(2 * size * 100 > table.length * MAX_LOAD_PERCENT ? table.length * 2 : table.length);
+        }
+        return handle;
+    }
+
+    /**
+     * Gibt das Handle einer ID frei. Die ID gilt danach als unbekannt, das Handle wird für eine neue ID
+     * wiederverwendet.
+     *
+     * @param handle Das Handle.
+     * @throws IndexOutOfBoundsException wenn das Handle nicht vergeben ist.
+     */
+    public void release(final int handle) {
+        String id = id(handle);
+        int mask = table.length - 1;
+        int i = slot(id, mask);
+        while (table[i] != handle + 1) {
+            i = (i + 1) & mask;
+        }
+        table[i] = TOMBSTONE;
+        tombstones++;
+        ids[handle] = null;
+        size--;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+    }
+
+    /**
+     * Liefert das Handle einer ID, ohne ein neues zu vergeben.
+     *
+     * @param id Die ID.
+     * @return Das Handle oder {@link #NOT_FOUND}, wenn die ID noch kein Handle hat.
+     */
+    public int find(final String id) {
+        if (id == null) {
+            return NOT_FOUND;
+        }
+        int[] t = table;
+        String[] known = ids;
+        int mask = t.length - 1;
+        for (int i = slot(id, mask), entry = t[i]; entry != 0; i = (i + 1) & mask, entry = t[i]) {
+            if (entry != TOMBSTONE && id.equals(known[entry - 1])) {
+                return entry - 1;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Liefert die ID zu einem Handle.
+     *
+     * @param handle Das Handle.
+     * @return Die ID.
+     * @throws IndexOutOfBoundsException wenn das Handle nicht vergeben ist.
+     */
+    public String id(final int handle) {
+        if (handle < 0 || handle >= limit || ids[handle] == null) {
+            throw new IndexOutOfBoundsException("Unknown handle " + handle);
+        }
+        return ids[handle];
+    }
+
+    /**
+     * Liefert die Anzahl der IDs mit Handle.
+     *
+     * @return Die Anzahl.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Liefert eine obere Grenze der vergebenen Handles. Sie wächst nur, wenn keine freigegebenen Handles zur
+     * Wiederverwendung bereitstehen, bleibt also höchstens so groß wie die größte gleichzeitige Anzahl an IDs.
+     *
+     * @return Die Grenze; alle Handles sind kleiner.
+     */
+    public int limit() {
+        return limit;
+    }
+
+    private void rehash(final int capacity) {
+        int[] newTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int handle = 0; handle < limit; handle++) {
+            if (ids[handle] == null) {
+                continue;
+            }
+            int i = slot(ids[handle], mask);
+            while (newTable[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            newTable[i] = handle + 1;
+        }
+        table = newTable;
+        tombstones = 0;
+    }
+
+    private static int slot(final String id, final int mask) {
+        int hash = id.hashCode() * GOLDEN_RATIO;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
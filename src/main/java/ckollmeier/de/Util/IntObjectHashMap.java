@@ -0,0 +1,198 @@
+package ckollmeier.de.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hash-Map mit primitiven {@code int}-Schlüsseln und offener Adressierung (lineares Sondieren).
+ * Schlüssel und Werte liegen in zwei Arrays, es gibt also kein Objekt je Eintrag und keine geboxten Schlüssel.
+ * Gelöscht wird durch Zurückschieben der nachfolgenden Einträge, Grabsteine entstehen daher nicht.
+ * {@code null} ist als Wert nicht erlaubt. Die Klasse ist nicht threadsicher.
+ *
+ * @param <V> Der Typ der Werte.
+ */
+public final class IntObjectHashMap<V> {
+    /**
+     * Anfangskapazität der Arrays.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Maximaler Füllgrad in Prozent, bevor die Arrays verdoppelt werden.
+     */
+    private static final int MAX_LOAD_PERCENT = 70;
+    /**
+     * Multiplikator zum Streuen der Schlüssel (Fibonacci-Hashing).
+     */
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    /**
+     * Die Schlüssel, an derselben Position wie ihr Wert.
+     */
+    private int[] keys;
+    /**
+     * Die Werte; {@code null} markiert einen freien Platz.
+     */
+    private Object[] values;
+    /**
+     * Anzahl der Einträge.
+     */
+    private int size;
+
+    /**
+     * Erzeugt eine leere Map.
+     */
+    public IntObjectHashMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Erzeugt eine leere Map, die die gegebene Anzahl an Einträgen ohne Vergrößerung aufnimmt.
+     *
+     * @param expectedSize Die erwartete Anzahl an Einträgen.
+     */
+    public IntObjectHashMap(final int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, expectedSize * 100 / MAX_LOAD_PERCENT) * 2 - 1);
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Liefert den Wert zu einem Schlüssel.
+     *
+     * @param key Der Schlüssel.
+     * @return Der Wert oder {@code null}, wenn der Schlüssel nicht enthalten ist.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final int key) {
+        int[] k = keys;
+        Object[] v = values;
+        int mask = v.length - 1;
+        for (int i = slot(key, mask); v[i] != null; i = (i + 1) & mask) {
+            if (k[i] == key) {
+                return (V) v[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Speichert einen Wert.
+     *
+     * @param key   Der Schlüssel.
+     * @param value Der Wert; nicht {@code null}.
+     * @return Der bisherige Wert oder {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(final int key, final V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int mask = values.length - 1;
+        int i = slot(key, mask);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 100 > values.length * MAX_LOAD_PERCENT) {
+            resize(values.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Entfernt einen Eintrag.
+     *
+     * @param key Der Schlüssel.
+     * @return Der entfernte Wert oder {@code null}, wenn der Schlüssel nicht enthalten war.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(final int key) {
+        int mask = values.length - 1;
+        int i = slot(key, mask);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == null) {
+            return null;
+        }
+        V removed = (V) values[i];
+        // Nachfolgende Einträge nachrücken lassen, damit keine Sondierungskette unterbrochen wird.
+        int gap = i;
+        for (int j = (gap + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Liefert die Anzahl der Einträge.
+     *
+     * @return Die Anzahl.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Übergibt jeden Wert an {@code action}, in keiner bestimmten Reihenfolge.
+     *
+     * @param action Die Aktion.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(final Consumer<? super V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    /**
+     * Liefert alle Werte als neue Liste.
+     *
+     * @return Die Werte, in keiner bestimmten Reihenfolge.
+     */
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        forEachValue(result::add);
+        return result;
+    }
+
+    private void resize(final int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = slot(oldKeys[j], mask);
+                while (newValues[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                newKeys[i] = oldKeys[j];
+                newValues[i] = oldValues[j];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private static int slot(final int key, final int mask) {
+        int hash = key * GOLDEN_RATIO;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
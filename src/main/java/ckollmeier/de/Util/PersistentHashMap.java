@@ -0,0 +1,477 @@
+package ckollmeier.de.Util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Unveränderliche Hash-Map als Hash Array Mapped Trie (HAMT).
+ * Jede Ebene des Baums verbraucht fünf Bits des Hashwerts und hat bis zu 32 Kinder, die über eine Bitmaske kompakt in
+ * einem Array liegen. {@link #with} und {@link #without} kopieren nur die Knoten auf dem Pfad zum Schlüssel, also
+ * O(log32 n) Knoten; alle übrigen Knoten teilt die neue Map mit der alten. Beide Versionen bleiben unverändert
+ * gültig und können ohne Sperren von beliebig vielen Threads gelesen werden.
+ *
+ * <p>{@code null} ist weder als Schlüssel noch als Wert erlaubt. Die verändernden Methoden von {@link Map} werfen eine
+ * {@link UnsupportedOperationException}.</p>
+ *
+ * @param <K> Der Typ der Schlüssel.
+ * @param <V> Der Typ der Werte.
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+    /**
+     * Anzahl der Bits des Hashwerts je Ebene.
+     */
+    private static final int BITS = 5;
+    /**
+     * Maske für die Bits einer Ebene.
+     */
+    private static final int MASK = (1 << BITS) - 1;
+    /**
+     * Markiert einen nicht gefundenen Schlüssel, da {@code null} kein gültiger Wert ist.
+     */
+    private static final Object NOT_FOUND = new Object();
+    /**
+     * Die leere Map.
+     */
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    /**
+     * Die Wurzel des Baums.
+     */
+    private final Node root;
+    /**
+     * Anzahl der Einträge.
+     */
+    private final int size;
+    /**
+     * Zwischengespeicherte Sicht auf die Einträge.
+     */
+    private Set<Entry<K, V>> entries;
+
+    private PersistentHashMap(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Liefert die leere Map.
+     *
+     * @param <K> Der Typ der Schlüssel.
+     * @param <V> Der Typ der Werte.
+     * @return Die leere Map.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Liefert eine Map mit den Einträgen der gegebenen Map. Ist sie bereits eine {@code PersistentHashMap},
+     * wird sie unverändert zurückgegeben.
+     *
+     * @param map Die zu übernehmende Map.
+     * @param <K> Der Typ der Schlüssel.
+     * @param <V> Der Typ der Werte.
+     * @return Eine unveränderliche Map mit denselben Einträgen.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> copyOf(final Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap) {
+            return (PersistentHashMap<K, V>) map;
+        }
+        PersistentHashMap<K, V> result = empty();
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            result = result.with(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Liefert eine Map, in der der Schlüssel auf den gegebenen Wert abgebildet wird.
+     *
+     * @param key   Der Schlüssel.
+     * @param value Der Wert.
+     * @return Die neue Map, oder diese, wenn der Schlüssel bereits auf genau diesen Wert abgebildet wird.
+     */
+    public PersistentHashMap<K, V> with(final K key, final V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Null keys and values are not supported");
+        }
+        Change change = new Change();
+        Node newRoot = root.put(key, value, key.hashCode(), 0, change);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, change.added ? size + 1 : size);
+    }
+
+    /**
+     * Liefert eine Map ohne den gegebenen Schlüssel.
+     *
+     * @param key Der zu entfernende Schlüssel.
+     * @return Die neue Map, oder diese, wenn der Schlüssel nicht enthalten ist.
+     */
+    public PersistentHashMap<K, V> without(final Object key) {
+        if (key == null) {
+            return this;
+        }
+        Node newRoot = root.remove(key, key.hashCode(), 0);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        if (key == null) {
+            return null;
+        }
+        Object value = root.find(key, key.hashCode(), 0);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key != null && root.find(key, key.hashCode(), 0) != NOT_FOUND;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(final BiConsumer<? super K, ? super V> action) {
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> set = entries;
+        if (set == null) {
+            set = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+            entries = set;
+        }
+        return set;
+    }
+
+    private static int index(final int bitmap, final int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private static int bit(final int hash, final int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Hält fest, ob durch ein Einfügen ein neuer Schlüssel hinzugekommen ist.
+     */
+    private static final class Change {
+        /**
+         * {@code true}, wenn der Schlüssel neu ist.
+         */
+        private boolean added;
+    }
+
+    /**
+     * Ein Knoten des Baums. Seine Einträge liegen paarweise als Schlüssel und Wert in {@link #array}.
+     */
+    private abstract static class Node {
+        /**
+         * Schlüssel und Werte abwechselnd; ein {@code null}-Schlüssel steht vor einem Kindknoten.
+         */
+        private final Object[] array;
+
+        Node(final Object[] array) {
+            this.array = array;
+        }
+
+        final Object[] array() {
+            return array;
+        }
+
+        abstract Object find(Object key, int hash, int shift);
+
+        abstract Node put(Object key, Object value, int hash, int shift, Change change);
+
+        abstract Node remove(Object key, int hash, int shift);
+
+        final void forEach(final BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Knoten mit bis zu 32 Einträgen oder Kindknoten, deren Positionen eine Bitmaske angibt.
+     */
+    private static final class BitmapNode extends Node {
+        /**
+         * Der leere Knoten.
+         */
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        /**
+         * Ein gesetztes Bit je belegter Position.
+         */
+        private final int bitmap;
+
+        BitmapNode(final int bitmap, final Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        @Override
+        Object find(final Object key, final int hash, final int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int i = 2 * index(bitmap, bit);
+            Object[] array = array();
+            if (array[i] == null) {
+                return ((Node) array[i + 1]).find(key, hash, shift + BITS);
+            }
+            return key.equals(array[i]) ? array[i + 1] : NOT_FOUND;
+        }
+
+        @Override
+        Node put(final Object key, final Object value, final int hash, final int shift, final Change change) {
+            int bit = bit(hash, shift);
+            int i = 2 * index(bitmap, bit);
+            Object[] array = array();
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, i);
+                copy[i] = key;
+                copy[i + 1] = value;
+                System.arraycopy(array, i, copy, i + 2, array.length - i);
+                change.added = true;
+                return new BitmapNode(bitmap | bit, copy);
+            }
+            Object existingKey = array[i];
+            Object existingValue = array[i + 1];
+            if (existingKey == null) {
+                Node child = (Node) existingValue;
+                Node newChild = child.put(key, value, hash, shift + BITS, change);
+                return newChild == child ? this : replace(i, null, newChild);
+            }
+            if (key.equals(existingKey)) {
+                return existingValue == value ? this : replace(i, existingKey, value);
+            }
+            change.added = true;
+            return replace(i, null, pair(existingKey, existingValue, key, value, hash, shift + BITS));
+        }
+
+        @Override
+        Node remove(final Object key, final int hash, final int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = 2 * index(bitmap, bit);
+            Object[] array = array();
+            if (array[i] == null) {
+                Node child = (Node) array[i + 1];
+                Node newChild = child.remove(key, hash, shift + BITS);
+                if (newChild == child) {
+                    return this;
+                }
+                if (newChild == null) {
+                    return without(bit, i);
+                }
+                Object[] childArray = newChild.array();
+                if (childArray.length == 2 && childArray[0] != null) {
+                    // Ein Kind mit nur noch einem Eintrag wird wieder in diesen Knoten übernommen.
+                    return replace(i, childArray[0], childArray[1]);
+                }
+                return replace(i, null, newChild);
+            }
+            return key.equals(array[i]) ? without(bit, i) : this;
+        }
+
+        private Node replace(final int i, final Object key, final Object value) {
+            Object[] copy = array().clone();
+            copy[i] = key;
+            copy[i + 1] = value;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        private Node without(final int bit, final int i) {
+            Object[] array = array();
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, i);
+            System.arraycopy(array, i + 2, copy, i, array.length - i - 2);
+            return new BitmapNode(bitmap ^ bit, copy);
+        }
+
+        private static Node pair(final Object key1, final Object value1, final Object key2, final Object value2,
+                                 final int hash2, final int shift) {
+            int hash1 = key1.hashCode();
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+            }
+            Change ignored = new Change();
+            return EMPTY.put(key1, value1, hash1, shift, ignored).put(key2, value2, hash2, shift, ignored);
+        }
+    }
+
+    /**
+     * Knoten für Schlüssel, deren Hashwerte vollständig übereinstimmen. Die Einträge werden linear durchsucht.
+     */
+    private static final class CollisionNode extends Node {
+        /**
+         * Der gemeinsame Hashwert aller Schlüssel.
+         */
+        private final int hash;
+
+        CollisionNode(final int hash, final Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        @Override
+        Object find(final Object key, final int keyHash, final int shift) {
+            int i = indexOf(key);
+            return i < 0 ? NOT_FOUND : array()[i + 1];
+        }
+
+        @Override
+        Node put(final Object key, final Object value, final int keyHash, final int shift, final Change change) {
+            if (keyHash != hash) {
+                // Der neue Schlüssel unterscheidet sich auf dieser Ebene; der Knoten wird Kind eines neuen Knotens.
+                return new BitmapNode(bit(hash, shift), new Object[]{null, this}).put(key, value, keyHash, shift, change);
+            }
+            Object[] array = array();
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                Object[] copy = array.clone();
+                copy[i + 1] = value;
+                return new CollisionNode(hash, copy);
+            }
+            Object[] copy = new Object[array.length + 2];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            copy[array.length] = key;
+            copy[array.length + 1] = value;
+            change.added = true;
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        Node remove(final Object key, final int keyHash, final int shift) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            Object[] array = array();
+            if (array.length == 4) {
+                int other = i == 0 ? 2 : 0;
+                return new BitmapNode(bit(hash, shift), new Object[]{array[other], array[other + 1]});
+            }
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, i);
+            System.arraycopy(array, i + 2, copy, i, array.length - i - 2);
+            return new CollisionNode(hash, copy);
+        }
+
+        private int indexOf(final Object key) {
+            Object[] array = array();
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Durchläuft die Einträge in Tiefensuche, ohne Zwischensammlungen anzulegen.
+     *
+     * @param <K> Der Typ der Schlüssel.
+     * @param <V> Der Typ der Werte.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        /**
+         * Die Arrays der Knoten auf dem Pfad zum aktuellen Eintrag.
+         */
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        /**
+         * Die Position im jeweiligen Array von {@link #arrays}.
+         */
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        /**
+         * Der nächste Eintrag oder {@code null}, wenn alle Einträge geliefert wurden.
+         */
+        private Entry<K, V> next;
+
+        EntryIterator(final Node root) {
+            arrays.push(root.array());
+            positions.push(0);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            Entry<K, V> entry = next;
+            if (entry == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int i = positions.pop();
+                if (i >= array.length) {
+                    arrays.pop();
+                    continue;
+                }
+                positions.push(i + 2);
+                if (array[i] == null) {
+                    arrays.push(((Node) array[i + 1]).array());
+                    positions.push(0);
+                } else {
+                    next = new SimpleImmutableEntry<>((K) array[i], (V) array[i + 1]);
+                    return;
+                }
+            }
+            next = null;
+        }
+    }
+}
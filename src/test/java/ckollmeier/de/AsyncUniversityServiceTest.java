@@ -0,0 +1,112 @@
+package ckollmeier.de;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Persistence.UniversityStore;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.RepositoryListener;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncUniversityServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final TeacherRepository teachers = new TeacherRepository();
+    private final CourseRepository courses = new CourseRepository();
+    private final StudentRepository students = new StudentRepository();
+    private final UniversityService service = new UniversityService(teachers, courses, students);
+
+    @Test
+    void calls_shouldCompleteWithResultsOfService() {
+        try (AsyncUniversityService async = new AsyncUniversityService(service, 16, Duration.ofSeconds(1))) {
+            Course course = Course.builder().id("c1").name("Potions").build();
+            CompletableFuture.allOf(
+                    async.createCourse(course),
+                    async.createStudent(Student.builder().id("s1").name("Harry").build()),
+                    async.createStudent(Student.builder().id("s2").name("Hermione").build())).join();
+
+            async.addStudentsToCourse("c1", List.of("s1", "s2")).join();
+            course.setGrade("s1", "2.0");
+            course.setGrade("s2", "3.0");
+
+            assertThat(async.calculateAverageGrade().join()).contains(new BigDecimal("2.5"));
+            assertThat(async.addStudentsToCourse("unknown", List.of("s1")))
+                    .failsWithin(Duration.ofSeconds(1))
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void submit_shouldRejectCalls_whenTooManyAreInFlight() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        students.addListener(new RepositoryListener<>() {
+            @Override
+            public void saved(final Student student) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void deleted(final String id) {
+            }
+        });
+
+        try (AsyncUniversityService async = new AsyncUniversityService(service, 1, Duration.ofMillis(20))) {
+            CompletableFuture<Void> blocked = async.createStudent(Student.builder().id("s1").name("Harry").build());
+            started.await();
+
+            CompletableFuture<Void> rejected = async.createStudent(Student.builder().id("s2").name("Ron").build());
+
+            assertThat(async.getInFlight()).isEqualTo(1);
+            assertThat(rejected)
+                    .failsWithin(Duration.ofSeconds(1))
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(RejectedExecutionException.class);
+            release.countDown();
+            blocked.join();
+            assertThat(async.getInFlight()).isZero();
+        }
+        assertThat(students.findById("s2")).isEmpty();
+    }
+
+    @Test
+    void updates_shouldBeDurableWhenCompleted() throws IOException {
+        UniversityStore store = UniversityStore.open(directory, teachers, courses, students);
+        try (AsyncUniversityService async = new AsyncUniversityService(service, store, 1_000, Duration.ofSeconds(10))) {
+            List<CompletableFuture<Void>> calls = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                calls.add(async.createStudent(Student.builder().id("s" + i).name("Student " + i).build()));
+            }
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            store.close();
+        }
+
+        StudentRepository reopened = new StudentRepository();
+        UniversityStore.open(directory, new TeacherRepository(), new CourseRepository(), reopened).close();
+        assertThat(reopened.count()).isEqualTo(2_000);
+    }
+}
@@ -0,0 +1,129 @@
+package ckollmeier.de.Entities;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CourseTest {
+
+    private Course course;
+    private Student student1;
+    private Student student2;
+    private Student student3;
+
+    @BeforeEach
+    void setUp() {
+        Teacher teacher = Teacher.builder().id("teacher-1").name("Prof. Snape").address("Hogwarts").build();
+        course = Course.builder().id("course-101").name("Potions").teacher(teacher).build();
+        student1 = Student.builder().id("student-1").name("Harry").address("Potter").build();
+        student2 = Student.builder().id("student-2").name("Hermione").address("Granger").build();
+        student3 = Student.builder().id("student-3").name("Ron").address("Weasley").build();
+        course.addStudent(student1);
+        course.addStudent(student2);
+        course.addStudent(student3);
+    }
+
+    @Test
+    void getAverageGrade_shouldBeEmpty_whenNoGradesAreSet() {
+        assertThat(course.getAverageGrade()).isEmpty();
+    }
+
+    @Test
+    void getAverageGrade_shouldRoundHalfUpToScaleOfGrades() {
+        course.setGrade(student1.getId(), "2");
+        course.setGrade(student2.getId(), "3");
+        course.setGrade(student3.getId(), "2.3");
+
+        assertThat(course.getAverageGrade()).contains(new BigDecimal("2.4"));
+    }
+
+    @Test
+    void getAverageGrade_shouldFollowGradeChanges() {
+        course.setGrade(student1.getId(), "2.35");
+        course.setGrade(student2.getId(), "3");
+        course.setGrade(student1.getId(), "2");
+
+        assertThat(course.getAverageGrade()).contains(new BigDecimal("3"));
+    }
+
+    @Test
+    void getAverageGrade_shouldIgnoreRemovedStudents() {
+        course.setGrade(student1.getId(), "1");
+        course.setGrade(student2.getId(), "4.0");
+        course.removeStudent(student2);
+
+        assertThat(course.getAverageGrade()).contains(new BigDecimal("1"));
+        course.removeStudent(student1);
+        assertThat(course.getAverageGrade()).isEmpty();
+    }
+
+    @Test
+    void setGrade_shouldRejectGradesWithMoreThanTwoDecimalPlaces() {
+        course.setGrade(student1.getId(), "2");
+
+        assertThatThrownBy(() -> course.setGrade(student1.getId(), "1.333"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(course.getGradeForStudent(student1.getId())).contains(new BigDecimal("2"));
+        assertThat(course.getAverageGrade()).contains(new BigDecimal("2"));
+    }
+
+    @Test
+    void setGrades_shouldApplyNoGrade_whenOneIsOutOfRange() {
+        course.setGrade(student1.getId(), "2");
+        Map<String, BigDecimal> grades = new LinkedHashMap<>();
+        grades.put(student1.getId(), new BigDecimal("1.0"));
+        grades.put(student2.getId(), new BigDecimal("30000000"));
+
+        assertThatThrownBy(() -> course.setGrades(grades)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(course.getGradeForStudent(student1.getId())).contains(new BigDecimal("2"));
+        assertThat(course.getGradeForStudent(student2.getId())).isEmpty();
+        assertThat(course.getAverageGrade()).contains(new BigDecimal("2"));
+    }
+
+    @Test
+    void getStudents_shouldReturnCachedSetUntilEnrollmentsChange() {
+        var students = course.getStudents();
+
+        assertThat(students).containsExactlyInAnyOrder(student1, student2, student3);
+        assertThat(course.getStudents()).isSameAs(students);
+        course.setGrade(student1.getId(), "2");
+        assertThat(course.getStudents()).isSameAs(students);
+
+        course.removeStudent(student2);
+        assertThat(course.getStudents()).containsExactlyInAnyOrder(student1, student3);
+        Student student4 = Student.builder().id("student-4").name("Neville").address("Longbottom").build();
+        course.addStudent(student4);
+        assertThat(course.getStudents()).containsExactlyInAnyOrder(student1, student3, student4);
+        assertThat(students).containsExactlyInAnyOrder(student1, student2, student3);
+    }
+
+    @Test
+    void getStudents_shouldBeUnmodifiable() {
+        assertThatThrownBy(() -> course.getStudents().remove(student1))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void addStudents_shouldReturnStudentsThatWereAlreadyEnrolled() {
+        Student student4 = Student.builder().id("student-4").name("Neville").address("Longbottom").build();
+
+        List<Student> skipped = course.addStudents(List.of(student3, student4, student1));
+
+        assertThat(skipped).containsExactly(student3, student1);
+        assertThat(course.getStudents()).containsExactlyInAnyOrder(student1, student2, student3, student4);
+    }
+
+    @Test
+    void getStudentCount_shouldFollowEnrollments() {
+        assertThat(course.getStudentCount()).isEqualTo(3);
+        course.removeStudent(student1);
+        assertThat(course.getStudentCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,118 @@
+package ckollmeier.de.Entities;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EnrollmentColumnsTest {
+
+    @Test
+    void operations_shouldBehaveLikeMapOfEnrollments() {
+        Random random = new Random(42);
+        Course course = Course.builder().id("c1").name("Potions").build();
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            students.add(Student.builder().id("s" + i).name("Student " + i).build());
+        }
+        Map<String, BigDecimal> expected = new HashMap<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            Student student = students.get(random.nextInt(students.size()));
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    course.addStudent(student);
+                    expected.putIfAbsent(student.getId(), null);
+                }
+                case 1 -> {
+                    course.removeStudent(student);
+                    expected.remove(student.getId());
+                }
+                default -> {
+                    if (expected.containsKey(student.getId())) {
+                        BigDecimal grade = BigDecimal.valueOf(100 + random.nextInt(500), random.nextInt(3) == 0 ? 0 : 2);
+                        course.setGrades(Map.of(student.getId(), grade));
+                        expected.put(student.getId(), grade);
+                    }
+                }
+            }
+        }
+
+        assertThat(course.getStudentCount()).isEqualTo(expected.size());
+        assertThat(course.getStudentsGrades()).containsOnlyKeys(expected.keySet());
+        expected.forEach((studentId, grade) -> {
+            assertThat(course.getGradeForStudent(studentId)).isEqualTo(Optional.ofNullable(grade));
+            assertThat(course.getStudentsGrades().get(studentId).getGrade()).isEqualTo(grade);
+        });
+        assertThat(course.getAverageGrade()).isEqualTo(expected.values().stream()
+                .filter(Objects::nonNull)
+                .collect(GradeAggregate.collector())
+                .average());
+    }
+
+    @Test
+    void forEachEnrollment_shouldPassGradesInHundredths() {
+        Course course = Course.builder().id("c1").name("Potions").build();
+        Student student1 = Student.builder().id("s1").name("Harry").build();
+        Student student2 = Student.builder().id("s2").name("Hermione").build();
+        course.addStudents(List.of(student1, student2));
+        course.setGrade("s1", "2.3");
+        Map<Student, String> visited = new HashMap<>();
+
+        course.forEachEnrollment((student, hundredths, scale) -> visited.put(student, hundredths + "/" + scale));
+
+        assertThat(visited).containsOnly(
+                Map.entry(student1, "230/1"),
+                Map.entry(student2, "0/" + EnrollmentVisitor.NO_GRADE));
+    }
+
+    @Test
+    void getStudentsGrades_shouldBeReadOnlyView() {
+        Course course = Course.builder().id("c1").name("Potions").build();
+        Student student = Student.builder().id("s1").name("Harry").build();
+        Map<String, StudentsGradesInCourses> view = course.getStudentsGrades();
+
+        course.addStudent(student);
+
+        assertThat(view).containsOnlyKeys("s1");
+        assertThat(view.get("s1").getCourse()).isSameAs(course);
+        assertThatThrownBy(() -> view.remove("s1")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> course.getGradeForStudent("unknown")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void columns_shouldUseLessMemoryThanEnrollmentObjects() {
+        int enrollments = 10_000;
+        Course course = Course.builder().id("c1").name("Potions").build();
+        Student[] students = new Student[enrollments];
+        Map<String, StudentsGradesInCourses> objects = new ConcurrentHashMap<>();
+        EnrollmentColumns columns = new EnrollmentColumns();
+        for (int i = 0; i < enrollments; i++) {
+            students[i] = Student.builder().id("s" + i).name("Student " + i).build();
+            BigDecimal grade = BigDecimal.valueOf(100 + i % 500, 2);
+            objects.put(students[i].getId(),
+                    StudentsGradesInCourses.builder().student(students[i]).course(course).grade(grade).build());
+            columns.add(students[i]);
+            columns.setGradeAt(i, grade);
+        }
+
+        // Studenten und Kurs gehören in beiden Fällen nicht zu den Einschreibungen und werden nicht mitgezählt.
+        long shared = GraphLayout.parseInstance(students, course).totalSize();
+        long objectsSize = GraphLayout.parseInstance(objects, students, course).totalSize() - shared;
+        long columnsSize = GraphLayout.parseInstance(columns, students, course).totalSize() - shared;
+
+        // Gemessen 278.688 statt 1.025.616 Bytes (Faktor 0,27, siehe BENCHMARKS.md); etwas Luft für andere JVMs.
+        assertThat(columnsSize).isLessThanOrEqualTo(objectsSize * 3 / 10);
+    }
+}
@@ -0,0 +1,114 @@
+package ckollmeier.de.Entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnrollmentConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int COURSES = 16;
+    private static final int STUDENTS_PER_THREAD = 20;
+    private static final int CHURN_OPERATIONS = 2_000;
+
+    @Test
+    void enrollment_shouldNeitherLoseNorHalfLinkPairs_whenRunWith64Threads() throws Exception {
+        Teacher teacher = Teacher.builder().id("teacher-1").name("Snape").address("Hogwarts").build();
+        List<Course> courses = new ArrayList<>();
+        for (int c = 0; c < COURSES; c++) {
+            courses.add(Course.builder().id("course-" + c).name("Course " + c).teacher(teacher).build());
+        }
+        List<Student> students = new ArrayList<>();
+        for (int s = 0; s < THREADS * STUDENTS_PER_THREAD; s++) {
+            students.add(Student.builder().id("student-" + s).name("Student " + s).address("Hogwarts").build());
+        }
+        List<Student> churnStudents = students.subList(0, STUDENTS_PER_THREAD);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            List<Student> own = students.subList(t * STUDENTS_PER_THREAD, (t + 1) * STUDENTS_PER_THREAD);
+            boolean churner = t == 0;
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                if (churner) {
+                    churn(courses, churnStudents, random);
+                    return null;
+                }
+                for (Student student : own) {
+                    for (Course course : courses) {
+                        if (random.nextBoolean()) {
+                            student.addCourse(course);
+                        } else {
+                            course.addStudent(student);
+                        }
+                        course.setGrade(student.getId(), String.valueOf(random.nextInt(1, 7)));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        for (Student student : students.subList(STUDENTS_PER_THREAD, students.size())) {
+            assertThat(student.getCourses()).hasSize(COURSES);
+        }
+        for (Course course : courses) {
+            assertThat(course.getStudentsGrades()).containsKeys(students.subList(STUDENTS_PER_THREAD, students.size())
+                    .stream().map(Student::getId).toArray(String[]::new));
+            course.getStudentsGrades().values().forEach(enrollment ->
+                    assertThat(enrollment.getStudent().getCourses()).containsEntry(course.getId(), course));
+            assertThat(course.getAverageGrade()).isEqualTo(recomputedAverage(course.getStudentsGrades().values().stream()
+                    .map(StudentsGradesInCourses::getGrade).toList()));
+        }
+        for (Student student : students) {
+            student.getCourses().values().forEach(course ->
+                    assertThat(course.getStudentsGrades()).containsKey(student.getId()));
+            assertThat(student.getAverageGrade()).isEqualTo(recomputedAverage(student.getCourses().values().stream()
+                    .map(course -> course.getGradeForStudent(student.getId()).orElse(null)).toList()));
+        }
+    }
+
+    private static void churn(final List<Course> courses, final List<Student> students, final ThreadLocalRandom random) {
+        for (int i = 0; i < CHURN_OPERATIONS; i++) {
+            Course course = courses.get(random.nextInt(courses.size()));
+            Student student = students.get(random.nextInt(students.size()));
+            switch (random.nextInt(3)) {
+                case 0 -> student.addCourse(course);
+                case 1 -> student.removeCourse(course);
+                default -> {
+                    course.addStudent(student);
+                    course.setGrade(student.getId(), "2.3");
+                }
+            }
+        }
+    }
+
+    private static Optional<BigDecimal> recomputedAverage(final List<BigDecimal> grades) {
+        List<BigDecimal> present = grades.stream().filter(Objects::nonNull).toList();
+        if (present.isEmpty()) {
+            return Optional.empty();
+        }
+        BigDecimal sum = present.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        return Optional.of(sum.divide(BigDecimal.valueOf(present.size()), RoundingMode.HALF_UP));
+    }
+}
@@ -0,0 +1,50 @@
+package ckollmeier.de.Entities;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GradeAggregateTest {
+
+    @RepeatedTest(50)
+    void average_shouldEqualBigDecimalRecomputation() {
+        Random random = new Random(42);
+        GradeAggregate aggregate = new GradeAggregate();
+        List<BigDecimal> grades = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            if (!grades.isEmpty() && random.nextInt(4) == 0) {
+                aggregate.remove(grades.remove(random.nextInt(grades.size())));
+            } else {
+                BigDecimal grade = BigDecimal.valueOf(random.nextInt(100, 601), random.nextInt(3))
+                        .setScale(random.nextInt(3), RoundingMode.HALF_UP);
+                grades.add(grade);
+                aggregate.add(grade);
+            }
+            assertThat(aggregate.average()).isEqualTo(recompute(grades));
+        }
+    }
+
+    @Test
+    void add_shouldRejectGradesWithMoreThanTwoDecimalPlaces() {
+        assertThatThrownBy(() -> new GradeAggregate().add(new BigDecimal("2.345")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Optional<BigDecimal> recompute(final List<BigDecimal> grades) {
+        if (grades.isEmpty()) {
+            return Optional.empty();
+        }
+        BigDecimal sum = grades.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        return Optional.of(sum.divide(BigDecimal.valueOf(grades.size()), RoundingMode.HALF_UP));
+    }
+}
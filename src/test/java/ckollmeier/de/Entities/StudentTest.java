@@ -0,0 +1,50 @@
+package ckollmeier.de.Entities;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudentTest {
+
+    private Student student;
+    private Course course1;
+    private Course course2;
+
+    @BeforeEach
+    void setUp() {
+        Teacher teacher = Teacher.builder().id("teacher-1").name("Prof. Snape").address("Hogwarts").build();
+        course1 = Course.builder().id("course-101").name("Potions").teacher(teacher).build();
+        course2 = Course.builder().id("course-102").name("Defense Against the Dark Arts").teacher(teacher).build();
+        student = Student.builder().id("student-1").name("Harry").address("Potter").build();
+        student.addCourse(course1);
+        student.addCourse(course2);
+    }
+
+    @Test
+    void getAverageGrade_shouldBeEmpty_whenNoGradesAreSet() {
+        assertThat(student.getAverageGrade()).isEmpty();
+    }
+
+    @Test
+    void getAverageGrade_shouldAverageGradesOfAllCourses() {
+        course1.setGrade(student.getId(), "1.3");
+        course2.setGrade(student.getId(), "2");
+
+        assertThat(student.getAverageGrade()).contains(new BigDecimal("1.7"));
+    }
+
+    @Test
+    void getAverageGrade_shouldFollowGradeChangesAndRemovals() {
+        course1.setGrade(student.getId(), "1.3");
+        course2.setGrade(student.getId(), "2");
+        course2.setGrade(student.getId(), "3.3");
+
+        assertThat(student.getAverageGrade()).contains(new BigDecimal("2.3"));
+
+        student.removeCourse(course2);
+        assertThat(student.getAverageGrade()).contains(new BigDecimal("1.3"));
+    }
+}
@@ -0,0 +1,30 @@
+package ckollmeier.de.Entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UniversityTest {
+
+    @Test
+    void withCourse_shouldLeaveOriginalUnchanged() {
+        Course potions = Course.builder().id("c1").name("Potions").build();
+        Course charms = Course.builder().id("c2").name("Charms").build();
+        Map<String, Course> courses = new HashMap<>(Map.of("c1", potions));
+        University hogwarts = University.builder().id("u1").name("Hogwarts").courses(courses).build();
+        courses.clear();
+
+        University extended = hogwarts.withCourse(charms);
+
+        assertThat(hogwarts.courses()).containsOnlyKeys("c1");
+        assertThat(extended.courses()).containsOnlyKeys("c1", "c2");
+        assertThat(extended.withoutCourse("c1").courses()).containsOnlyKeys("c2");
+        assertThat(extended.withoutCourse("unknown")).isSameAs(extended);
+        assertThat(University.builder().build().courses()).isEmpty();
+        assertThatThrownBy(() -> hogwarts.courses().remove("c1")).isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,43 @@
+package ckollmeier.de;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GradeCsvReaderTest {
+
+    @Test
+    void next_shouldParseAllRecords() {
+        List<GradeRecord> records = readAll("course-1,student-1,2.3\r\n\ncourse-1, student-2 ,1\ncourse-2,student-1,1.25E0");
+
+        assertThat(records).containsExactly(
+                new GradeRecord("course-1", "student-1", new BigDecimal("2.3")),
+                new GradeRecord("course-1", "student-2", new BigDecimal("1")),
+                new GradeRecord("course-2", "student-1", new BigDecimal("1.25E0")));
+        assertThat(records.get(1).courseId()).isSameAs(records.get(0).courseId());
+    }
+
+    @Test
+    void next_shouldKeepScaleOfGrade() {
+        assertThat(readAll("c,s,2.30").get(0).grade()).isEqualTo(new BigDecimal("2.30"));
+    }
+
+    @Test
+    void next_shouldReportLineNumber_whenRecordIsInvalid() {
+        assertThatThrownBy(() -> readAll("c,s,1\nc,s\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid grade record in line 2");
+    }
+
+    private static List<GradeRecord> readAll(final String csv) {
+        List<GradeRecord> records = new ArrayList<>();
+        new GradeCsvReader(new StringReader(csv)).forEachRemaining(records::add);
+        return records;
+    }
+}
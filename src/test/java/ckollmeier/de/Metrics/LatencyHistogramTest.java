@@ -0,0 +1,47 @@
+package ckollmeier.de.Metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketOf_shouldMapEveryValueIntoABucketThatContainsIt() {
+        long[] values = {0, 1, 127, 128, 255, 256, 1_000, 123_456_789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertThat(LatencyHistogram.highestValueOf(bucket)).isGreaterThanOrEqualTo(value);
+            long lowest = bucket == 0 ? 0 : LatencyHistogram.highestValueOf(bucket - 1) + 1;
+            assertThat(lowest).isLessThanOrEqualTo(value);
+        }
+    }
+
+    @Test
+    void percentile_shouldBeWithinOnePercent() {
+        LatencyHistogram histogram = new MeterRegistry().histogram("test");
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertThat(histogram.count()).isEqualTo(100_000);
+        assertThat(histogram.max()).isEqualTo(100_000_000);
+        assertThat(histogram.mean()).isCloseTo(50_000_500.0, within(0.5));
+        assertThat((double) histogram.percentile(50)).isCloseTo(50_000_000.0, within(500_000.0));
+        assertThat((double) histogram.percentile(99)).isCloseTo(99_000_000.0, within(990_000.0));
+        assertThat(histogram.percentile(100)).isEqualTo(100_000_000);
+    }
+
+    @Test
+    void disabledHistogram_shouldIgnoreMeasurements() {
+        LatencyHistogram histogram = MeterRegistry.DISABLED.histogram("test");
+
+        histogram.stop(histogram.start());
+        histogram.record(42);
+
+        assertThat(histogram.count()).isZero();
+        assertThat(histogram.percentile(50)).isZero();
+        assertThat(MeterRegistry.DISABLED.meters()).isEmpty();
+    }
+}
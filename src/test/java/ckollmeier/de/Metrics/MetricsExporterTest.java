@@ -0,0 +1,66 @@
+package ckollmeier.de.Metrics;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+import ckollmeier.de.UniversityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsExporterTest {
+
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new MeterRegistry();
+        StudentRepository students = new StudentRepository(registry);
+        CourseRepository courses = new CourseRepository(registry);
+        UniversityService service = new UniversityService(new TeacherRepository(registry), courses, students);
+        service.setMeterRegistry(registry);
+
+        service.createStudent(Student.builder().id("s1").name("Zack").build());
+        service.createStudent(Student.builder().id("s2").name("Freddy").build());
+        service.createCourse(Course.builder().id("c1").name("Rock Band 101").build());
+        service.createCourse(Course.builder().id("c2").name("Rock Theory").build());
+        service.addStudentsToCourse("c1", List.of("s1", "s2"));
+        service.addStudentsToCourse("c2", List.of("s1"));
+        service.calculateAverageGrade();
+        service.calculateAverageGrade();
+    }
+
+    @Test
+    void writeText_shouldWriteOneLinePerMeter() throws IOException {
+        StringWriter out = new StringWriter();
+        MetricsExporter.writeText(registry, out);
+
+        assertThat(out.toString().lines())
+                .contains("counter repository.courses.findById 2",
+                        "counter repository.students.save 2",
+                        "gauge repository.courses.enrollments 3",
+                        "gauge repository.courses.enrollments.max 2",
+                        "gauge repository.students.size 2",
+                        "gauge service.queryCache.hits 1")
+                .anyMatch(line -> line.startsWith("histogram service.calculateAverageGrade count=2 mean="));
+    }
+
+    @Test
+    void writeJson_shouldGroupMetersByKind() throws IOException {
+        StringWriter out = new StringWriter();
+        MetricsExporter.writeJson(registry, out);
+
+        assertThat(out.toString())
+                .startsWith("{\"counters\":{\"repository.courses.deleteById\":0,")
+                .contains("\"gauges\":{\"repository.courses.enrollments\":3,")
+                .contains("\"histograms\":{\"service.calculateAverageGrade\":{\"count\":2,\"mean\":")
+                .endsWith("}}\n");
+    }
+}
@@ -0,0 +1,187 @@
+package ckollmeier.de.Persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChangeLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void commit_shouldKeepRecordsAndFileIntact_whenWriteFails() throws IOException {
+        Path path = directory.resolve("changes.log");
+        ChangeLog.open(path, payload -> { }).close();
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        file.position(file.size());
+        FailingChannel channel = new FailingChannel(file);
+        ChangeLog log = new ChangeLog(path, channel);
+
+        append(log, "first");
+        log.commit();
+        channel.failWrites = true;
+        append(log, "second");
+        assertThatThrownBy(log::commit).isInstanceOf(IOException.class);
+        channel.failWrites = false;
+        append(log, "third");
+        log.commit();
+        log.close();
+
+        List<String> replayed = new ArrayList<>();
+        ChangeLog.open(path, payload -> replayed.add(StandardCharsets.UTF_8.decode(payload).toString())).close();
+        assertThat(replayed).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    void commit_shouldBeRejected_whenFailedWriteCannotBeRolledBack() throws IOException {
+        Path path = directory.resolve("changes.log");
+        ChangeLog.open(path, payload -> { }).close();
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        file.position(file.size());
+        FailingChannel channel = new FailingChannel(file);
+        ChangeLog log = new ChangeLog(path, channel);
+
+        channel.failWrites = true;
+        channel.failTruncate = true;
+        append(log, "first");
+        assertThatThrownBy(log::commit).isInstanceOf(IOException.class);
+        channel.failWrites = false;
+        channel.failTruncate = false;
+        append(log, "second");
+
+        assertThatThrownBy(log::commit).isInstanceOf(IOException.class).hasMessageContaining("rolled back");
+        file.close();
+    }
+
+    private static void append(final ChangeLog log, final String value) {
+        byte[] payload = value.getBytes(StandardCharsets.UTF_8);
+        log.append(payload, payload.length);
+    }
+
+    /**
+     * Kanal, der auf Wunsch nur einen Teil eines Schreibvorgangs ausführt und dann fehlschlägt.
+     */
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private volatile boolean failWrites;
+        private volatile boolean failTruncate;
+
+        FailingChannel(final FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            if (!failWrites) {
+                return delegate.write(src);
+            }
+            ByteBuffer half = src.duplicate();
+            half.limit(half.position() + half.remaining() / 2);
+            src.position(src.position() + delegate.write(half));
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public FileChannel truncate(final long size) throws IOException {
+            if (failTruncate) {
+                throw new IOException("Device not available");
+            }
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(final ByteBuffer[] dsts, final int offset, final int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(final long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public void force(final boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(final long position, final long count, final WritableByteChannel target)
+                throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(final ReadableByteChannel src, final long position, final long count)
+                throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(final ByteBuffer dst, final long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(final ByteBuffer src, final long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(final MapMode mode, final long position, final long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(final long position, final long size, final boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(final long position, final long size, final boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
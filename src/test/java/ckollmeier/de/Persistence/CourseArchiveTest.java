@@ -0,0 +1,186 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CourseArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private StudentRepository students;
+    private List<Course> courses;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        students = new StudentRepository();
+        Teacher teacher = new Teacher("t1", "Dewey Finn", "Unknown Address");
+        Student student1 = Student.builder().id("s1").name("Zack").address("Unknown Address").build();
+        Student student2 = Student.builder().id("s2").name("Freddy").address(null).build();
+        Student student3 = Student.builder().id("s3").name("Katie ✓").address("Unknown Address").build();
+        students.save(student1);
+        students.save(student2);
+        students.save(student3);
+
+        courses = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Course course = Course.builder().id("c" + i).name("Rock Band " + i).teacher(i % 2 == 0 ? teacher : null)
+                    .build();
+            course.addStudents(List.of(student1, student2, student3));
+            course.setGrade("s1", "2");
+            course.setGrade("s2", "3.75");
+            courses.add(course);
+        }
+        file = directory.resolve("courses.archive");
+        CourseArchive.write(file, courses);
+    }
+
+    @Test
+    void open_shouldAnswerCountAndAverageWithoutLoading() throws IOException {
+        CourseArchive archive = CourseArchive.open(file, students, Long.MAX_VALUE);
+
+        Course course = archive.getCourses().get(0);
+        assertThat(archive.getCourses()).extracting(Course::getId)
+                .containsExactly("c0", "c1", "c2", "c3", "c4", "c5", "c6", "c7", "c8", "c9");
+        assertThat(course.isArchived()).isTrue();
+        assertThat(course.getTeacher()).isEqualTo(courses.get(0).getTeacher());
+        assertThat(archive.getCourses().get(1).getTeacher()).isNull();
+        assertThat(course.getStudentCount()).isEqualTo(3);
+        assertThat(course.getAverageGrade()).contains(new BigDecimal("2.88"));
+        assertThat(course.isEnrollmentsLoaded()).isFalse();
+        assertThat(archive.getResidentCourses()).isZero();
+    }
+
+    @Test
+    void getGradeForStudent_shouldLoadEnrollmentsOnDemand() throws IOException {
+        CourseArchive archive = CourseArchive.open(file, students, Long.MAX_VALUE);
+
+        Course course = archive.getCourses().get(3);
+        assertThat(course.getGradeForStudent("s2")).contains(new BigDecimal("3.75"));
+        assertThat(course.getGradeForStudent("s3")).isEqualTo(Optional.empty());
+        assertThat(course.getStudents()).containsExactlyInAnyOrderElementsOf(students.findAll());
+        assertThat(course.isEnrollmentsLoaded()).isTrue();
+        assertThat(archive.getResidentCourses()).isEqualTo(1);
+        assertThat(archive.getResidentBytes()).isPositive();
+    }
+
+    @Test
+    void open_shouldCreateStudentsMissingFromRepository() throws IOException {
+        CourseArchive archive = CourseArchive.open(file, new StudentRepository(), Long.MAX_VALUE);
+
+        assertThat(archive.getCourses().get(0).getStudents()).extracting(Student::getName)
+                .containsExactlyInAnyOrder("Zack", "Freddy", "Katie ✓");
+    }
+
+    @Test
+    void load_shouldShareCreatedStudents_whenCoursesAreLoadedConcurrently() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            CourseArchive archive = CourseArchive.open(file, new StudentRepository(), Long.MAX_VALUE);
+            ExecutorService executor = Executors.newFixedThreadPool(archive.getCourses().size());
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Set<Student>>> loads = new ArrayList<>();
+            for (Course course : archive.getCourses()) {
+                loads.add(executor.submit(() -> {
+                    start.await();
+                    return course.getStudents();
+                }));
+            }
+            start.countDown();
+
+            Map<String, Student> first = new HashMap<>();
+            for (Future<Set<Student>> load : loads) {
+                for (Student student : load.get()) {
+                    assertThat(first.computeIfAbsent(student.getId(), id -> student)).isSameAs(student);
+                }
+            }
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void load_shouldReleaseEnrollmentsBeyondMemoryBudget() throws IOException {
+        CourseArchive archive = CourseArchive.open(file, students, 1);
+
+        for (Course course : archive.getCourses()) {
+            assertThat(course.getGradeForStudent("s1")).contains(new BigDecimal("2"));
+        }
+        assertThat(archive.getResidentCourses()).isLessThanOrEqualTo(1);
+        assertThat(archive.getCourses().get(0).isEnrollmentsLoaded()).isFalse();
+        assertThat(archive.getCourses().get(0).getGradeForStudent("s2")).contains(new BigDecimal("3.75"));
+    }
+
+    @Test
+    void archivedCourse_shouldBeReadOnly() throws IOException {
+        CourseArchive archive = CourseArchive.open(file, students, Long.MAX_VALUE);
+        Course course = archive.getCourses().get(0);
+
+        assertThatThrownBy(() -> course.setGrade("s3", "1"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> course.addStudent(Student.builder().id("s4").name("Lawrence").build()))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void open_shouldRejectCorruptFile() throws IOException {
+        Files.write(file, new byte[] {1, 2, 3});
+
+        assertThatThrownBy(() -> CourseArchive.open(file, students, Long.MAX_VALUE))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void open_shouldRejectCorruptIndexPosition() throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        ByteBuffer.wrap(content).putLong(2 * Integer.BYTES, Long.MAX_VALUE);
+        Files.write(file, content);
+
+        assertThatThrownBy(() -> CourseArchive.open(file, students, Long.MAX_VALUE))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void open_shouldRejectCorruptStringCountBeforeAllocating() throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        buffer.putInt((int) buffer.getLong(2 * Integer.BYTES), Integer.MAX_VALUE);
+        Files.write(file, content);
+
+        assertThatThrownBy(() -> CourseArchive.open(file, students, Long.MAX_VALUE))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void open_shouldRejectEnrollmentBlockOutsideFile() throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        ByteBuffer.wrap(content).putLong(content.length - Long.BYTES, content.length);
+        Files.write(file, content);
+
+        assertThatThrownBy(() -> CourseArchive.open(file, students, Long.MAX_VALUE))
+                .isInstanceOf(IOException.class);
+    }
+}
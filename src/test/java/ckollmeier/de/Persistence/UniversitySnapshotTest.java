@@ -0,0 +1,142 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UniversitySnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private TeacherRepository teachers;
+    private CourseRepository courses;
+    private StudentRepository students;
+
+    @BeforeEach
+    void setUp() {
+        teachers = new TeacherRepository();
+        courses = new CourseRepository();
+        students = new StudentRepository();
+
+        Teacher teacher = new Teacher("t1", "Dewey Finn", "Unknown Address");
+        teachers.save(teacher);
+        Student student1 = Student.builder().id("s1").name("Zack").address("Unknown Address").build();
+        Student student2 = Student.builder().id("s2").name("Freddy").address(null).build();
+        Student student3 = Student.builder().id("s3").name("Katie ✓").address("Unknown Address").build();
+        students.save(student1);
+        students.save(student2);
+        students.save(student3);
+
+        Course course1 = Course.builder().id("c1").name("Rock Band 101").teacher(teacher).build();
+        course1.addStudents(List.of(student1, student2, student3));
+        course1.setGrade("s1", "2");
+        course1.setGrade("s2", "3.75");
+        courses.save(course1);
+        Course course2 = Course.builder().id("c2").name("Advanced Rock Theory").build();
+        course2.addStudents(List.of(student1));
+        course2.setGrade("s1", "1.3");
+        courses.save(course2);
+    }
+
+    @Test
+    void read_shouldRestoreWrittenSnapshot() throws IOException {
+        Path file = directory.resolve("university.snapshot");
+        UniversitySnapshot.write(file, teachers, courses, students);
+
+        TeacherRepository loadedTeachers = new TeacherRepository();
+        CourseRepository loadedCourses = new CourseRepository();
+        StudentRepository loadedStudents = new StudentRepository();
+        UniversitySnapshot.read(file, loadedTeachers, loadedCourses, loadedStudents);
+
+        assertThat(loadedTeachers.findAll()).containsExactlyInAnyOrderElementsOf(teachers.findAll());
+        assertThat(loadedStudents.findAll()).containsExactlyInAnyOrderElementsOf(students.findAll());
+        assertThat(loadedCourses.findByTeacherId("t1")).extracting(Course::getId).containsExactly("c1");
+
+        Course course1 = loadedCourses.findById("c1").orElseThrow();
+        assertThat(course1.getStudentsGrades()).hasSize(3);
+        assertThat(course1.getGradeForStudent("s2")).contains(new BigDecimal("3.75"));
+        assertThat(course1.getGradeForStudent("s3")).isEmpty();
+        assertThat(course1.getAverageGrade()).isEqualTo(courses.findById("c1").orElseThrow().getAverageGrade());
+        assertThat(loadedCourses.findById("c2").orElseThrow().getTeacher()).isNull();
+
+        Student student1 = loadedStudents.findById("s1").orElseThrow();
+        assertThat(student1.getCourses()).hasSize(2);
+        assertThat(student1.getAverageGrade()).isEqualTo(students.findById("s1").orElseThrow().getAverageGrade());
+        assertThat(loadedStudents.findByAverageGradeBetterOrEquals(new BigDecimal("2")))
+                .extracting(Student::getId).containsExactly("s1");
+    }
+
+    @Test
+    void read_shouldRejectFilesThatAreNoSnapshot() throws IOException {
+        Path file = directory.resolve("other.bin");
+        Files.writeString(file, "not a snapshot");
+
+        assertThatThrownBy(() -> UniversitySnapshot.read(file, new TeacherRepository(), new CourseRepository(),
+                new StudentRepository()))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void read_shouldRejectTruncatedSnapshotsWithoutLoadingAnything() throws IOException {
+        Path file = directory.resolve("university.snapshot");
+        UniversitySnapshot.write(file, teachers, courses, students);
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 5));
+        TeacherRepository loadedTeachers = new TeacherRepository();
+        CourseRepository loadedCourses = new CourseRepository();
+        StudentRepository loadedStudents = new StudentRepository();
+
+        assertThatThrownBy(() -> UniversitySnapshot.read(file, loadedTeachers, loadedCourses, loadedStudents))
+                .isInstanceOf(IOException.class);
+        assertThat(loadedTeachers.findAll()).isEmpty();
+        assertThat(loadedCourses.findAll()).isEmpty();
+        assertThat(loadedStudents.findAll()).isEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {Integer.MAX_VALUE, -2})
+    void read_shouldRejectCorruptCountsBeforeAllocating(final int count) throws IOException {
+        Path file = directory.resolve("university.snapshot");
+        UniversitySnapshot.write(file, teachers, courses, students);
+        byte[] content = Files.readAllBytes(file);
+        ByteBuffer.wrap(content).putInt(2 * Integer.BYTES, count);
+        Files.write(file, content);
+
+        assertThatThrownBy(() -> UniversitySnapshot.read(file, new TeacherRepository(), new CourseRepository(),
+                new StudentRepository()))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void read_shouldRejectCorruptStringLengths() throws IOException {
+        Path file = directory.resolve("university.snapshot");
+        UniversitySnapshot.write(file, teachers, courses, students);
+        byte[] content = Files.readAllBytes(file);
+        ByteBuffer.wrap(content).putInt(3 * Integer.BYTES, -1);
+        Files.write(file, content);
+
+        assertThatThrownBy(() -> UniversitySnapshot.read(file, new TeacherRepository(), new CourseRepository(),
+                new StudentRepository()))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,263 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UniversityStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private TeacherRepository teachers;
+    private CourseRepository courses;
+    private StudentRepository students;
+    private UniversityStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        teachers = new TeacherRepository();
+        courses = new CourseRepository();
+        students = new StudentRepository();
+        store = UniversityStore.open(directory, teachers, courses, students);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void open_shouldReplayRecordedChanges() throws IOException {
+        Teacher teacher = new Teacher("t1", "Dewey Finn", "Unknown Address");
+        teachers.save(teacher);
+        teachers.save(new Teacher("t2", "Ned", null));
+        teachers.deleteById("t2");
+        Student student1 = Student.builder().id("s1").name("Zack").address("Unknown Address").build();
+        Student student2 = Student.builder().id("s2").name("Freddy").address("Unknown Address").build();
+        students.save(student1);
+        students.save(student2);
+        Course course = Course.builder().id("c1").name("Rock Band 101").teacher(teacher).build();
+        courses.save(course);
+        course.addStudents(List.of(student1, student2));
+        course.setGrade("s1", "2.3");
+        course.setGrade("s2", "4");
+        course.setGrade("s1", "1.75");
+        course.removeStudent(student2);
+        Course deleted = Course.builder().id("c2").name("Deleted").build();
+        courses.save(deleted);
+        courses.deleteById("c2");
+        deleted.addStudent(student2);
+        store.commit();
+
+        Repositories reopened = reopen();
+
+        assertThat(reopened.teachers.findAll()).containsExactly(teacher);
+        assertThat(reopened.students.findAll()).containsExactlyInAnyOrder(student1, student2);
+        assertThat(reopened.courses.findAll()).extracting(Course::getId).containsExactly("c1");
+        Course restored = reopened.courses.findById("c1").orElseThrow();
+        assertThat(restored.getTeacher()).isEqualTo(teacher);
+        assertThat(restored.getStudentsGrades()).containsOnlyKeys("s1");
+        assertThat(restored.getGradeForStudent("s1")).contains(new BigDecimal("1.75"));
+        assertThat(reopened.students.findById("s1").orElseThrow().getAverageGrade()).contains(new BigDecimal("1.75"));
+    }
+
+    @Test
+    void open_shouldRecordEnrollmentsOfCoursesSavedWithStudents() throws IOException {
+        Student student = Student.builder().id("s1").name("Zack").build();
+        students.save(student);
+        Course course = Course.builder().id("c1").name("Rock Band 101").build();
+        course.addStudent(student);
+        course.setGrade("s1", "3");
+        courses.save(course);
+        store.commit();
+
+        Repositories reopened = reopen();
+
+        assertThat(reopened.courses.findById("c1").orElseThrow().getGradeForStudent("s1"))
+                .contains(new BigDecimal("3"));
+    }
+
+    @Test
+    void compact_shouldFoldLogIntoSnapshot() throws IOException {
+        Student student = Student.builder().id("s1").name("Zack").build();
+        students.save(student);
+        Course course = Course.builder().id("c1").name("Rock Band 101").build();
+        courses.save(course);
+        course.addStudent(student);
+        course.setGrade("s1", "2");
+
+        store.compact();
+        long compactedLogSize = Files.size(directory.resolve(UniversityStore.LOG_FILE));
+        course.setGrade("s1", "1");
+        store.commit();
+
+        assertThat(directory.resolve(UniversityStore.SNAPSHOT_FILE)).exists();
+        assertThat(compactedLogSize).isEqualTo(2 * Integer.BYTES);
+        Repositories reopened = reopen();
+        assertThat(reopened.courses.findById("c1").orElseThrow().getGradeForStudent("s1"))
+                .contains(new BigDecimal("1"));
+    }
+
+    @Test
+    void compact_shouldKeepChangesMadeWhileSnapshotIsWritten() throws Exception {
+        int count = 2000;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    students.save(Student.builder().id("s" + i).name("Student " + i).build());
+                }
+                store.commit();
+                return null;
+            });
+            while (!writer.isDone()) {
+                store.compact();
+            }
+            writer.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(reopen().students.findAll()).hasSize(count);
+    }
+
+    @Test
+    void open_shouldReplayLogAgainOntoNewerSnapshot() throws IOException {
+        Student student = Student.builder().id("s1").name("Zack").build();
+        students.save(student);
+        store.compact();
+        Course course = Course.builder().id("c1").name("Rock Band 101").build();
+        courses.save(course);
+        course.addStudent(student);
+        course.setGrade("s1", "2");
+        course.setGrade("s1", "1.00");
+        Course other = Course.builder().id("c2").name("Advanced Rock Theory").build();
+        courses.save(other);
+        other.addStudent(student);
+        other.setGrade("s1", "3.00");
+        store.commit();
+        UniversitySnapshot.write(directory.resolve(UniversityStore.SNAPSHOT_FILE), teachers, courses, students);
+        courses.save(other);
+        store.commit();
+
+        Repositories reopened = reopen();
+
+        assertThat(reopened.courses.findById("c1").orElseThrow().getStudentsGrades()).containsOnlyKeys("s1");
+        assertThat(reopened.courses.findById("c1").orElseThrow().getGradeForStudent("s1"))
+                .contains(new BigDecimal("1.00"));
+        Student restored = reopened.students.findById("s1").orElseThrow();
+        assertThat(restored.getAverageGrade()).contains(new BigDecimal("2.00"));
+        assertThat(reopened.students.findByAverageGradeBetterOrEquals(new BigDecimal("2"))).containsExactly(restored);
+        assertThat(reopened.students.findByAverageGradeBetterOrEquals(new BigDecimal("1.99"))).isEmpty();
+    }
+
+    @Test
+    void open_shouldKeepEnrollmentsOfStudentsSavedAfterLastCompaction() throws IOException {
+        Course course = Course.builder().id("c1").name("Rock Band 101").build();
+        courses.save(course);
+        store.compact();
+        Student student = Student.builder().id("s1").name("Zack").build();
+        students.save(student);
+        course.addStudent(student);
+        course.setGrade("s1", "1.75");
+        store.commit();
+        UniversitySnapshot.write(directory.resolve(UniversityStore.SNAPSHOT_FILE), teachers, courses, students);
+
+        Repositories reopened = reopen();
+
+        Student restored = reopened.students.findById("s1").orElseThrow();
+        Course restoredCourse = reopened.courses.findById("c1").orElseThrow();
+        assertThat(restored.getCourses()).containsOnlyKeys("c1");
+        assertThat(restoredCourse.getStudentsGrades().get("s1").getStudent()).isSameAs(restored);
+        assertThat(restored.getAverageGrade()).contains(new BigDecimal("1.75"));
+        assertThat(reopened.students.findByAverageGradeBetterOrEquals(new BigDecimal("2"))).containsExactly(restored);
+    }
+
+    @Test
+    void open_shouldDropTornTailOfLog() throws IOException {
+        students.save(Student.builder().id("s1").name("Zack").build());
+        store.commit();
+        store.close();
+        Path log = directory.resolve(UniversityStore.LOG_FILE);
+        long validSize = Files.size(log);
+        Files.write(log, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        store = UniversityStore.open(directory, teachers = new TeacherRepository(), courses = new CourseRepository(),
+                students = new StudentRepository());
+
+        assertThat(students.findById("s1")).isPresent();
+        assertThat(Files.size(log)).isEqualTo(validSize);
+        students.save(Student.builder().id("s2").name("Freddy").build());
+        store.commit();
+        assertThat(reopen().students.findAll()).hasSize(2);
+    }
+
+    @Test
+    void commit_shouldMakeConcurrentGradeChangesDurable() throws Exception {
+        int threads = 8;
+        int studentsPerThread = 200;
+        Course course = Course.builder().id("c1").name("Rock Band 101").build();
+        courses.save(course);
+        List<Student> enrolled = new ArrayList<>();
+        for (int i = 0; i < threads * studentsPerThread; i++) {
+            Student student = Student.builder().id("s" + i).name("Student " + i).build();
+            students.save(student);
+            enrolled.add(student);
+        }
+        course.addStudents(enrolled);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t * studentsPerThread;
+                futures.add(executor.submit(() -> {
+                    for (int i = first; i < first + studentsPerThread; i++) {
+                        course.setGrade("s" + i, i % 2 == 0 ? "1.5" : "2.5");
+                        store.commit();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Course restored = reopen().courses.findById("c1").orElseThrow();
+        assertThat(restored.getStudentsGrades()).hasSize(threads * studentsPerThread);
+        assertThat(restored.getAverageGrade()).contains(new BigDecimal("2.0"));
+    }
+
+    private Repositories reopen() throws IOException {
+        Repositories reopened = new Repositories(new TeacherRepository(), new CourseRepository(), new StudentRepository());
+        UniversityStore.open(directory, reopened.teachers, reopened.courses, reopened.students).close();
+        return reopened;
+    }
+
+    private record Repositories(TeacherRepository teachers, CourseRepository courses, StudentRepository students) {
+    }
+}
@@ -0,0 +1,68 @@
+package ckollmeier.de.Pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RingBufferTest {
+
+    @Test
+    void drain_shouldHandEventsOfEachProducerInOrder_whenManyProducersPublish() throws InterruptedException {
+        RingBuffer<long[]> ring = new RingBuffer<>(8);
+        int producers = 4;
+        int events = 10_000;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    ring.publish(new long[]{producer, i});
+                }
+                done.countDown();
+            }).start();
+        }
+
+        long[] expectedNext = new long[producers];
+        int received = 0;
+        while (received < producers * events) {
+            List<long[]> batch = new ArrayList<>();
+            int taken = ring.drain(batch::add, 3);
+            assertThat(taken).isLessThanOrEqualTo(3);
+            for (long[] event : batch) {
+                assertThat(event[1]).isEqualTo(expectedNext[(int) event[0]]++);
+            }
+            received += taken;
+            if (taken == 0) {
+                ring.awaitEvents();
+            }
+        }
+        done.await();
+
+        assertThat(expectedNext).containsOnly(events);
+    }
+
+    @Test
+    void close_shouldRejectNewEvents_butKeepPublishedOnes() {
+        RingBuffer<String> ring = new RingBuffer<>(4);
+        assertThat(ring.publish("a")).isTrue();
+
+        ring.close();
+
+        assertThat(ring.publish("b")).isFalse();
+        assertThat(ring.isDrained()).isFalse();
+        List<String> events = new ArrayList<>();
+        ring.drain(events::add, 10);
+        assertThat(events).containsExactly("a");
+        assertThat(ring.isDrained()).isTrue();
+    }
+
+    @Test
+    void constructor_shouldRequirePowerOfTwo() {
+        assertThatThrownBy(() -> new RingBuffer<String>(6)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,172 @@
+package ckollmeier.de.Pipeline;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.RepositoryListener;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UniversityPipelineTest {
+
+    private final TeacherRepository teachers = new TeacherRepository();
+    private final CourseRepository courses = new CourseRepository();
+    private final StudentRepository students = new StudentRepository();
+
+    @Test
+    void view_shouldContainChanges_whenTheirFuturesComplete() {
+        Teacher teacher = new Teacher("t1", "Snape", "Hogwarts");
+        teachers.save(teacher);
+        try (UniversityPipeline pipeline = new UniversityPipeline(teachers, courses, students)) {
+            UniversityView initial = pipeline.view();
+            assertThat(initial.findTeacher("t1")).contains(teacher);
+
+            CompletableFuture.allOf(
+                    pipeline.createCourse(Course.builder().id("c1").name("Potions").teacher(teacher).build()),
+                    pipeline.createStudent(Student.builder().id("s1").name("Harry").build()),
+                    pipeline.createStudent(Student.builder().id("s2").name("Hermione").build())).join();
+            pipeline.addStudentsToCourse("c1", List.of("s1", "s2")).join();
+            pipeline.setGrade("c1", "s1", "2.0").join();
+            pipeline.setGrade("c1", "s2", "3.0").join();
+
+            UniversityView view = pipeline.view();
+            CourseView course = view.findCourse("c1").orElseThrow();
+            assertThat(course.teacher()).isEqualTo(teacher);
+            assertThat(course.studentIds()).containsExactlyInAnyOrder("s1", "s2");
+            assertThat(course.gradeForStudent("s1")).contains(new BigDecimal("2.0"));
+            assertThat(course.averageGrade()).contains(new BigDecimal("2.5"));
+            assertThat(view.findStudent("s1").orElseThrow().courseIds()).containsExactly("c1");
+            assertThat(view.calculateAverageGrade()).contains(new BigDecimal("2.5"));
+            assertThat(view.getVersion()).isGreaterThan(initial.getVersion());
+            assertThat(initial.findCourse("c1")).isEmpty();
+
+            pipeline.setGrade("c1", "s1", "1.0").join();
+            pipeline.removeStudentFromCourse("c1", "s2").join();
+
+            assertThat(pipeline.view().findCourse("c1").orElseThrow().gradeForStudent("s1")).contains(new BigDecimal("1.0"));
+            assertThat(course.gradeForStudent("s1")).contains(new BigDecimal("2.0"));
+
+            assertThat(pipeline.view().findCourse("c1").orElseThrow().studentIds()).containsExactly("s1");
+            assertThat(pipeline.view().findStudent("s2").orElseThrow().courseIds()).isEmpty();
+            assertThat(view.findCourse("c1").orElseThrow().studentIds()).containsExactlyInAnyOrder("s1", "s2");
+        }
+    }
+
+    @Test
+    void changes_shouldFailWithoutStoppingWriter_whenInvalid() {
+        try (UniversityPipeline pipeline = new UniversityPipeline(teachers, courses, students)) {
+            assertThat(pipeline.setGrade("unknown", "s1", "1.0"))
+                    .failsWithin(Duration.ofSeconds(1))
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(IllegalArgumentException.class);
+
+            pipeline.createStudent(Student.builder().id("s1").name("Harry").build()).join();
+
+            assertThat(pipeline.view().findStudent("s1")).isPresent();
+        }
+    }
+
+    @Test
+    void changes_shouldFailWithoutStoppingWriter_whenAnErrorIsThrown() {
+        students.addListener(new RepositoryListener<>() {
+            @Override
+            public void saved(final Student student) {
+                if (student.getId().equals("broken")) {
+                    throw new StackOverflowError();
+                }
+            }
+
+            @Override
+            public void deleted(final String id) {
+            }
+        });
+        try (UniversityPipeline pipeline = new UniversityPipeline(teachers, courses, students)) {
+            assertThat(pipeline.createStudent(Student.builder().id("broken").name("Peeves").build()))
+                    .failsWithin(Duration.ofSeconds(1))
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(StackOverflowError.class);
+
+            pipeline.createStudent(Student.builder().id("s1").name("Harry").build()).join();
+
+            assertThat(pipeline.view().findStudent("s1")).isPresent();
+        }
+    }
+
+    @Test
+    void changes_shouldFailAndViewBeRebuilt_whenPublishingFails() {
+        AtomicBoolean failLookups = new AtomicBoolean();
+        TeacherRepository failingTeachers = new TeacherRepository() {
+            @Override
+            public Optional<Teacher> findById(final String id) {
+                if (failLookups.get()) {
+                    throw new OutOfMemoryError("Java heap space");
+                }
+                return super.findById(id);
+            }
+        };
+        try (UniversityPipeline pipeline = new UniversityPipeline(failingTeachers, courses, students)) {
+            failLookups.set(true);
+            assertThat(pipeline.createTeacher(new Teacher("t1", "Snape", "Hogwarts")))
+                    .failsWithin(Duration.ofSeconds(1))
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(OutOfMemoryError.class);
+
+            failLookups.set(false);
+            pipeline.createStudent(Student.builder().id("s1").name("Harry").build()).join();
+
+            assertThat(pipeline.view().findTeacher("t1")).isPresent();
+            assertThat(pipeline.view().findStudent("s1")).isPresent();
+        }
+    }
+
+    @Test
+    void close_shouldApplyPendingChanges_andRejectLaterOnes() {
+        UniversityPipeline pipeline = new UniversityPipeline(teachers, courses, students, 16);
+        List<Thread> producers = new ArrayList<>();
+        List<CompletableFuture<Void>> calls = Collections.synchronizedList(new ArrayList<>());
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    String id = "s" + producer + "-" + i;
+                    calls.add(pipeline.createStudent(Student.builder().id(id).name(id).build()));
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        producers.forEach(thread -> {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        pipeline.close();
+
+        assertThat(calls).allMatch(CompletableFuture::isDone);
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+        assertThat(pipeline.view().getStudents()).hasSize(2_000);
+        assertThat(students.count()).isEqualTo(2_000);
+        assertThat(pipeline.createStudent(Student.builder().id("late").name("Late").build()))
+                .failsWithin(Duration.ofSeconds(1))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(RejectedExecutionException.class);
+    }
+}
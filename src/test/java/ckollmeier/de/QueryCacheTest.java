@@ -0,0 +1,36 @@
+package ckollmeier.de;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryCacheTest {
+
+    @Test
+    void get_shouldRecomputeWhenVersionChanges() {
+        QueryCache cache = new QueryCache(4);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThat(cache.<Integer>get("query", 1, calls::incrementAndGet)).isEqualTo(1);
+        assertThat(cache.<Integer>get("query", 1, calls::incrementAndGet)).isEqualTo(1);
+        assertThat(cache.<Integer>get("query", 2, calls::incrementAndGet)).isEqualTo(2);
+
+        assertThat(cache.stats()).isEqualTo(new QueryCacheStats(1, 2, 0, 1));
+    }
+
+    @Test
+    void get_shouldEvictLeastRecentlyUsedResult() {
+        QueryCache cache = new QueryCache(2);
+        cache.get("a", 1, () -> "a");
+        cache.get("b", 1, () -> "b");
+        cache.get("a", 1, () -> "a");
+        cache.get("c", 1, () -> "c");
+
+        assertThat(cache.get("a", 1, () -> "recomputed")).isEqualTo("a");
+        assertThat(cache.get("b", 1, () -> "recomputed")).isEqualTo("recomputed");
+        assertThat(cache.stats().evictions()).isEqualTo(2);
+        assertThat(cache.stats().size()).isEqualTo(2);
+    }
+}
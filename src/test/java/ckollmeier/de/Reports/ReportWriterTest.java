@@ -0,0 +1,108 @@
+package ckollmeier.de.Reports;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+import ckollmeier.de.UniversityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportWriterTest {
+
+    private StudentRepository studentRepository;
+    private TeacherRepository teacherRepository;
+    private CourseRepository courseRepository;
+    private UniversityService universityService;
+
+    @BeforeEach
+    void setUp() {
+        studentRepository = new StudentRepository();
+        teacherRepository = new TeacherRepository();
+        courseRepository = new CourseRepository();
+        universityService = new UniversityService(teacherRepository, courseRepository, studentRepository);
+        Teacher teacher = Teacher.builder().id("teacher-1").name("Snape").address("Hogwarts").build();
+        universityService.createTeacher(teacher);
+        universityService.createTeacher(Teacher.builder().id("teacher-2").name("A teacher with a very long name").build());
+        universityService.createStudent(Student.builder().id("student-1").name("Harry").address("Potter").build());
+        universityService.createStudent(Student.builder().id("student-2").name("Hermione, \"the clever\"").address("Granger").build());
+        universityService.createStudent(Student.builder().id("student-3").name("Ron").address("Weasley").build());
+        Course course = Course.builder().id("course-101").name("Potions").teacher(teacher).build();
+        universityService.createCourse(course);
+        universityService.addStudentsToCourse(course.getId(), List.of("student-1", "student-2"));
+        course.setGrade("student-1", "1.35");
+        course.setGrade("student-2", "2");
+    }
+
+    @Test
+    void printDetails_shouldMatchPrintfOutputByteForByte() {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        printfDetails(new PrintStream(expected, true, StandardCharsets.UTF_8));
+
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(actual, true, StandardCharsets.UTF_8));
+        try {
+            universityService.printDetails();
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        assertThat(actual.toByteArray()).isEqualTo(expected.toByteArray());
+    }
+
+    @Test
+    void writeDetails_shouldWriteCsv() throws Exception {
+        StringWriter out = new StringWriter();
+        universityService.writeDetails(out, ReportFormat.CSV);
+
+        assertThat(out.toString().lines()).containsExactlyInAnyOrder(
+                "type,id,name,count,average",
+                "student,student-1,Harry,1,1.35",
+                "student,student-2,\"Hermione, \"\"the clever\"\"\",1,2",
+                "student,student-3,Ron,0,",
+                "teacher,teacher-1,Snape,1,",
+                "teacher,teacher-2,A teacher with a very long name,0,",
+                "course,course-101,Potions,2,1.68");
+    }
+
+    @Test
+    void writeDetails_shouldWriteJsonLines() throws Exception {
+        StringWriter out = new StringWriter();
+        universityService.writeDetails(out, ReportFormat.JSON_LINES);
+
+        assertThat(out.toString().lines()).contains(
+                "{\"type\":\"student\",\"id\":\"student-2\",\"name\":\"Hermione, \\\"the clever\\\"\",\"count\":1,\"average\":2}",
+                "{\"type\":\"student\",\"id\":\"student-3\",\"name\":\"Ron\",\"count\":0,\"average\":null}",
+                "{\"type\":\"course\",\"id\":\"course-101\",\"name\":\"Potions\",\"count\":2,\"average\":1.68}");
+    }
+
+    private void printfDetails(final PrintStream out) {
+        out.println("Students:");
+        studentRepository.findAll().forEach(student ->
+                out.printf("  - Name: %-20s ID: %s | ⌀%s%n", student.getName(), student.getId(), student.getAverageGrade().orElse(BigDecimal.ZERO).setScale(1, RoundingMode.HALF_UP))
+        );
+
+        out.println("Teachers:");
+        teacherRepository.findAll().forEach(teacher ->
+                out.printf("  - Name: %-20s ID: %s | %d courses%n", teacher.name(), teacher.id(), courseRepository.findAll().stream().filter(course -> course.getTeacher().id().equals(teacher.id())).count())
+        );
+
+        out.println("Courses:");
+        courseRepository.findAll().forEach(course ->
+                out.printf("  - Name: %-30s ID: %s | %d students with ⌀%s%n", course.getName(), course.getId(), course.getStudents().size(), course.getAverageGrade().orElse(BigDecimal.ZERO).setScale(1, RoundingMode.HALF_UP))
+        );
+    }
+}
@@ -5,8 +5,14 @@ import ckollmeier.de.Entities.Teacher; // Assuming Course might need a Teacher
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -141,4 +147,81 @@ class CourseRepositoryTest {
         assertThat(courses).hasSize(2);
         assertThat(courses).containsExactlyInAnyOrder(course1, course2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByTeacherId_shouldFollowSavesAndDeletes() {
+        Teacher otherTeacher = Teacher.builder().id("teacher-2").name("Prof. McGonagall").address("Hogwarts").build();
+        courseRepository.save(course1);
+        courseRepository.save(course2);
+
+        assertThat(courseRepository.findByTeacherId("teacher-1")).containsExactlyInAnyOrder(course1, course2);
+        assertThat(courseRepository.countByTeacherId("teacher-1")).isEqualTo(2);
+
+        Course movedCourse2 = course2.withTeacher(otherTeacher);
+        courseRepository.save(movedCourse2);
+        assertThat(courseRepository.findByTeacherId("teacher-1")).containsExactly(course1);
+        assertThat(courseRepository.findByTeacherId("teacher-2")).containsExactly(movedCourse2);
+
+        courseRepository.deleteById(course1.getId());
+        assertThat(courseRepository.countByTeacherId("teacher-1")).isZero();
+        assertThat(courseRepository.findByTeacherId(null)).isEmpty();
+    }
+
+    @Test
+    void forEach_shouldVisitEveryCourseOnce() {
+        courseRepository.save(course1);
+        courseRepository.save(course2);
+        List<Course> visited = new ArrayList<>();
+
+        courseRepository.forEach(visited::add);
+
+        assertThat(visited).containsExactly(course1, course2);
+        assertThat(courseRepository.stream().map(Course::getId)).containsExactly(course1.getId(), course2.getId());
+    }
+
+    @Test
+    void save_shouldNotBlockOtherCourses_whileListenersOfOneCourseRun() throws Exception {
+        courseRepository.save(course2);
+        CountDownLatch listenerEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        courseRepository.addListener(new RepositoryListener<>() {
+            @Override
+            public void saved(final Course course) {
+                if (course == course1) {
+                    listenerEntered.countDown();
+                    awaitQuietly(release);
+                }
+            }
+
+            @Override
+            public void deleted(final String id) {
+            }
+        });
+        Thread slowSave = new Thread(() -> courseRepository.save(course1));
+        slowSave.start();
+        assertTrue(listenerEntered.await(10, TimeUnit.SECONDS));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<Course>> lookup = executor.submit(() -> {
+                courseRepository.save(Course.builder().id("c3").name("Charms").build());
+                return courseRepository.findById(course2.getId());
+            });
+            assertThat(lookup.get(10, TimeUnit.SECONDS)).contains(course2);
+            assertThat(courseRepository.findById(course1.getId())).isEmpty();
+        } finally {
+            release.countDown();
+            slowSave.join();
+            executor.shutdown();
+        }
+        assertThat(courseRepository.findById(course1.getId())).contains(course1);
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
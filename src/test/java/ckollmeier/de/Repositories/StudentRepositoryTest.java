@@ -1,11 +1,19 @@
 package ckollmeier.de.Repositories;
 
+import ckollmeier.de.Entities.Course;
 import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -127,4 +135,84 @@ class StudentRepositoryTest {
         assertThat(students).hasSize(2);
         assertThat(students).containsExactlyInAnyOrder(student1, student2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByAverageGrade_shouldFollowGradeChanges() {
+        Student student3 = Student.builder().id("student-3").name("Ron").address("Weasley").build();
+        studentRepository.save(student1);
+        studentRepository.save(student2);
+        studentRepository.save(student3);
+        Teacher teacher = Teacher.builder().id("teacher-1").name("Snape").address("Hogwarts").build();
+        Course course = Course.builder().id("course-101").name("Potions").teacher(teacher).build();
+        course.addStudent(student1);
+        course.addStudent(student2);
+        course.addStudent(student3);
+
+        course.setGrade(student1.getId(), "2.3");
+        course.setGrade(student2.getId(), "1.0");
+        course.setGrade(student3.getId(), "4");
+
+        assertThat(studentRepository.findByAverageGradeBetterOrEquals(new BigDecimal("2.3")))
+                .containsExactly(student2, student1);
+        assertThat(studentRepository.findByAverageGradeBetween(new BigDecimal("2"), new BigDecimal("5")))
+                .containsExactly(student1, student3);
+        assertThat(studentRepository.findTopByAverageGrade(1)).containsExactly(student2);
+
+        course.setGrade(student3.getId(), "1.3");
+        studentRepository.deleteById(student2.getId());
+
+        assertThat(studentRepository.findTopByAverageGrade(2)).containsExactly(student3, student1);
+    }
+
+    @Test
+    void save_shouldKeepAllStudents_whenSavedConcurrently() {
+        IntStream.range(0, 10_000).parallel().forEach(i -> studentRepository.save(
+                Student.builder().id("student-" + i).name("Student " + i).address("Hogwarts").build()));
+
+        assertThat(studentRepository.findAll()).hasSize(10_000);
+        assertThat(studentRepository.findById("student-9999")).isPresent();
+    }
+
+    @Test
+    void iterator_shouldReturnEveryStoredStudentOnce_whenModifiedConcurrently() throws Exception {
+        int stable = 5_000;
+        for (int i = 0; i < stable; i++) {
+            studentRepository.save(Student.builder().id("stable-" + i).name("Student " + i).build());
+        }
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                studentRepository.save(Student.builder().id("volatile-" + i).name("Student " + i).build());
+                studentRepository.deleteById("volatile-" + (i - 10));
+            }
+        });
+        writer.start();
+
+        Map<String, Integer> seen = new HashMap<>();
+        for (Student student : studentRepository) {
+            seen.merge(student.getId(), 1, Integer::sum);
+        }
+        writer.join();
+
+        assertThat(seen.values()).containsOnly(1);
+        assertThat(seen.keySet().stream().filter(id -> id.startsWith("stable-"))).hasSize(stable);
+    }
+
+    @Test
+    void findAll_shouldPageOverReusedSlots_whenStudentsWereDeleted() {
+        for (int i = 0; i < 10; i++) {
+            studentRepository.save(Student.builder().id("student-" + i).name("Student " + i).build());
+        }
+        for (int i = 0; i < 10; i += 2) {
+            studentRepository.deleteById("student-" + i);
+        }
+        studentRepository.deleteById("unknown");
+        studentRepository.save(Student.builder().id("student-new").name("New").build());
+
+        List<Student> all = new ArrayList<>(studentRepository.findAll(0, 3));
+        all.addAll(studentRepository.findAll(3, 10));
+
+        assertThat(all).extracting(Student::getId).containsExactlyInAnyOrder(
+                "student-1", "student-3", "student-5", "student-7", "student-9", "student-new");
+        assertThat(studentRepository.count()).isEqualTo(6);
+    }
+}
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class TeacherRepositoryTest {
 
@@ -127,4 +128,28 @@ class TeacherRepositoryTest {
         assertThat(teachers).hasSize(2);
         assertThat(teachers).containsExactlyInAnyOrder(teacher1, teacher2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAll_shouldReturnPagesInSaveOrder() {
+        teacherRepository.save(teacher1);
+        teacherRepository.save(teacher2);
+        Teacher teacher3 = Teacher.builder().id("teacher-3").name("Flitwick").address("Hogwarts").build();
+        teacherRepository.save(teacher3);
+        teacherRepository.save(teacher1.withAddress("Askaban"));
+
+        assertThat(teacherRepository.findAll(0, 2)).containsExactly(teacher1.withAddress("Askaban"), teacher2);
+        assertThat(teacherRepository.findAll(2, 2)).containsExactly(teacher3);
+        assertThat(teacherRepository.findAll(3, 2)).isEmpty();
+        assertThatThrownBy(() -> teacherRepository.findAll(-1, 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void stream_shouldSkipDeletedTeachers() {
+        teacherRepository.save(teacher1);
+        teacherRepository.save(teacher2);
+        teacherRepository.deleteById(teacher1.id());
+
+        assertThat(teacherRepository.stream()).containsExactly(teacher2);
+        assertThat(teacherRepository.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,166 @@
+package ckollmeier.de;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardedUniversityServiceTest {
+
+    private static final String[] GRADES = {"1", "1.3", "2.7", "3.25", "4.0", "1.75", "2"};
+
+    @Test
+    void queries_shouldMatchSingleService() {
+        UniversityService single = new UniversityService(new TeacherRepository(), new CourseRepository(),
+                new StudentRepository());
+        try (ShardedUniversityService sharded = new ShardedUniversityService(4, 2)) {
+            for (UniversityPlacement placement : List.of(UniversityPlacement.SINGLE, UniversityPlacement.SHARDED)) {
+                List<CompletableFuture<Void>> created = new ArrayList<>();
+                List<Course> courses = new ArrayList<>();
+                for (int s = 0; s < 40; s++) {
+                    Student student = Student.builder().id("s" + s).name("Student " + s).build();
+                    created.add(placement.create(single, sharded, student));
+                }
+                for (int c = 0; c < 12; c++) {
+                    Course course = Course.builder().id("c" + c).name("Course " + c).build();
+                    courses.add(course);
+                    created.add(placement.create(single, sharded, course));
+                }
+                CompletableFuture.allOf(created.toArray(CompletableFuture[]::new)).join();
+
+                for (int c = 0; c < courses.size(); c++) {
+                    List<String> studentIds = new ArrayList<>();
+                    for (int s = c; s < 40; s += 3) {
+                        studentIds.add("s" + s);
+                    }
+                    placement.enroll(single, sharded, "c" + c, studentIds);
+                    for (int i = 0; i < studentIds.size(); i++) {
+                        courses.get(c).setGrade(studentIds.get(i), GRADES[(c + i) % GRADES.length]);
+                    }
+                }
+            }
+
+            assertThat(sharded.calculateAverageGrade().join()).isEqualTo(single.calculateAverageGrade());
+            BigDecimal threshold = new BigDecimal("2.3");
+            List<Student> better = sharded.getStudentsWithAverageGradeBetterOrEquals(threshold).join();
+            assertThat(better).extracting(Student::getId)
+                    .containsExactlyInAnyOrderElementsOf(ids(single.getStudentsWithAverageGradeBetterOrEquals(threshold)));
+            assertThat(better).extracting(student -> student.getAverageGrade().orElseThrow()).isSorted();
+            assertThat(sharded.getStudentsWithAverageGradeBetween(new BigDecimal("2"), new BigDecimal("3")).join())
+                    .extracting(student -> student.getAverageGrade().orElseThrow())
+                    .isSorted()
+                    .hasSameSizeAs(single.getStudentsWithAverageGradeBetween(new BigDecimal("2"), new BigDecimal("3")));
+            assertThat(sharded.getBestStudents(5).join())
+                    .extracting(student -> student.getAverageGrade().orElseThrow())
+                    .containsExactlyElementsOf(single.getBestStudents(5).stream()
+                            .map(student -> student.getAverageGrade().orElseThrow())
+                            .toList());
+        }
+    }
+
+    @Test
+    void shardOf_shouldUseRouter() {
+        try (ShardedUniversityService sharded = new ShardedUniversityService(2, 1,
+                id -> id.startsWith("hogwarts/") ? 0 : 1)) {
+            sharded.createTeacher(new Teacher("hogwarts/t1", "Severus Snape", null)).join();
+
+            assertThat(sharded.getShardCount()).isEqualTo(2);
+            assertThat(sharded.shardOf("hogwarts/s1")).isZero();
+            assertThat(sharded.shardOf("durmstrang/s1")).isEqualTo(1);
+        }
+        try (ShardedUniversityService broken = new ShardedUniversityService(2, 1, id -> 2)) {
+            assertThatThrownBy(() -> broken.shardOf("s1")).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void addStudentsToCourse_shouldFail_whenCourseOrStudentIsMissing() {
+        try (ShardedUniversityService sharded = new ShardedUniversityService(3, 1)) {
+            Course course = Course.builder().id("c1").name("Potions").build();
+            CompletableFuture.allOf(
+                    sharded.createCourse(course),
+                    sharded.createStudent(Student.builder().id("s1").name("Harry").build())).join();
+
+            assertThat(sharded.addStudentsToCourse("unknown", List.of("s1")))
+                    .failsWithin(Duration.ofSeconds(1))
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(IllegalArgumentException.class);
+            assertThat(sharded.addStudentsToCourse("c1", List.of("s1", "s2")))
+                    .failsWithin(Duration.ofSeconds(1))
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(IllegalArgumentException.class);
+            assertThat(course.getStudentCount()).isZero();
+
+            sharded.addStudentsToCourse("c1", List.of("s1")).join();
+            assertThat(course.getStudentCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void mergeByAverageGrade_shouldDropStudents_whoseAverageChangedAfterTheShardFilteredThem() {
+        Student harry = Student.builder().id("s1").name("Harry").build();
+        Student hermione = Student.builder().id("s2").name("Hermione").build();
+        Student ron = Student.builder().id("s3").name("Ron").build();
+        Course course = Course.builder().id("c1").name("Potions").build();
+        course.addStudents(List.of(harry, hermione, ron));
+        course.setGrade("s1", "2");
+        course.setGrade("s2", "1");
+        course.setGrade("s3", "1.7");
+        List<List<Student>> parts = List.of(List.of(hermione, harry), List.of(ron));
+
+        course.setGrade("s1", "3");
+        course.setGrade("s3", "1.3");
+
+        assertThat(ids(ShardedUniversityService.mergeByAverageGrade(parts,
+                average -> average.compareTo(new BigDecimal("2")) <= 0, Integer.MAX_VALUE)))
+                .containsExactly("s2", "s3");
+    }
+
+    private static List<String> ids(final List<Student> students) {
+        return students.stream().map(Student::getId).toList();
+    }
+
+    private enum UniversityPlacement {
+        SINGLE, SHARDED;
+
+        CompletableFuture<Void> create(final UniversityService single, final ShardedUniversityService sharded,
+                                       final Student student) {
+            if (this == SINGLE) {
+                single.createStudent(student);
+                return CompletableFuture.completedFuture(null);
+            }
+            return sharded.createStudent(student);
+        }
+
+        CompletableFuture<Void> create(final UniversityService single, final ShardedUniversityService sharded,
+                                       final Course course) {
+            if (this == SINGLE) {
+                single.createCourse(course);
+                return CompletableFuture.completedFuture(null);
+            }
+            return sharded.createCourse(course);
+        }
+
+        void enroll(final UniversityService single, final ShardedUniversityService sharded, final String courseId,
+                    final List<String> studentIds) {
+            if (this == SINGLE) {
+                single.addStudentsToCourse(courseId, studentIds);
+            } else {
+                sharded.addStudentsToCourse(courseId, studentIds).join();
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package ckollmeier.de;
+
+import ckollmeier.de.Entities.Course;
+import ckollmeier.de.Entities.EnrollmentSource;
+import ckollmeier.de.Entities.EnrollmentVisitor;
+import ckollmeier.de.Entities.FixedPointGrade;
+import ckollmeier.de.Entities.Student;
+import ckollmeier.de.Entities.Teacher;
+import ckollmeier.de.Repositories.CourseRepository;
+import ckollmeier.de.Repositories.StudentRepository;
+import ckollmeier.de.Repositories.TeacherRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UniversityServiceTest {
+
+    private UniversityService universityService;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        universityService = new UniversityService(new TeacherRepository(), new CourseRepository(), new StudentRepository());
+        Teacher teacher = Teacher.builder().id("teacher-1").name("Snape").address("Hogwarts").build();
+        universityService.createTeacher(teacher);
+        for (int i = 1; i <= 5; i++) {
+            universityService.createStudent(Student.builder().id("student-" + i).name("Student " + i).address("Hogwarts").build());
+        }
+        course = Course.builder().id("course-101").name("Potions").teacher(teacher).build();
+        universityService.createCourse(course);
+    }
+
+    @Test
+    void addStudentsToCourse_shouldEnrollNobody_whenAnyStudentIsUnknown() {
+        assertThatThrownBy(() -> universityService.addStudentsToCourse(course.getId(), List.of("student-1", "unknown", "student-2")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Student not found with ID: unknown");
+
+        assertThat(course.getStudentsGrades()).isEmpty();
+    }
+
+    @Test
+    void addStudentsToCourse_shouldEnrollAllStudents() {
+        universityService.addStudentsToCourse(course.getId(), List.of("student-1", "student-2"));
+
+        assertThat(course.getStudentsGrades()).containsOnlyKeys("student-1", "student-2");
+    }
+
+    @Test
+    void enrollStudents_shouldReportFailedRowsAndEnrollTheRest() {
+        universityService.addStudentsToCourse(course.getId(), List.of("student-5"));
+
+        EnrollmentResult result = universityService.enrollStudents(course.getId(),
+                Arrays.asList("student-1", "unknown", "student-2", "student-1", null, "student-5", "student-3"));
+
+        assertThat(result.enrolled()).isEqualTo(3);
+        assertThat(result.isSuccessful()).isFalse();
+        assertThat(result.failures()).containsExactly(
+                new EnrollmentFailure(1, "unknown", EnrollmentFailure.Reason.STUDENT_NOT_FOUND),
+                new EnrollmentFailure(3, "student-1", EnrollmentFailure.Reason.DUPLICATE),
+                new EnrollmentFailure(4, null, EnrollmentFailure.Reason.MISSING_ID),
+                new EnrollmentFailure(5, "student-5", EnrollmentFailure.Reason.ALREADY_ENROLLED));
+        assertThat(course.getStudentsGrades()).containsOnlyKeys("student-1", "student-2", "student-3", "student-5");
+    }
+
+    @Test
+    void enrollStudents_shouldReportStudentsEnrolledConcurrently() throws Exception {
+        List<String> studentIds = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            Student student = Student.builder().id("batch-" + i).name("Batch " + i).address("Hogwarts").build();
+            universityService.createStudent(student);
+            studentIds.add(student.getId());
+        }
+        List<String> reversed = new ArrayList<>(studentIds);
+        Collections.reverse(reversed);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                String courseId = "course-concurrent-" + round;
+                universityService.createCourse(Course.builder().id(courseId).name("Charms").build());
+                CountDownLatch start = new CountDownLatch(1);
+                Future<EnrollmentResult> first = executor.submit(() -> {
+                    start.await();
+                    return universityService.enrollStudents(courseId, studentIds);
+                });
+                Future<EnrollmentResult> second = executor.submit(() -> {
+                    start.await();
+                    return universityService.enrollStudents(courseId, reversed);
+                });
+                start.countDown();
+
+                // Every row is either enrolled or reported, and every student is enrolled by exactly one call.
+                for (EnrollmentResult result : List.of(first.get(), second.get())) {
+                    assertThat(result.failures()).allMatch(failure -> failure.reason() == EnrollmentFailure.Reason.ALREADY_ENROLLED);
+                    assertThat(result.failures()).extracting(EnrollmentFailure::row).isSorted();
+                    assertThat(result.enrolled() + result.failures().size()).isEqualTo(studentIds.size());
+                }
+                assertThat(first.get().enrolled() + second.get().enrolled()).isEqualTo(studentIds.size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void importGrades_shouldApplyGradesPerCourseAndReportUnknownRows() {
+        universityService.addStudentsToCourse(course.getId(), List.of("student-1", "student-2"));
+
+        GradeImportResult result = universityService.importGrades(new GradeCsvReader(new StringReader(
+                "course-101,student-1,2\ncourse-101,student-2,3.3\ncourse-101,student-3,1\nunknown,student-1,1\n")));
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.rejected()).containsExactlyInAnyOrder(
+                new GradeRecord("course-101", "student-3", BigDecimal.ONE),
+                new GradeRecord("unknown", "student-1", BigDecimal.ONE));
+        assertThat(course.getGradeForStudent("student-2")).contains(new BigDecimal("3.3"));
+        assertThat(course.getAverageGrade()).contains(new BigDecimal("2.7"));
+    }
+
+    @Test
+    void importGrades_shouldRejectBadRowsWithoutAbortingTheImport() {
+        universityService.addStudentsToCourse(course.getId(), List.of("student-1", "student-2"));
+        universityService.createCourse(Course.archived("course-archived", "Old Potions", null, new EnrollmentSource() {
+            @Override
+            public int size() {
+                return 0;
+            }
+
+            @Override
+            public long gradeSum() {
+                return 0;
+            }
+
+            @Override
+            public int[] gradeCounts() {
+                return new int[FixedPointGrade.MAX_SCALE + 1];
+            }
+
+            @Override
+            public void load(final EnrollmentVisitor visitor) {
+            }
+
+            @Override
+            public void loaded(final Course loaded, final long bytes) {
+            }
+        }));
+
+        GradeImportResult result = universityService.importGrades(new GradeCsvReader(new StringReader(
+                "course-101,student-1,1.333\ncourse-101,student-2,30000000\ncourse-archived,student-1,1\n"
+                        + "course-101,student-2\ncourse-101,student-1,2\ncourse-101,student-2,3.3\n")));
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.rejected()).containsExactly(
+                new GradeRecord("course-101", "student-1", new BigDecimal("1.333")),
+                new GradeRecord("course-101", "student-2", new BigDecimal("30000000")),
+                new GradeRecord("course-archived", "student-1", BigDecimal.ONE));
+        assertThat(result.malformed()).containsExactly("Invalid grade record in line 4");
+        assertThat(course.getGradeForStudent("student-1")).contains(new BigDecimal("2"));
+        assertThat(course.getGradeForStudent("student-2")).contains(new BigDecimal("3.3"));
+    }
+
+    @Test
+    void calculateAverageGrade_shouldBeEqualInParallelAndSequentialMode() {
+        Random random = new Random(42);
+        Teacher teacher = Teacher.builder().id("teacher-2").name("McGonagall").address("Hogwarts").build();
+        for (int c = 0; c < 500; c++) {
+            Course other = Course.builder().id("course-" + c).name("Course " + c).teacher(teacher).build();
+            universityService.createCourse(other);
+            universityService.addStudentsToCourse(other.getId(), List.of("student-1", "student-2", "student-3"));
+            other.setGrade("student-1", String.valueOf(random.nextInt(1, 6)));
+            other.setGrade("student-2", random.nextInt(1, 6) + "." + random.nextInt(10));
+            other.setGrade("student-3", random.nextInt(1, 6) + ".0" + random.nextInt(10));
+        }
+
+        // Bypass the query cache, otherwise the second call would return the result of the first one.
+        universityService.setParallelThreshold(Integer.MAX_VALUE);
+        var sequential = universityService.aggregateAverageGrade().average();
+        universityService.setParallelThreshold(1);
+        var parallel = universityService.aggregateAverageGrade().average();
+
+        assertThat(sequential).isPresent();
+        assertThat(parallel).isEqualTo(sequential);
+    }
+
+    @Test
+    void calculateAverageGrade_shouldBeCachedUntilAGradeChanges() {
+        universityService.addStudentsToCourse(course.getId(), List.of("student-1", "student-2"));
+        course.setGrade("student-1", "2");
+
+        assertThat(universityService.calculateAverageGrade()).contains(new BigDecimal("2"));
+        assertThat(universityService.calculateAverageGrade()).contains(new BigDecimal("2"));
+        assertThat(universityService.getQueryCacheStats().hits()).isEqualTo(1);
+
+        course.setGrade("student-2", "4");
+        assertThat(universityService.calculateAverageGrade()).contains(new BigDecimal("3"));
+        course.removeStudent(course.getStudentsGrades().get("student-2").getStudent());
+        assertThat(universityService.calculateAverageGrade()).contains(new BigDecimal("2"));
+        universityService.createCourse(Course.builder().id("course-102").name("Charms").build());
+        assertThat(universityService.calculateAverageGrade()).contains(new BigDecimal("2"));
+
+        QueryCacheStats stats = universityService.getQueryCacheStats();
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(4);
+    }
+
+    @Test
+    void getStudentsWithAverageGradeBetterOrEquals_shouldBeCachedUntilAnAverageChanges() {
+        universityService.addStudentsToCourse(course.getId(), List.of("student-1", "student-2", "student-3"));
+        course.setGrade("student-1", "2");
+        course.setGrade("student-2", "3");
+
+        List<Student> first = universityService.getStudentsWithAverageGradeBetterOrEquals(new BigDecimal("2.5"));
+        universityService.addStudentsToCourse(course.getId(), List.of("student-4"));
+        assertThat(universityService.getStudentsWithAverageGradeBetterOrEquals(new BigDecimal("2.5"))).isSameAs(first);
+        assertThat(first).extracting(Student::getId).containsExactly("student-1");
+        assertThatThrownBy(first::clear).isInstanceOf(UnsupportedOperationException.class);
+
+        course.setGrade("student-3", "1");
+        assertThat(universityService.getStudentsWithAverageGradeBetterOrEquals(new BigDecimal("2.5")))
+                .extracting(Student::getId).containsExactly("student-3", "student-1");
+        assertThat(universityService.getBestStudents(1)).extracting(Student::getId).containsExactly("student-3");
+        assertThat(universityService.getQueryCacheStats().hits()).isEqualTo(1);
+    }
+}
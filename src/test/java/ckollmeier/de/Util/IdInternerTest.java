@@ -0,0 +1,100 @@
+package ckollmeier.de.Util;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdInternerTest {
+
+    @Test
+    void intern_shouldReturnStableDenseHandles() {
+        IdInterner interner = new IdInterner();
+
+        int first = interner.intern("s1");
+        int second = interner.intern("s2");
+
+        assertThat(first).isZero();
+        assertThat(second).isEqualTo(1);
+        assertThat(interner.intern(new String("s1"))).isEqualTo(first);
+        assertThat(interner.id(second)).isEqualTo("s2");
+        assertThat(interner.size()).isEqualTo(2);
+    }
+
+    @Test
+    void find_shouldNotAddUnknownIds() {
+        IdInterner interner = new IdInterner();
+        for (int i = 0; i < 1000; i++) {
+            interner.intern("s" + i);
+        }
+
+        assertThat(interner.find("s999")).isEqualTo(999);
+        assertThat(interner.find("unknown")).isEqualTo(IdInterner.NOT_FOUND);
+        assertThat(interner.find(null)).isEqualTo(IdInterner.NOT_FOUND);
+        assertThat(interner.size()).isEqualTo(1000);
+    }
+
+    @Test
+    void release_shouldForgetIdAndReuseItsHandle() {
+        IdInterner interner = new IdInterner();
+        int first = interner.intern("s1");
+        interner.intern("s2");
+
+        interner.release(first);
+
+        assertThat(interner.find("s1")).isEqualTo(IdInterner.NOT_FOUND);
+        assertThatThrownBy(() -> interner.id(first)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThat(interner.size()).isEqualTo(1);
+        assertThat(interner.intern("s3")).isEqualTo(first);
+        assertThat(interner.find("s2")).isEqualTo(1);
+        assertThat(interner.limit()).isEqualTo(2);
+    }
+
+    @Test
+    void release_shouldKeepHandlesBounded_whenIdsChurn() {
+        IdInterner interner = new IdInterner();
+        Map<String, Integer> live = new LinkedHashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            String id = "s" + i;
+            live.put(id, interner.intern(id));
+            if (live.size() > 100) {
+                String oldest = live.keySet().iterator().next();
+                interner.release(live.remove(oldest));
+                assertThat(interner.find(oldest)).isEqualTo(IdInterner.NOT_FOUND);
+            }
+        }
+
+        live.forEach((id, handle) -> assertThat(interner.find(id)).isEqualTo(handle));
+        assertThat(interner.size()).isEqualTo(100);
+        assertThat(interner.limit()).isEqualTo(101);
+    }
+
+    @Test
+    void internedTable_shouldUseLessMemoryThanConcurrentHashMap() {
+        int entities = 10_000;
+        Object[] values = new Object[entities];
+        String[] ids = new String[entities];
+        Map<String, Object> map = new ConcurrentHashMap<>();
+        IdInterner interner = new IdInterner();
+        IntObjectHashMap<Object> table = new IntObjectHashMap<>();
+        for (int i = 0; i < entities; i++) {
+            ids[i] = "s" + i;
+            values[i] = new Object();
+            map.put(ids[i], values[i]);
+            table.put(interner.intern(ids[i]), values[i]);
+        }
+
+        // IDs und Werte gehören in beiden Fällen den Entitäten selbst und werden nicht mitgezählt.
+        long shared = GraphLayout.parseInstance(ids, values).totalSize();
+        long mapSize = GraphLayout.parseInstance(map, ids, values).totalSize() - shared;
+        long tableSize = GraphLayout.parseInstance(interner, table, ids, values).totalSize() - shared;
+
+        // Gemessen 262.256 statt 385.616 Bytes (Faktor 0,68, siehe BENCHMARKS.md); etwas Luft für andere JVMs.
+        assertThat(tableSize).isLessThanOrEqualTo(mapSize * 3 / 4);
+    }
+}
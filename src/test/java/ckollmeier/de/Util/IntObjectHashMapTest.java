@@ -0,0 +1,62 @@
+package ckollmeier.de.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IntObjectHashMapTest {
+
+    @Test
+    void put_shouldReplaceAndReturnPreviousValue() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+
+        assertThat(map.put(1, "a")).isNull();
+        assertThat(map.put(1, "b")).isEqualTo("a");
+
+        assertThat(map.get(1)).isEqualTo("b");
+        assertThat(map.size()).isEqualTo(1);
+        assertThatThrownBy(() -> map.put(2, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void remove_shouldKeepCollidingKeysReachable() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        for (int key = 0; key < 1000; key++) {
+            map.put(key, key);
+        }
+        for (int key = 0; key < 1000; key += 2) {
+            assertThat(map.remove(key)).isEqualTo(key);
+        }
+
+        assertThat(map.size()).isEqualTo(500);
+        for (int key = 0; key < 1000; key++) {
+            assertThat(map.get(key)).isEqualTo(key % 2 == 0 ? null : key);
+        }
+        assertThat(map.values()).hasSize(500).allMatch(value -> value % 2 == 1);
+    }
+
+    @Test
+    void operations_shouldBehaveLikeHashMap() {
+        Random random = new Random(42);
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                assertThat(map.put(key, i)).isEqualTo(expected.put(key, i));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+        assertThat(map.values()).containsExactlyInAnyOrderElementsOf(expected.values());
+    }
+}
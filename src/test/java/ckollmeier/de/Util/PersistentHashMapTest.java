@@ -0,0 +1,72 @@
+package ckollmeier.de.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PersistentHashMapTest {
+
+    /**
+     * Schlüssel mit wenigen verschiedenen Hashwerten, damit Kollisionsknoten entstehen.
+     */
+    private record Key(int value) {
+        @Override
+        public int hashCode() {
+            return value % 7 == 0 ? 42 : value;
+        }
+    }
+
+    @Test
+    void operations_shouldBehaveLikeHashMap_andKeepOldVersions() {
+        Random random = new Random(42);
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        Map<Key, Integer> expected = new HashMap<>();
+        List<PersistentHashMap<Key, Integer>> versions = new ArrayList<>();
+        List<Map<Key, Integer>> expectedVersions = new ArrayList<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            Key key = new Key(random.nextInt(3_000) * (random.nextBoolean() ? 1 : 1 << 20));
+            if (random.nextInt(3) == 0) {
+                map = map.without(key);
+                expected.remove(key);
+            } else {
+                map = map.with(key, i);
+                expected.put(key, i);
+            }
+            if (i % 5_000 == 0) {
+                versions.add(map);
+                expectedVersions.add(new HashMap<>(expected));
+            }
+        }
+
+        PersistentHashMap<Key, Integer> last = map;
+        assertThat(last).hasSize(expected.size()).isEqualTo(expected);
+        expected.forEach((key, value) -> assertThat(last.get(key)).isEqualTo(value));
+        for (int i = 0; i < versions.size(); i++) {
+            assertThat(versions.get(i)).isEqualTo(expectedVersions.get(i));
+        }
+        Map<Key, Integer> visited = new HashMap<>();
+        last.forEach(visited::put);
+        assertThat(visited).isEqualTo(expected);
+    }
+
+    @Test
+    void with_shouldReturnSameMap_whenNothingChanges() {
+        Integer value = 1;
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty().with("a", value);
+
+        assertThat(map.with("a", value)).isSameAs(map);
+        assertThat(map.without("b")).isSameAs(map);
+        assertThat(map.without("a")).isSameAs(PersistentHashMap.empty());
+        assertThat(PersistentHashMap.copyOf(map)).isSameAs(map);
+        assertThatThrownBy(() -> map.with("b", null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> map.put("b", 2)).isInstanceOf(UnsupportedOperationException.class);
+    }
+}